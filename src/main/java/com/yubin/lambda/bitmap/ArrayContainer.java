@@ -0,0 +1,190 @@
+package com.yubin.lambda.bitmap;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * 有序char数组实现的容器, 元素个数不超过4096
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+class ArrayContainer extends Container {
+
+    private char[] content;
+
+    private int cardinality;
+
+    ArrayContainer() {
+        this(new char[4], 0);
+    }
+
+    ArrayContainer(char[] content, int cardinality) {
+        this.content = content;
+        this.cardinality = cardinality;
+    }
+
+    @Override
+    Container add(char value) {
+        int pos = Arrays.binarySearch(content, 0, cardinality, value);
+        if (pos >= 0) {
+            return this;
+        }
+        if (cardinality >= ARRAY_MAX_SIZE) {
+            return toBitmap().add(value);
+        }
+        pos = -pos - 1;
+        if (cardinality == content.length) {
+            content = Arrays.copyOf(content, Math.min(ARRAY_MAX_SIZE, Math.max(4, cardinality * 2)));
+        }
+        System.arraycopy(content, pos, content, pos + 1, cardinality - pos);
+        content[pos] = value;
+        cardinality++;
+        return this;
+    }
+
+    @Override
+    Container remove(char value) {
+        int pos = Arrays.binarySearch(content, 0, cardinality, value);
+        if (pos >= 0) {
+            System.arraycopy(content, pos + 1, content, pos, cardinality - pos - 1);
+            cardinality--;
+        }
+        return this;
+    }
+
+    @Override
+    boolean contains(char value) {
+        return Arrays.binarySearch(content, 0, cardinality, value) >= 0;
+    }
+
+    @Override
+    int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    Container and(Container other) {
+        char[] result = new char[Math.min(cardinality, other.cardinality())];
+        int n = 0;
+        if (other instanceof ArrayContainer) {
+            // 两个有序数组求交集
+            ArrayContainer array = (ArrayContainer) other;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality && j < array.cardinality) {
+                char a = content[i];
+                char b = array.content[j];
+                if (a < b) {
+                    i++;
+                } else if (a > b) {
+                    j++;
+                } else {
+                    result[n++] = a;
+                    i++;
+                    j++;
+                }
+            }
+        } else {
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(content[i])) {
+                    result[n++] = content[i];
+                }
+            }
+        }
+        return new ArrayContainer(result, n);
+    }
+
+    @Override
+    Container or(Container other) {
+        if (!(other instanceof ArrayContainer)) {
+            return other.or(this);
+        }
+        ArrayContainer array = (ArrayContainer) other;
+        if (cardinality + array.cardinality > ARRAY_MAX_SIZE) {
+            return toBitmap().or(other);
+        }
+        // 两个有序数组求并集
+        char[] result = new char[cardinality + array.cardinality];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < cardinality && j < array.cardinality) {
+            char a = content[i];
+            char b = array.content[j];
+            if (a < b) {
+                result[n++] = a;
+                i++;
+            } else if (a > b) {
+                result[n++] = b;
+                j++;
+            } else {
+                result[n++] = a;
+                i++;
+                j++;
+            }
+        }
+        while (i < cardinality) {
+            result[n++] = content[i++];
+        }
+        while (j < array.cardinality) {
+            result[n++] = array.content[j++];
+        }
+        return new ArrayContainer(result, n);
+    }
+
+    @Override
+    void orInto(long[] words) {
+        for (int i = 0; i < cardinality; i++) {
+            char value = content[i];
+            words[value >>> 6] |= 1L << value;
+        }
+    }
+
+    @Override
+    Container andNot(Container other) {
+        char[] result = new char[cardinality];
+        int n = 0;
+        for (int i = 0; i < cardinality; i++) {
+            if (!other.contains(content[i])) {
+                result[n++] = content[i];
+            }
+        }
+        return new ArrayContainer(result, n);
+    }
+
+    @Override
+    Container copy() {
+        return new ArrayContainer(Arrays.copyOf(content, Math.max(cardinality, 1)), cardinality);
+    }
+
+    BitmapContainer toBitmap() {
+        BitmapContainer bitmap = new BitmapContainer();
+        for (int i = 0; i < cardinality; i++) {
+            bitmap.set(content[i]);
+        }
+        return bitmap;
+    }
+
+    @Override
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < cardinality;
+            }
+
+            @Override
+            public int nextInt() {
+                if (index >= cardinality) {
+                    throw new NoSuchElementException();
+                }
+                return content[index++];
+            }
+        };
+    }
+}
@@ -0,0 +1,196 @@
+package com.yubin.lambda.bitmap;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * 65536位的位图容器, and/or/andNot按long(64位)为单位计算
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+class BitmapContainer extends Container {
+
+    static final int WORDS = 1024;
+
+    private final long[] words;
+
+    private int cardinality;
+
+    BitmapContainer() {
+        this(new long[WORDS], 0);
+    }
+
+    private BitmapContainer(long[] words, int cardinality) {
+        this.words = words;
+        this.cardinality = cardinality;
+    }
+
+    void set(char value) {
+        long before = words[value >>> 6];
+        long after = before | (1L << value);
+        words[value >>> 6] = after;
+        if (before != after) {
+            cardinality++;
+        }
+    }
+
+    @Override
+    Container add(char value) {
+        set(value);
+        return this;
+    }
+
+    @Override
+    Container remove(char value) {
+        long before = words[value >>> 6];
+        long after = before & ~(1L << value);
+        if (before != after) {
+            words[value >>> 6] = after;
+            cardinality--;
+            if (cardinality <= ARRAY_MAX_SIZE) {
+                return toArray();
+            }
+        }
+        return this;
+    }
+
+    @Override
+    boolean contains(char value) {
+        return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    @Override
+    int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    Container and(Container other) {
+        if (other instanceof ArrayContainer) {
+            return other.and(this);
+        }
+        long[] others = ((BitmapContainer) other).words;
+        long[] result = new long[WORDS];
+        int count = 0;
+        for (int i = 0; i < WORDS; i++) {
+            result[i] = words[i] & others[i];
+            count += Long.bitCount(result[i]);
+        }
+        return normalize(result, count);
+    }
+
+    @Override
+    Container or(Container other) {
+        if (other instanceof ArrayContainer) {
+            BitmapContainer result = (BitmapContainer) copy();
+            PrimitiveIterator.OfInt it = other.iterator();
+            while (it.hasNext()) {
+                result.set((char) it.nextInt());
+            }
+            return result;
+        }
+        long[] others = ((BitmapContainer) other).words;
+        long[] result = new long[WORDS];
+        int count = 0;
+        for (int i = 0; i < WORDS; i++) {
+            result[i] = words[i] | others[i];
+            count += Long.bitCount(result[i]);
+        }
+        return new BitmapContainer(result, count);
+    }
+
+    @Override
+    Container andNot(Container other) {
+        long[] result = words.clone();
+        if (other instanceof ArrayContainer) {
+            PrimitiveIterator.OfInt it = other.iterator();
+            while (it.hasNext()) {
+                int value = it.nextInt();
+                result[value >>> 6] &= ~(1L << value);
+            }
+        } else {
+            long[] others = ((BitmapContainer) other).words;
+            for (int i = 0; i < WORDS; i++) {
+                result[i] &= ~others[i];
+            }
+        }
+        int count = 0;
+        for (long word : result) {
+            count += Long.bitCount(word);
+        }
+        return normalize(result, count);
+    }
+
+    @Override
+    Container copy() {
+        return new BitmapContainer(words.clone(), cardinality);
+    }
+
+    @Override
+    void orInto(long[] target) {
+        for (int i = 0; i < WORDS; i++) {
+            target[i] |= words[i];
+        }
+    }
+
+    /**
+     * 用orInto的结果创建容器, 元素少时转成数组容器, words归新容器所有
+     */
+    static Container fromWords(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return normalize(words, count);
+    }
+
+    private static Container normalize(long[] words, int cardinality) {
+        BitmapContainer bitmap = new BitmapContainer(words, cardinality);
+        return cardinality <= ARRAY_MAX_SIZE ? bitmap.toArray() : bitmap;
+    }
+
+    ArrayContainer toArray() {
+        char[] content = new char[Math.max(cardinality, 1)];
+        int n = 0;
+        for (int i = 0; i < WORDS; i++) {
+            long word = words[i];
+            while (word != 0) {
+                content[n++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return new ArrayContainer(content, n);
+    }
+
+    @Override
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+
+            private int index;
+
+            private long word = words[0];
+
+            @Override
+            public boolean hasNext() {
+                while (word == 0) {
+                    if (++index >= WORDS) {
+                        return false;
+                    }
+                    word = words[index];
+                }
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int value = (index << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                return value;
+            }
+        };
+    }
+}
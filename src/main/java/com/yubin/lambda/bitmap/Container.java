@@ -0,0 +1,43 @@
+package com.yubin.lambda.bitmap;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * RoaringBitmap中的容器, 保存高16位相同的一组整数的低16位
+ * 元素少的时候用有序数组(ArrayContainer), 元素多的时候用位图(BitmapContainer)
+ * 修改操作可能会转换容器的类型, 所以调用方必须使用返回值
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+abstract class Container {
+
+    // 超过这个数量之后位图(8KB)比有序数组更省内存
+    static final int ARRAY_MAX_SIZE = 4096;
+
+    abstract Container add(char value);
+
+    abstract Container remove(char value);
+
+    abstract boolean contains(char value);
+
+    abstract int cardinality();
+
+    abstract Container and(Container other);
+
+    abstract Container or(Container other);
+
+    abstract Container andNot(Container other);
+
+    abstract Container copy();
+
+    /**
+     * 把当前容器的元素按位或到65536位的words中, 用于多个位图一次性求并集
+     */
+    abstract void orInto(long[] words);
+
+    /**
+     * 按升序返回低16位的值
+     */
+    abstract PrimitiveIterator.OfInt iterator();
+}
@@ -0,0 +1,311 @@
+package com.yubin.lambda.bitmap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Roaring风格的压缩位图, 用来保存非负整数(行号)的集合
+ * 按高16位分桶, 每个桶是一个Container: 元素少时是有序数组, 元素多时是8KB的位图,
+ * 集合运算按桶对齐之后逐个容器计算, 位图之间按long做与/或/差运算
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class RoaringBitmap {
+
+    // 每个容器的高16位, 升序
+    private char[] keys;
+
+    private Container[] containers;
+
+    private int size;
+
+    public RoaringBitmap() {
+        this(4);
+    }
+
+    private RoaringBitmap(int capacity) {
+        keys = new char[capacity];
+        containers = new Container[capacity];
+    }
+
+    public static RoaringBitmap of(int... values) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    /**
+     * [from, to) 区间内的所有整数
+     */
+    public static RoaringBitmap range(int from, int to) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value = from; value < to; value++) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    public void add(int value) {
+        checkValue(value);
+        char high = (char) (value >>> 16);
+        int pos = indexOf(high);
+        if (pos >= 0) {
+            containers[pos] = containers[pos].add((char) value);
+        } else {
+            insert(-pos - 1, high, new ArrayContainer().add((char) value));
+        }
+    }
+
+    public void remove(int value) {
+        if (value < 0) {
+            return;
+        }
+        int pos = indexOf((char) (value >>> 16));
+        if (pos >= 0) {
+            Container container = containers[pos].remove((char) value);
+            if (container.cardinality() == 0) {
+                System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+                System.arraycopy(containers, pos + 1, containers, pos, size - pos - 1);
+                containers[--size] = null;
+            } else {
+                containers[pos] = container;
+            }
+        }
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int pos = indexOf((char) (value >>> 16));
+        return pos >= 0 && containers[pos].contains((char) value);
+    }
+
+    public long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 交集, 不修改当前位图
+     */
+    public RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap(Math.max(1, Math.min(size, other.size)));
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.append(keys[i], containers[i].and(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 并集, 不修改当前位图
+     */
+    public RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap(Math.max(1, size + other.size));
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        for (; i < size; i++) {
+            result.append(keys[i], containers[i].copy());
+        }
+        for (; j < other.size; j++) {
+            result.append(other.keys[j], other.containers[j].copy());
+        }
+        return result;
+    }
+
+    /**
+     * 多个位图的并集, 不修改参数
+     * 按高16位对齐后每个桶只合并一次: 只有一个位图有这个桶时直接复制容器, 否则把所有容器或到同一个位图中,
+     * 代价与参数的总大小成正比, 不像逐个调用or那样每一步都复制累加结果
+     */
+    public static RoaringBitmap or(List<RoaringBitmap> bitmaps) {
+        RoaringBitmap result = new RoaringBitmap();
+        int[] cursors = new int[bitmaps.size()];
+        while (true) {
+            // 所有游标中最小的key, 以及有几个位图包含它
+            int min = Integer.MAX_VALUE;
+            int matches = 0;
+            int last = -1;
+            for (int i = 0; i < cursors.length; i++) {
+                RoaringBitmap bitmap = bitmaps.get(i);
+                if (cursors[i] < bitmap.size) {
+                    int key = bitmap.keys[cursors[i]];
+                    if (key < min) {
+                        min = key;
+                        matches = 1;
+                        last = i;
+                    } else if (key == min) {
+                        matches++;
+                    }
+                }
+            }
+            if (matches == 0) {
+                return result;
+            }
+            if (matches == 1) {
+                RoaringBitmap bitmap = bitmaps.get(last);
+                result.append((char) min, bitmap.containers[cursors[last]++].copy());
+                continue;
+            }
+            long[] words = new long[BitmapContainer.WORDS];
+            for (int i = 0; i < cursors.length; i++) {
+                RoaringBitmap bitmap = bitmaps.get(i);
+                if (cursors[i] < bitmap.size && bitmap.keys[cursors[i]] == min) {
+                    bitmap.containers[cursors[i]++].orInto(words);
+                }
+            }
+            result.append((char) min, BitmapContainer.fromWords(words));
+        }
+    }
+
+    /**
+     * 差集: 在当前位图中但不在other中, 不修改当前位图
+     */
+    public RoaringBitmap andNot(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap(Math.max(1, size));
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == keys[i]) {
+                result.append(keys[i], containers[i].andNot(other.containers[j]));
+            } else {
+                result.append(keys[i], containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    public RoaringBitmap copy() {
+        RoaringBitmap result = new RoaringBitmap(Math.max(1, size));
+        for (int i = 0; i < size; i++) {
+            result.append(keys[i], containers[i].copy());
+        }
+        return result;
+    }
+
+    public void forEach(IntConsumer action) {
+        PrimitiveIterator.OfInt it = iterator();
+        while (it.hasNext()) {
+            action.accept(it.nextInt());
+        }
+    }
+
+    /**
+     * 升序迭代, 逐个容器解码, 不会一次性展开所有元素
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+
+            private int index = -1;
+
+            private int high;
+
+            private PrimitiveIterator.OfInt current;
+
+            @Override
+            public boolean hasNext() {
+                while (current == null || !current.hasNext()) {
+                    if (++index >= size) {
+                        return false;
+                    }
+                    high = keys[index] << 16;
+                    current = containers[index].iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return high | current.nextInt();
+            }
+        };
+    }
+
+    public IntStream stream() {
+        Spliterator.OfInt spliterator = Spliterators.spliterator(iterator(), cardinality(),
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        return StreamSupport.intStream(spliterator, false);
+    }
+
+    public int[] toArray() {
+        return stream().toArray();
+    }
+
+    private void append(char key, Container container) {
+        if (container.cardinality() > 0) {
+            insert(size, key, container);
+        }
+    }
+
+    private void insert(int pos, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2 + 1);
+            containers = Arrays.copyOf(containers, size * 2 + 1);
+        }
+        System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+        System.arraycopy(containers, pos, containers, pos + 1, size - pos);
+        keys[pos] = key;
+        containers[pos] = container;
+        size++;
+    }
+
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RoaringBitmap{cardinality=" + cardinality() + ", containers=" + size + '}';
+    }
+}
@@ -0,0 +1,240 @@
+package com.yubin.lambda.bitmap;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.entity.StudentField;
+import com.yubin.lambda.entity.StudentListener;
+import com.yubin.lambda.filter.RangeFilter;
+import com.yubin.lambda.filter.StudentFilter;
+import com.yubin.lambda.filter.impl.StudentAndFilter;
+import com.yubin.lambda.filter.impl.StudentNameFilter;
+import com.yubin.lambda.filter.impl.StudentNotFilter;
+import com.yubin.lambda.filter.impl.StudentOrFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * 学生集合上的位图索引
+ * 每个不同的年龄一个位图, 分数按scoreBucketWidth分桶每个桶一个位图, 每个不同的名字一个位图
+ * 年龄和分数另外各保存一份int[], 只用于范围边界上的桶按实际值过滤
+ * and/or/not组合的条件转换成位图的and/or/andNot, 不需要对每个学生调用match(),
+ * count()只计算位图的基数, 不会创建任何对象; stream()按行号升序懒加载学生
+ * 无法用位图表示的条件会退化成逐个学生调用match()
+ * 通过Student.addListener同步setAge/setScore/setName的修改, 非线程安全
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class StudentBitmapIndex implements StudentListener {
+
+    private static final int DEFAULT_SCORE_BUCKET_WIDTH = 10;
+
+    private final List<Student> rows = new ArrayList<>();
+
+    private final Map<Student, Integer> rowIds = new IdentityHashMap<>();
+
+    private final Map<StudentField, FieldBitmaps> fields = new EnumMap<>(StudentField.class);
+
+    private final Map<String, RoaringBitmap> names = new HashMap<>();
+
+    private final RoaringBitmap all = new RoaringBitmap();
+
+    public StudentBitmapIndex() {
+        this(DEFAULT_SCORE_BUCKET_WIDTH);
+    }
+
+    public StudentBitmapIndex(int scoreBucketWidth) {
+        if (scoreBucketWidth <= 0) {
+            throw new IllegalArgumentException("scoreBucketWidth must be positive: " + scoreBucketWidth);
+        }
+        fields.put(StudentField.AGE, new FieldBitmaps(StudentField.AGE, 1));
+        fields.put(StudentField.SCORE, new FieldBitmaps(StudentField.SCORE, scoreBucketWidth));
+    }
+
+    public StudentBitmapIndex(Collection<Student> students) {
+        this();
+        for (Student student : students) {
+            add(student);
+        }
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public boolean add(Student student) {
+        if (rowIds.containsKey(student)) {
+            return false;
+        }
+        int row = rows.size();
+        rows.add(student);
+        rowIds.put(student, row);
+        all.add(row);
+        for (FieldBitmaps bitmaps : fields.values()) {
+            bitmaps.add(bitmaps.field.get(student), row);
+        }
+        names.computeIfAbsent(student.getName(), name -> new RoaringBitmap()).add(row);
+        student.addListener(this);
+        return true;
+    }
+
+    @Override
+    public void onChange(Student student, StudentField field, int oldValue, int newValue) {
+        Integer row = rowIds.get(student);
+        if (row != null) {
+            FieldBitmaps bitmaps = fields.get(field);
+            bitmaps.remove(oldValue, row);
+            bitmaps.add(newValue, row);
+        }
+    }
+
+    @Override
+    public void onNameChange(Student student, String oldName, String newName) {
+        Integer row = rowIds.get(student);
+        if (row != null) {
+            RoaringBitmap bitmap = names.get(oldName);
+            bitmap.remove(row);
+            if (bitmap.isEmpty()) {
+                names.remove(oldName);
+            }
+            names.computeIfAbsent(newName, name -> new RoaringBitmap()).add(row);
+        }
+    }
+
+    /**
+     * 满足条件的学生个数, 不创建学生对象
+     */
+    public long count(StudentFilter filter) {
+        return evaluate(filter).cardinality();
+    }
+
+    /**
+     * 满足条件的学生, 按行号升序懒加载
+     */
+    public Stream<Student> stream(StudentFilter filter) {
+        return evaluate(filter).stream().mapToObj(rows::get);
+    }
+
+    /**
+     * 把条件转换成满足条件的行号位图
+     */
+    public RoaringBitmap evaluate(StudentFilter filter) {
+        if (filter instanceof RangeFilter) {
+            RangeFilter range = (RangeFilter) filter;
+            return fields.get(range.getField()).range(range.getMin(), range.getMax());
+        }
+        if (filter instanceof StudentNameFilter) {
+            RoaringBitmap bitmap = names.get(((StudentNameFilter) filter).getName());
+            return bitmap == null ? new RoaringBitmap() : bitmap.copy();
+        }
+        if (filter instanceof StudentAndFilter) {
+            // 取反的子条件用andNot, 不需要先求补集
+            RoaringBitmap result = null;
+            List<StudentFilter> negated = new ArrayList<>();
+            for (StudentFilter child : ((StudentAndFilter) filter).getFilters()) {
+                if (child instanceof StudentNotFilter) {
+                    negated.add(((StudentNotFilter) child).getFilter());
+                } else {
+                    result = result == null ? evaluate(child) : result.and(evaluate(child));
+                }
+            }
+            if (result == null) {
+                result = all.copy();
+            }
+            for (StudentFilter child : negated) {
+                result = result.andNot(evaluate(child));
+            }
+            return result;
+        }
+        if (filter instanceof StudentOrFilter) {
+            List<RoaringBitmap> parts = new ArrayList<>();
+            for (StudentFilter child : ((StudentOrFilter) filter).getFilters()) {
+                parts.add(evaluate(child));
+            }
+            return RoaringBitmap.or(parts);
+        }
+        if (filter instanceof StudentNotFilter) {
+            return all.andNot(evaluate(((StudentNotFilter) filter).getFilter()));
+        }
+        RoaringBitmap result = new RoaringBitmap();
+        for (int row = 0; row < rows.size(); row++) {
+            if (filter.match(rows.get(row))) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    // 某个字段的分桶位图, 桶号 = floor(value / width)
+    private static class FieldBitmaps {
+
+        private final StudentField field;
+
+        private final int width;
+
+        private final NavigableMap<Integer, RoaringBitmap> buckets = new TreeMap<>();
+
+        // 每一行的值, 边界桶过滤时直接读数组, 不访问学生对象
+        private int[] values = new int[16];
+
+        FieldBitmaps(StudentField field, int width) {
+            this.field = field;
+            this.width = width;
+        }
+
+        void add(int value, int row) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, Math.max(row + 1, values.length * 2));
+            }
+            values[row] = value;
+            buckets.computeIfAbsent(Math.floorDiv(value, width), bucket -> new RoaringBitmap()).add(row);
+        }
+
+        void remove(int value, int row) {
+            int bucket = Math.floorDiv(value, width);
+            RoaringBitmap bitmap = buckets.get(bucket);
+            if (bitmap != null) {
+                bitmap.remove(row);
+                if (bitmap.isEmpty()) {
+                    buckets.remove(bucket);
+                }
+            }
+        }
+
+        // min <= value <= max: 完全落在范围内的桶直接参与合并, 边界上的桶先按实际值过滤
+        RoaringBitmap range(int min, int max) {
+            if (min > max) {
+                return new RoaringBitmap();
+            }
+            // 所有桶收集起来之后一次合并
+            List<RoaringBitmap> parts = new ArrayList<>();
+            for (Map.Entry<Integer, RoaringBitmap> entry
+                    : buckets.subMap(Math.floorDiv(min, width), true, Math.floorDiv(max, width), true).entrySet()) {
+                long low = (long) entry.getKey() * width;
+                long high = low + width - 1;
+                if (low >= min && high <= max) {
+                    parts.add(entry.getValue());
+                } else {
+                    RoaringBitmap partial = new RoaringBitmap();
+                    entry.getValue().forEach(row -> {
+                        int value = values[row];
+                        if (value >= min && value <= max) {
+                            partial.add(row);
+                        }
+                    });
+                    parts.add(partial);
+                }
+            }
+            return RoaringBitmap.or(parts);
+        }
+    }
+}
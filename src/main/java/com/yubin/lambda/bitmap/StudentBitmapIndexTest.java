@@ -0,0 +1,104 @@
+package com.yubin.lambda.bitmap;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.entity.StudentField;
+import com.yubin.lambda.filter.StudentFilter;
+import com.yubin.lambda.filter.impl.StudentAgeFilter;
+import com.yubin.lambda.filter.impl.StudentNameFilter;
+import com.yubin.lambda.filter.impl.StudentRangeFilter;
+import com.yubin.lambda.filter.impl.StudentScoreFilter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 位图索引测试类
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class StudentBitmapIndexTest {
+
+    @Test
+    public void testCount() {
+        List<Student> list = new ArrayList<>();
+        list.add(new Student("张三", 13, 63));
+        list.add(new Student("李四", 18, 78));
+        list.add(new Student("王五", 14, 70));
+        list.add(new Student("小红帽", 16, 89));
+        list.add(new Student("小绿", 19, 69));
+        StudentBitmapIndex index = new StudentBitmapIndex(list);
+
+        // 年龄大于16并且分数大于75的人数
+        System.out.println(index.count(new StudentAgeFilter().and(new StudentScoreFilter())));
+        // 年龄大于16或者名字是小红帽
+        index.stream(new StudentAgeFilter().or(new StudentNameFilter("小红帽"))).forEach(System.out::println);
+        System.out.println("=======================");
+        // 分数大于75但是年龄不大于16
+        index.stream(new StudentScoreFilter().and(new StudentAgeFilter().negate())).forEach(System.out::println);
+    }
+
+    @Test
+    public void testCompareWithScan() {
+        String[] names = {"张三", "李四", "王五", "小红帽", "小绿"};
+        Random random = new Random(42);
+        List<Student> list = new ArrayList<>();
+        for (int i = 0; i < 300000; i++) {
+            list.add(new Student(names[random.nextInt(names.length)], 10 + random.nextInt(10), random.nextInt(101)));
+        }
+        StudentBitmapIndex index = new StudentBitmapIndex(list);
+        // 修改之后位图同步更新
+        list.get(0).setScore(100);
+        list.get(1).setAge(30);
+        list.get(2).setName("赵六");
+
+        List<StudentFilter> filters = Arrays.asList(
+                new StudentAgeFilter(),
+                new StudentRangeFilter(StudentField.SCORE, 33, 67),
+                new StudentAgeFilter().and(new StudentScoreFilter()),
+                new StudentAgeFilter().or(new StudentNameFilter("王五")),
+                new StudentScoreFilter().and(new StudentAgeFilter().negate()),
+                new StudentNameFilter("赵六").or(StudentRangeFilter.equalTo(StudentField.AGE, 30)),
+                new StudentRangeFilter(StudentField.SCORE, 10, 90).and(student -> student.getName().length() > 2));
+        for (StudentFilter filter : filters) {
+            long expected = list.stream().filter(filter::match).count();
+            Assert.assertEquals(filter.toString(), expected, index.count(filter));
+            Assert.assertEquals(expected, index.stream(filter).count());
+        }
+    }
+
+    @Test
+    public void testRoaringBitmap() {
+        RoaringBitmap even = new RoaringBitmap();
+        RoaringBitmap small = RoaringBitmap.range(0, 100000);
+        for (int i = 0; i < 200000; i += 2) {
+            even.add(i);
+        }
+        Assert.assertEquals(50000, even.and(small).cardinality());
+        Assert.assertEquals(150000, even.or(small).cardinality());
+        Assert.assertEquals(50000, small.andNot(even).cardinality());
+        Assert.assertEquals(50000, even.andNot(small).cardinality());
+        for (int i = 0; i < 100000; i += 2) {
+            even.remove(i);
+        }
+        Assert.assertEquals(0, even.and(small).cardinality());
+        Assert.assertEquals(100000, even.stream().findFirst().getAsInt());
+        // 多个位图一次求并集: 只有一个位图有的桶、多个位图共有的桶、数组容器合并成位图容器
+        List<RoaringBitmap> parts = new ArrayList<>();
+        RoaringBitmap expected = new RoaringBitmap();
+        for (int k = 0; k < 20; k++) {
+            RoaringBitmap part = RoaringBitmap.range(k * 3000, k * 3000 + 1000);
+            part.add(1_000_000 + k);
+            parts.add(part);
+            expected = expected.or(part);
+        }
+        RoaringBitmap merged = RoaringBitmap.or(parts);
+        Assert.assertEquals(20 * 1000 + 20, merged.cardinality());
+        Assert.assertArrayEquals(expected.toArray(), merged.toArray());
+        Assert.assertTrue(RoaringBitmap.or(new ArrayList<>()).isEmpty());
+    }
+}
@@ -0,0 +1,119 @@
+package com.yubin.lambda.continuous;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.entity.StudentField;
+import com.yubin.lambda.entity.StudentListener;
+import com.yubin.lambda.filter.StudentFilter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 持续查询引擎
+ * 把StudentFilter注册成常驻查询, 学生的增加、删除以及setAge/setScore/setName修改之后,
+ * 只对发生变化的学生重新判断一次, 把增量(新增/移除)推送给订阅者,
+ * 每次变化的代价与订阅数成正比, 与学生总数无关
+ * 所有的修改和通知都在引擎的锁内串行执行, 订阅者的回调里不要做耗时操作
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class ContinuousQueryEngine implements StudentListener {
+
+    private final Set<Student> students = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * 注册一个持续查询, 订阅者会先收到一次当前的全部结果
+     */
+    public synchronized Subscription subscribe(StudentFilter filter, StudentDeltaListener listener) {
+        Subscription subscription = new Subscription(this, filter, listener);
+        List<Student> added = new ArrayList<>();
+        for (Student student : students) {
+            if (subscription.refresh(student, true) > 0) {
+                added.add(student);
+            }
+        }
+        subscriptions.add(subscription);
+        subscription.publish(added, Collections.emptyList());
+        return subscription;
+    }
+
+    synchronized void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    public synchronized int size() {
+        return students.size();
+    }
+
+    public boolean add(Student student) {
+        return addAll(Collections.singletonList(student));
+    }
+
+    /**
+     * 批量增加, 每个订阅者只收到一次通知
+     */
+    public synchronized boolean addAll(Collection<Student> added) {
+        List<Student> changed = new ArrayList<>();
+        for (Student student : added) {
+            if (students.add(student)) {
+                student.addListener(this);
+                changed.add(student);
+            }
+        }
+        refresh(changed, true);
+        return !changed.isEmpty();
+    }
+
+    public boolean remove(Student student) {
+        return removeAll(Collections.singletonList(student));
+    }
+
+    public synchronized boolean removeAll(Collection<Student> removed) {
+        List<Student> changed = new ArrayList<>();
+        for (Student student : removed) {
+            if (students.remove(student)) {
+                student.removeListener(this);
+                changed.add(student);
+            }
+        }
+        refresh(changed, false);
+        return !changed.isEmpty();
+    }
+
+    @Override
+    public synchronized void onChange(Student student, StudentField field, int oldValue, int newValue) {
+        refresh(Collections.singletonList(student), students.contains(student));
+    }
+
+    @Override
+    public synchronized void onNameChange(Student student, String oldName, String newName) {
+        refresh(Collections.singletonList(student), students.contains(student));
+    }
+
+    private void refresh(List<Student> changed, boolean present) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            List<Student> added = new ArrayList<>();
+            List<Student> removed = new ArrayList<>();
+            for (Student student : changed) {
+                int delta = subscription.refresh(student, present);
+                if (delta > 0) {
+                    added.add(student);
+                } else if (delta < 0) {
+                    removed.add(student);
+                }
+            }
+            subscription.publish(added, removed);
+        }
+    }
+}
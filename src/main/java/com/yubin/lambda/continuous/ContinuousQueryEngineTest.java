@@ -0,0 +1,95 @@
+package com.yubin.lambda.continuous;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.impl.StudentAgeFilter;
+import com.yubin.lambda.filter.impl.StudentScoreFilter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 持续查询测试类
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class ContinuousQueryEngineTest {
+
+    @Test
+    public void testSubscribe() {
+        List<Student> list = new ArrayList<>();
+        list.add(new Student("张三", 13, 63));
+        list.add(new Student("李四", 18, 78));
+        list.add(new Student("王五", 14, 70));
+        list.add(new Student("小红帽", 16, 89));
+        list.add(new Student("小绿", 19, 69));
+        ContinuousQueryEngine engine = new ContinuousQueryEngine();
+        engine.addAll(list);
+
+        // 分数大于75的学生排行榜, 订阅时先收到一次当前的全部结果
+        List<String> deltas = new ArrayList<>();
+        Subscription subscription = engine.subscribe(new StudentScoreFilter(), recorder(deltas));
+        Assert.assertEquals(2, subscription.size());
+        assertDeltas(deltas, "+[小红帽, 李四] -[]");
+
+        // 张三的分数提高到80
+        list.get(0).setScore(80);
+        Assert.assertEquals(3, subscription.size());
+        assertDeltas(deltas, "+[张三] -[]");
+        // 李四的分数降到60
+        list.get(1).setScore(60);
+        Assert.assertEquals(2, subscription.size());
+        assertDeltas(deltas, "+[] -[李四]");
+        // 不影响结果的修改不通知
+        list.get(2).setScore(72);
+        assertDeltas(deltas);
+        // 新来一个学生
+        engine.add(new Student("赵六", 17, 95));
+        Assert.assertEquals(3, subscription.size());
+        assertDeltas(deltas, "+[赵六] -[]");
+        // 小红帽转学了
+        engine.remove(list.get(3));
+        Assert.assertEquals(2, subscription.size());
+        assertDeltas(deltas, "+[] -[小红帽]");
+        // 转学之后的修改不会再通知
+        list.get(3).setScore(10);
+        assertDeltas(deltas);
+
+        List<String> adultDeltas = new ArrayList<>();
+        Subscription adults = engine.subscribe(new StudentAgeFilter().and(new StudentScoreFilter()), recorder(adultDeltas));
+        assertDeltas(adultDeltas, "+[赵六] -[]");
+        list.get(0).setAge(17);
+        Assert.assertEquals(2, adults.size());
+        assertDeltas(adultDeltas, "+[张三] -[]");
+        // 张三的分数没有变, 排行榜不通知
+        assertDeltas(deltas);
+        adults.cancel();
+        list.get(0).setAge(10);
+        Assert.assertEquals(2, adults.size());
+        assertDeltas(adultDeltas);
+        assertDeltas(deltas);
+        System.out.println(subscription.getResult());
+    }
+
+    // 把每次通知记录成"+[新增的名字] -[移除的名字]", 名字排序后与通知的先后无关
+    private static StudentDeltaListener recorder(List<String> deltas) {
+        return (added, removed) -> {
+            System.out.println("新增: " + added + ", 移除: " + removed);
+            deltas.add("+" + names(added) + " -" + names(removed));
+        };
+    }
+
+    private static List<String> names(List<Student> students) {
+        return students.stream().map(Student::getName).sorted().collect(Collectors.toList());
+    }
+
+    // 断言上次检查之后收到的通知, 然后清空
+    private static void assertDeltas(List<String> deltas, String... expected) {
+        Assert.assertEquals(Arrays.asList(expected), deltas);
+        deltas.clear();
+    }
+}
@@ -0,0 +1,21 @@
+package com.yubin.lambda.continuous;
+
+import com.yubin.lambda.entity.Student;
+
+import java.util.List;
+
+/**
+ * 持续查询结果的增量变化
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+@FunctionalInterface
+public interface StudentDeltaListener {
+
+    /**
+     * @param added   新满足条件的学生
+     * @param removed 不再满足条件的学生
+     */
+    public void onDelta(List<Student> added, List<Student> removed);
+}
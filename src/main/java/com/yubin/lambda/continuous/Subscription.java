@@ -0,0 +1,77 @@
+package com.yubin.lambda.continuous;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.StudentFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 一个持续查询: 过滤条件、当前的结果集和订阅者
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class Subscription {
+
+    private final ContinuousQueryEngine engine;
+
+    private final StudentFilter filter;
+
+    private final StudentDeltaListener listener;
+
+    // 当前满足条件的学生, 按对象身份区分
+    private final Set<Student> result = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    Subscription(ContinuousQueryEngine engine, StudentFilter filter, StudentDeltaListener listener) {
+        this.engine = engine;
+        this.filter = filter;
+        this.listener = listener;
+    }
+
+    public StudentFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * 当前结果集的快照
+     */
+    public List<Student> getResult() {
+        synchronized (engine) {
+            return new ArrayList<>(result);
+        }
+    }
+
+    public int size() {
+        synchronized (engine) {
+            return result.size();
+        }
+    }
+
+    /**
+     * 取消订阅, 之后不会再收到增量通知
+     */
+    public void cancel() {
+        engine.unsubscribe(this);
+    }
+
+    /**
+     * 重新判断一个学生, 返回1表示新加入结果集, -1表示从结果集中移除, 0表示没有变化
+     */
+    int refresh(Student student, boolean present) {
+        boolean matched = present && filter.match(student);
+        if (matched) {
+            return result.add(student) ? 1 : 0;
+        }
+        return result.remove(student) ? -1 : 0;
+    }
+
+    void publish(List<Student> added, List<Student> removed) {
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            listener.onDelta(Collections.unmodifiableList(added), Collections.unmodifiableList(removed));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.yubin.lambda.cursor;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.stream.io.MappedRecordFile;
+
+/**
+ * 内存映射文件上的游标
+ * getAge/getScore直接读取映射内存, 不创建对象; getName需要解码UTF-8, 每次调用都会创建String
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class MappedStudentCursor extends StudentCursor {
+
+    private static final int AGE = 0;
+
+    private static final int SCORE = 1;
+
+    private final MappedRecordFile<Student> file;
+
+    public MappedStudentCursor(MappedRecordFile<Student> file) {
+        this.file = file;
+    }
+
+    @Override
+    public long size() {
+        return file.size();
+    }
+
+    @Override
+    public String getName() {
+        return file.getName(position());
+    }
+
+    @Override
+    public int getAge() {
+        return file.getInt(position(), AGE);
+    }
+
+    @Override
+    public int getScore() {
+        return file.getInt(position(), SCORE);
+    }
+}
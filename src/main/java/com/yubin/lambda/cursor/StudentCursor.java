@@ -0,0 +1,158 @@
+package com.yubin.lambda.cursor;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.StudentFilter;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * 学生游标(享元)
+ * 游标本身就是一个Student, 所以可以直接交给StudentFilter、Predicate<Student>、ToIntFunction<Student>使用,
+ * 但它不保存数据, get方法读取的是底层存储中当前行的值, 移动游标只修改行号,
+ * 扫描-过滤-聚合的整个过程中每一行都不会创建新的对象
+ * 游标是可变的, 不要把它保存到集合中; 需要保留某一行时调用toStudent()复制一份
+ * 游标不是线程安全的, 每个线程使用自己的游标
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public abstract class StudentCursor extends Student {
+
+    private long row = -1;
+
+    /**
+     * 底层存储的行数
+     */
+    public abstract long size();
+
+    /**
+     * 移动到指定行
+     */
+    public StudentCursor position(long row) {
+        if (row < 0 || row >= size()) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size());
+        }
+        this.row = row;
+        return this;
+    }
+
+    public long position() {
+        return row;
+    }
+
+    /**
+     * 移动到下一行, 没有下一行时返回false
+     */
+    public boolean next() {
+        if (row + 1 >= size()) {
+            return false;
+        }
+        row++;
+        return true;
+    }
+
+    /**
+     * 回到第一行之前
+     */
+    public void reset() {
+        row = -1;
+    }
+
+    @Override
+    public abstract String getName();
+
+    @Override
+    public abstract int getAge();
+
+    @Override
+    public abstract int getScore();
+
+    /**
+     * 名字的长度(码点个数), 底层存储预先计算了长度时不需要解码名字
+     */
+    public int getNameLength() {
+        String name = getName();
+        return name == null ? 0 : name.codePointCount(0, name.length());
+    }
+
+    @Override
+    public void setName(String name) {
+        throw new UnsupportedOperationException("StudentCursor is read-only");
+    }
+
+    @Override
+    public void setAge(int age) {
+        throw new UnsupportedOperationException("StudentCursor is read-only");
+    }
+
+    @Override
+    public void setScore(int score) {
+        throw new UnsupportedOperationException("StudentCursor is read-only");
+    }
+
+    /**
+     * 把当前行复制成一个独立的Student对象
+     */
+    public Student toStudent() {
+        return new Student(getName(), getAge(), getScore());
+    }
+
+    public long count(StudentFilter filter) {
+        long count = 0;
+        for (long i = 0, size = size(); i < size; i++) {
+            position(i);
+            if (filter.match(this)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 满足条件的行的某个int值的和
+     */
+    public long sum(Predicate<? super Student> predicate, ToIntFunction<? super Student> mapper) {
+        long sum = 0;
+        for (long i = 0, size = size(); i < size; i++) {
+            position(i);
+            if (predicate.test(this)) {
+                sum += mapper.applyAsInt(this);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 满足条件的行的某个int值的最大值, 没有满足条件的行时返回Integer.MIN_VALUE
+     */
+    public int max(Predicate<? super Student> predicate, ToIntFunction<? super Student> mapper) {
+        int max = Integer.MIN_VALUE;
+        for (long i = 0, size = size(); i < size; i++) {
+            position(i);
+            if (predicate.test(this)) {
+                max = Math.max(max, mapper.applyAsInt(this));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 依次把游标移动到每一行, 回调中拿到的始终是同一个游标对象
+     */
+    public void forEach(Consumer<? super Student> action) {
+        for (long i = 0, size = size(); i < size; i++) {
+            position(i);
+            action.accept(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StudentCursor{" +
+                "row=" + row +
+                (row >= 0 ? ", name='" + getName() + '\'' + ", age=" + getAge() + ", score=" + getScore() : "") +
+                '}';
+    }
+}
@@ -0,0 +1,99 @@
+package com.yubin.lambda.cursor;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.StudentFilter;
+import com.yubin.lambda.filter.impl.StudentAgeFilter;
+import com.yubin.lambda.filter.impl.StudentScoreFilter;
+import com.yubin.lambda.table.StudentTable;
+import com.yubin.stream.io.MappedRecordFile;
+import com.yubin.stream.io.RecordFileWriter;
+import com.yubin.stream.io.RecordFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 学生游标测试类, 验证热路径上每一行分配0字节
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class StudentCursorTest {
+
+    private static final int ROWS = 1000000;
+
+    @Test
+    public void testTableCursor() {
+        List<Student> list = students();
+        TableStudentCursor cursor = new TableStudentCursor(StudentTable.of(list));
+        StudentFilter filter = new StudentAgeFilter().and(new StudentScoreFilter());
+
+        Assert.assertEquals(list.stream().filter(filter::match).count(), cursor.count(filter));
+        Assert.assertEquals(list.stream().filter(s -> s.getName().length() > 2).mapToLong(Student::getScore).sum(),
+                cursor.sum(s -> s.getName().length() > 2, Student::getScore));
+
+        double bytesPerRow = bytesPerRow(() -> {
+            cursor.count(filter);
+            cursor.sum(s -> s.getAge() > 16, Student::getScore);
+            cursor.max(s -> s.getName().length() > 2, Student::getAge);
+        });
+        System.out.println("StudentTable游标每行分配字节数: " + bytesPerRow);
+        Assert.assertEquals(0.0, bytesPerRow, 0.01);
+    }
+
+    @Test
+    public void testMappedCursor() throws Exception {
+        List<Student> list = students();
+        Path path = Files.createTempFile("student", ".bin");
+        try {
+            try (RecordFileWriter<Student> writer = new RecordFileWriter<>(path, RecordFormat.STUDENT)) {
+                writer.writeAll(list);
+            }
+            try (MappedRecordFile<Student> file = new MappedRecordFile<>(path, RecordFormat.STUDENT)) {
+                MappedStudentCursor cursor = new MappedStudentCursor(file);
+                Assert.assertEquals(list.stream().filter(s -> s.getAge() > 16).mapToLong(Student::getScore).sum(),
+                        cursor.sum(s -> s.getAge() > 16, Student::getScore));
+                cursor.position(3);
+                Assert.assertEquals(list.get(3).toString(), cursor.toStudent().toString());
+
+                double bytesPerRow = bytesPerRow(() -> {
+                    cursor.count(new StudentScoreFilter());
+                    cursor.sum(s -> s.getAge() > 16, Student::getScore);
+                });
+                System.out.println("映射文件游标每行分配字节数: " + bytesPerRow);
+                Assert.assertEquals(0.0, bytesPerRow, 0.01);
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static List<Student> students() {
+        String[] names = {"张三", "李四", "王五", "小红帽", "小绿"};
+        Random random = new Random(42);
+        List<Student> list = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            list.add(new Student(names[random.nextInt(names.length)], 10 + random.nextInt(10), random.nextInt(101)));
+        }
+        return list;
+    }
+
+    // 先预热让JIT编译完成, 再统计当前线程在扫描期间分配的字节数
+    private static double bytesPerRow(Runnable scan) {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < 5; i++) {
+            scan.run();
+        }
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        scan.run();
+        long after = threadBean.getThreadAllocatedBytes(threadId);
+        return (double) (after - before) / ROWS;
+    }
+}
@@ -0,0 +1,47 @@
+package com.yubin.lambda.cursor;
+
+import com.yubin.lambda.table.StudentTable;
+
+/**
+ * StudentTable上的游标, 名字来自字典, 所有get方法都不创建对象
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class TableStudentCursor extends StudentCursor {
+
+    private final StudentTable table;
+
+    public TableStudentCursor(StudentTable table) {
+        this.table = table;
+    }
+
+    @Override
+    public long size() {
+        return table.size();
+    }
+
+    @Override
+    public String getName() {
+        return table.getName(row());
+    }
+
+    @Override
+    public int getAge() {
+        return table.getAge(row());
+    }
+
+    @Override
+    public int getScore() {
+        return table.getScore(row());
+    }
+
+    @Override
+    public int getNameLength() {
+        return table.getNameLength(row());
+    }
+
+    private int row() {
+        return (int) position();
+    }
+}
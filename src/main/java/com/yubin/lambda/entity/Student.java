@@ -1,5 +1,8 @@
 package com.yubin.lambda.entity;
 
+import java.util.Arrays;
+import java.util.Objects;
+
 /**
  * 学生实体类
  *
@@ -8,12 +11,17 @@ package com.yubin.lambda.entity;
  */
 public class Student {
 
+    private static final StudentListener[] NO_LISTENERS = new StudentListener[0];
+
     private String name;
 
     private int age;
 
     private int score;
 
+    // 写时复制, 没有监听器的时候为空数组, 不影响普通的get/set
+    private volatile StudentListener[] listeners = NO_LISTENERS;
+
     public Student() {
     }
 
@@ -28,7 +36,13 @@ public class Student {
     }
 
     public void setName(String name) {
+        String oldName = this.name;
         this.name = name;
+        if (!Objects.equals(oldName, name)) {
+            for (StudentListener listener : listeners) {
+                listener.onNameChange(this, oldName, name);
+            }
+        }
     }
 
     public int getAge() {
@@ -36,7 +50,9 @@ public class Student {
     }
 
     public void setAge(int age) {
+        int oldAge = this.age;
         this.age = age;
+        fireChange(StudentField.AGE, oldAge, age);
     }
 
     public int getScore() {
@@ -44,7 +60,37 @@ public class Student {
     }
 
     public void setScore(int score) {
+        int oldScore = this.score;
         this.score = score;
+        fireChange(StudentField.SCORE, oldScore, score);
+    }
+
+    public synchronized void addListener(StudentListener listener) {
+        StudentListener[] current = listeners;
+        StudentListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+
+    public synchronized void removeListener(StudentListener listener) {
+        StudentListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                StudentListener[] updated = new StudentListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    private void fireChange(StudentField field, int oldValue, int newValue) {
+        if (oldValue != newValue) {
+            for (StudentListener listener : listeners) {
+                listener.onChange(this, field, oldValue, newValue);
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,29 @@
+package com.yubin.lambda.entity;
+
+/**
+ * Student中int类型的字段
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public enum StudentField {
+
+    AGE {
+        @Override
+        public int get(Student student) {
+            return student.getAge();
+        }
+    },
+
+    SCORE {
+        @Override
+        public int get(Student student) {
+            return student.getScore();
+        }
+    };
+
+    /**
+     * 读取学生对应字段的值
+     */
+    public abstract int get(Student student);
+}
@@ -0,0 +1,22 @@
+package com.yubin.lambda.entity;
+
+/**
+ * 学生属性变化的监听器, 通过Student.addListener注册
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+@FunctionalInterface
+public interface StudentListener {
+
+    /**
+     * age或者score发生了变化, 只有新旧值不同的时候才会回调
+     */
+    public void onChange(Student student, StudentField field, int oldValue, int newValue);
+
+    /**
+     * name发生了变化
+     */
+    default void onNameChange(Student student, String oldName, String newName) {
+    }
+}
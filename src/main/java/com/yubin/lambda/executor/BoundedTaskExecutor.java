@@ -0,0 +1,325 @@
+package com.yubin.lambda.executor;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界的任务执行器, 代替为每个Runnable/Callable直接new Thread
+ * 用一个信号量限制在途(排队 + 执行中)的任务数, 达到上限时按RejectionPolicy阻塞、丢弃或在提交线程中执行
+ * 两种模式:
+ * 1. platform: 固定数量的平台线程, 排队的任务只占用队列中的一个节点, 不占用线程栈
+ * 2. virtual: 每个任务一个虚拟线程, 运行时通过反射查找并试着调用一次Executors.newVirtualThreadPerTaskExecutor,
+ *    在Java 8上和没有开启预览特性的JDK 19/20上都退回到平台线程
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class BoundedTaskExecutor implements Executor, AutoCloseable {
+
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+
+    private final ExecutorService delegate;
+
+    private final RejectionPolicy policy;
+
+    private final int capacity;
+
+    private final boolean virtual;
+
+    private final Semaphore permits;
+
+    private final LongAdder submitted = new LongAdder();
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder callerRuns = new LongAdder();
+
+    private final LongAdder interrupted = new LongAdder();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final LongAdder totalQueueNanos = new LongAdder();
+
+    private final LongAccumulator maxQueueNanos = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder totalRunNanos = new LongAdder();
+
+    private final LongAccumulator maxRunNanos = new LongAccumulator(Math::max, 0);
+
+    private BoundedTaskExecutor(ExecutorService delegate, int capacity, RejectionPolicy policy, boolean virtual) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.virtual = virtual;
+        this.permits = new Semaphore(capacity);
+    }
+
+    /**
+     * 固定threads个平台线程, 最多还有queueCapacity个任务排队
+     */
+    public static BoundedTaskExecutor platform(int threads, int queueCapacity, RejectionPolicy policy) {
+        if (threads <= 0 || queueCapacity < 0) {
+            throw new IllegalArgumentException("threads: " + threads + ", queueCapacity: " + queueCapacity);
+        }
+        ExecutorService delegate = Executors.newFixedThreadPool(threads, new NamedThreadFactory());
+        return new BoundedTaskExecutor(delegate, threads + queueCapacity, policy, false);
+    }
+
+    /**
+     * 每个任务一个虚拟线程, 最多maxInFlight个任务同时在途
+     *
+     * @throws UnsupportedOperationException 当前JDK不支持虚拟线程
+     */
+    public static BoundedTaskExecutor virtual(int maxInFlight, RejectionPolicy policy) {
+        if (!isVirtualThreadSupported()) {
+            throw new UnsupportedOperationException("Virtual threads are not supported on Java " + System.getProperty("java.version"));
+        }
+        try {
+            ExecutorService delegate = (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+            return new BoundedTaskExecutor(delegate, maxInFlight, policy, true);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Failed to create virtual thread executor", e);
+        }
+    }
+
+    /**
+     * 支持虚拟线程时使用虚拟线程, 否则使用与CPU核数相同的平台线程, 其余的任务排队
+     */
+    public static BoundedTaskExecutor create(int maxInFlight, RejectionPolicy policy) {
+        if (isVirtualThreadSupported()) {
+            return virtual(maxInFlight, policy);
+        }
+        int threads = Math.min(maxInFlight, Runtime.getRuntime().availableProcessors());
+        return platform(threads, maxInFlight - threads, policy);
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            // JDK 19/20没有--enable-preview时方法存在, 但是调用时抛出UnsupportedOperationException, 所以真正创建一次
+            ((ExecutorService) factory.invoke(null)).shutdown();
+            return factory;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        submit(command);
+    }
+
+    public CompletableFuture<Void> submit(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        boolean acquired;
+        try {
+            acquired = acquire();
+        } catch (InterruptedException e) {
+            // 等待许可时被中断, 不是因为在途任务太多, 不算作丢弃
+            Thread.currentThread().interrupt();
+            interrupted.increment();
+            future.completeExceptionally(new RejectedExecutionException("Interrupted while waiting for a permit", e));
+            return future;
+        }
+        if (acquired) {
+            dispatch(task, future);
+        } else {
+            reject(task, future);
+        }
+        return future;
+    }
+
+    /**
+     * 批量提交, 能一次拿到整批的许可时只操作一次信号量, 否则逐个提交
+     */
+    public <T> List<CompletableFuture<T>> submitAll(Collection<? extends Callable<T>> tasks) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(tasks.size());
+        if (!tasks.isEmpty() && tasks.size() <= capacity && permits.tryAcquire(tasks.size())) {
+            for (Callable<T> task : tasks) {
+                CompletableFuture<T> future = new CompletableFuture<>();
+                dispatch(task, future);
+                futures.add(future);
+            }
+            return futures;
+        }
+        for (Callable<T> task : tasks) {
+            futures.add(submit(task));
+        }
+        return futures;
+    }
+
+    /**
+     * 等待所有任务结束, 按顺序返回结果, 任意一个任务失败时抛出CompletionException
+     */
+    public static <T> List<T> joinAll(List<CompletableFuture<T>> futures) {
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    private boolean acquire() throws InterruptedException {
+        if (policy == RejectionPolicy.BLOCK) {
+            permits.acquire();
+            return true;
+        }
+        return permits.tryAcquire();
+    }
+
+    private <T> void reject(Callable<T> task, CompletableFuture<T> future) {
+        if (policy == RejectionPolicy.CALLER_RUNS && !delegate.isShutdown()) {
+            submitted.increment();
+            callerRuns.increment();
+            queued.incrementAndGet();
+            run(task, future, System.nanoTime());
+            return;
+        }
+        dropped.increment();
+        future.completeExceptionally(new RejectedExecutionException(
+                delegate.isShutdown() ? "Executor is shut down" : "Too many tasks in flight: " + capacity));
+    }
+
+    private <T> void dispatch(Callable<T> task, CompletableFuture<T> future) {
+        submitted.increment();
+        queued.incrementAndGet();
+        long enqueued = System.nanoTime();
+        try {
+            delegate.execute(() -> {
+                try {
+                    run(task, future, enqueued);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 已经shutdown
+            queued.decrementAndGet();
+            submitted.decrement();
+            dropped.increment();
+            permits.release();
+            future.completeExceptionally(e);
+        }
+    }
+
+    private <T> void run(Callable<T> task, CompletableFuture<T> future, long enqueued) {
+        long start = System.nanoTime();
+        queued.decrementAndGet();
+        running.incrementAndGet();
+        record(totalQueueNanos, maxQueueNanos, start - enqueued);
+        T result = null;
+        Throwable failure = null;
+        try {
+            result = task.call();
+        } catch (Throwable e) {
+            failure = e;
+            failed.increment();
+        }
+        // 先更新统计值再结束Future, 调用方join之后看到的统计值包含这个任务
+        running.decrementAndGet();
+        record(totalRunNanos, maxRunNanos, System.nanoTime() - start);
+        completed.increment();
+        if (failure == null) {
+            future.complete(result);
+        } else {
+            future.completeExceptionally(failure);
+        }
+    }
+
+    private static void record(LongAdder total, LongAccumulator max, long nanos) {
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    public ExecutorStats getStats() {
+        return new ExecutorStats(submitted.sum(), completed.sum(), failed.sum(), dropped.sum(), callerRuns.sum(),
+                interrupted.sum(), queued.get(), running.get(), totalQueueNanos.sum(), maxQueueNanos.get(),
+                totalRunNanos.sum(), maxRunNanos.get());
+    }
+
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * 不再接受新任务, 等待已经提交的任务执行完
+     */
+    @Override
+    public void close() {
+        shutdown();
+        try {
+            delegate.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            delegate.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedTaskExecutor{" + (virtual ? "virtual" : "platform") + ", capacity=" + capacity
+                + ", policy=" + policy + ", " + getStats() + "}";
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL = new AtomicInteger();
+
+        private final int pool = POOL.incrementAndGet();
+
+        private final AtomicInteger thread = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "bounded-executor-" + pool + "-" + thread.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.yubin.lambda.executor;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 有界任务执行器测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class BoundedTaskExecutorTest {
+
+    @Test
+    public void testCreateThread() {
+        // 同LambdaDemo.testCreateThread, 不再为每个lambda创建一个线程
+        try (BoundedTaskExecutor executor = BoundedTaskExecutor.create(16, RejectionPolicy.BLOCK)) {
+            executor.execute(() -> System.out.println("running2......"));
+            executor.execute(() -> System.out.println("running3......"));
+            System.out.println(executor.submit(() -> "callable......").join());
+        }
+    }
+
+    @Test
+    public void testBlock() {
+        AtomicInteger sum = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try (BoundedTaskExecutor executor = BoundedTaskExecutor.platform(4, 100, RejectionPolicy.BLOCK)) {
+            // 10万个任务, 同时在途的最多104个
+            for (int i = 0; i < 100000; i++) {
+                int value = i;
+                futures.add(executor.submit(() -> {
+                    sum.addAndGet(value % 7);
+                }));
+                Assert.assertTrue(executor.getStats().getQueueDepth() <= 104);
+            }
+            futures.forEach(CompletableFuture::join);
+            ExecutorStats stats = executor.getStats();
+            System.out.println(stats);
+            Assert.assertEquals(100000, stats.getSubmitted());
+            Assert.assertEquals(100000, stats.getCompleted());
+            Assert.assertEquals(0, stats.getDropped());
+        }
+        long expected = 0;
+        for (int i = 0; i < 100000; i++) {
+            expected += i % 7;
+        }
+        Assert.assertEquals(expected, sum.get());
+    }
+
+    @Test
+    public void testDropAndCallerRuns() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<String> blocked = () -> {
+            release.await();
+            return Thread.currentThread().getName();
+        };
+        try (BoundedTaskExecutor drop = BoundedTaskExecutor.platform(1, 1, RejectionPolicy.DROP);
+             BoundedTaskExecutor callerRuns = BoundedTaskExecutor.platform(1, 1, RejectionPolicy.CALLER_RUNS)) {
+            List<CompletableFuture<String>> accepted = new ArrayList<>();
+            accepted.add(drop.submit(blocked));
+            accepted.add(drop.submit(blocked));
+            CompletableFuture<String> rejected = drop.submit(blocked);
+            try {
+                rejected.join();
+                Assert.fail();
+            } catch (CompletionException e) {
+                Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+            Assert.assertEquals(1, drop.getStats().getDropped());
+
+            accepted.add(callerRuns.submit(blocked));
+            accepted.add(callerRuns.submit(blocked));
+            // 第3个任务在当前线程中执行
+            Assert.assertEquals(Thread.currentThread().getName(), callerRuns.submit(() -> Thread.currentThread().getName()).join());
+            release.countDown();
+            Assert.assertEquals(1, callerRuns.getStats().getCallerRuns());
+            for (CompletableFuture<String> future : accepted) {
+                Assert.assertTrue(future.join().startsWith("bounded-executor-"));
+            }
+        }
+    }
+
+    @Test
+    public void testInterruptedWhileBlocked() {
+        CountDownLatch release = new CountDownLatch(1);
+        try (BoundedTaskExecutor executor = BoundedTaskExecutor.platform(1, 0, RejectionPolicy.BLOCK)) {
+            CompletableFuture<Void> running = executor.submit(() -> {
+                release.await();
+                return null;
+            });
+            Thread.currentThread().interrupt();
+            CompletableFuture<String> interrupted = executor.submit(() -> "never");
+            // 中断状态保留给调用方
+            Assert.assertTrue(Thread.interrupted());
+            try {
+                interrupted.join();
+                Assert.fail();
+            } catch (CompletionException e) {
+                Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+                Assert.assertTrue(e.getCause().getCause() instanceof InterruptedException);
+            }
+            ExecutorStats stats = executor.getStats();
+            Assert.assertEquals(1, stats.getInterrupted());
+            Assert.assertEquals(0, stats.getDropped());
+            Assert.assertEquals(1, stats.getSubmitted());
+            release.countDown();
+            running.join();
+        }
+    }
+
+    @Test
+    public void testBatchAndFailure() {
+        try (BoundedTaskExecutor executor = BoundedTaskExecutor.platform(2, 10, RejectionPolicy.BLOCK)) {
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                int value = i;
+                tasks.add(() -> value * value);
+            }
+            List<Integer> squares = BoundedTaskExecutor.joinAll(executor.submitAll(tasks));
+            for (int i = 0; i < 50; i++) {
+                Assert.assertEquals(i * i, squares.get(i).intValue());
+            }
+            CompletableFuture<Object> failure = executor.submit(() -> {
+                throw new IllegalStateException("failed");
+            });
+            Assert.assertTrue(failure.handle((r, e) -> e instanceof IllegalStateException).join());
+            Assert.assertEquals(1, executor.getStats().getFailed());
+        }
+    }
+
+    @Test
+    public void testVirtualThreads() {
+        Assume.assumeTrue(BoundedTaskExecutor.isVirtualThreadSupported());
+        AtomicInteger done = new AtomicInteger();
+        try (BoundedTaskExecutor executor = BoundedTaskExecutor.virtual(100000, RejectionPolicy.BLOCK)) {
+            Assert.assertTrue(executor.isVirtual());
+            for (int i = 0; i < 200000; i++) {
+                executor.execute(() -> {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.incrementAndGet();
+                });
+            }
+        }
+        Assert.assertEquals(200000, done.get());
+    }
+}
@@ -0,0 +1,128 @@
+package com.yubin.lambda.executor;
+
+/**
+ * BoundedTaskExecutor某一时刻的统计值, 耗时单位都是纳秒
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class ExecutorStats {
+
+    private final long submitted;
+
+    private final long completed;
+
+    private final long failed;
+
+    private final long dropped;
+
+    private final long callerRuns;
+
+    private final long interrupted;
+
+    private final int queued;
+
+    private final int running;
+
+    private final long totalQueueNanos;
+
+    private final long maxQueueNanos;
+
+    private final long totalRunNanos;
+
+    private final long maxRunNanos;
+
+    ExecutorStats(long submitted, long completed, long failed, long dropped, long callerRuns, long interrupted,
+                  int queued, int running, long totalQueueNanos, long maxQueueNanos, long totalRunNanos, long maxRunNanos) {
+        this.submitted = submitted;
+        this.completed = completed;
+        this.failed = failed;
+        this.dropped = dropped;
+        this.callerRuns = callerRuns;
+        this.interrupted = interrupted;
+        this.queued = queued;
+        this.running = running;
+        this.totalQueueNanos = totalQueueNanos;
+        this.maxQueueNanos = maxQueueNanos;
+        this.totalRunNanos = totalRunNanos;
+        this.maxRunNanos = maxRunNanos;
+    }
+
+    /**
+     * 被接受的任务数, 包括在提交线程中执行的任务, 不包括丢弃的任务
+     */
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    /**
+     * 执行结束的任务数, 包括抛出异常的任务
+     */
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getCallerRuns() {
+        return callerRuns;
+    }
+
+    /**
+     * BLOCK策略下等待许可时被中断而没有提交的任务数
+     */
+    public long getInterrupted() {
+        return interrupted;
+    }
+
+    /**
+     * 已经接受但还没有开始执行的任务数
+     */
+    public int getQueueDepth() {
+        return queued;
+    }
+
+    public int getRunning() {
+        return running;
+    }
+
+    public long getAverageQueueNanos() {
+        return completed == 0 ? 0 : totalQueueNanos / completed;
+    }
+
+    public long getMaxQueueNanos() {
+        return maxQueueNanos;
+    }
+
+    public long getAverageRunNanos() {
+        return completed == 0 ? 0 : totalRunNanos / completed;
+    }
+
+    public long getMaxRunNanos() {
+        return maxRunNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutorStats{" +
+                "submitted=" + submitted +
+                ", completed=" + completed +
+                ", failed=" + failed +
+                ", dropped=" + dropped +
+                ", callerRuns=" + callerRuns +
+                ", interrupted=" + interrupted +
+                ", queueDepth=" + queued +
+                ", running=" + running +
+                ", avgQueueMicros=" + getAverageQueueNanos() / 1000 +
+                ", maxQueueMicros=" + maxQueueNanos / 1000 +
+                ", avgRunMicros=" + getAverageRunNanos() / 1000 +
+                ", maxRunMicros=" + maxRunNanos / 1000 +
+                '}';
+    }
+}
@@ -0,0 +1,26 @@
+package com.yubin.lambda.executor;
+
+/**
+ * 在途任务数达到上限时的处理方式
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public enum RejectionPolicy {
+
+    /**
+     * 提交的线程阻塞等待, 直到有任务完成, 把压力传回给生产者
+     * 等待时被中断则不提交, 返回的Future以RejectedExecutionException结束, cause是InterruptedException
+     */
+    BLOCK,
+
+    /**
+     * 丢弃任务, 返回的Future以RejectedExecutionException结束
+     */
+    DROP,
+
+    /**
+     * 在提交的线程中直接执行, 生产者忙于执行任务时自然就慢下来了
+     */
+    CALLER_RUNS
+}
@@ -0,0 +1,258 @@
+package com.yubin.lambda.filter;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.impl.StudentAndFilter;
+import com.yubin.lambda.filter.impl.StudentNotFilter;
+import com.yubin.lambda.filter.impl.StudentOrFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 编译后的过滤条件
+ * 1. 把嵌套的and/or/not展开成一棵扁平的求值树: and(and(a, b), c) => and(a, b, c), not(not(a)) => a
+ * 2. 运行时统计每个子条件的通过率和耗时, 定期重新排序:
+ *    and中优先执行 代价 / 不通过率 最小的条件, or中优先执行 代价 / 通过率 最小的条件,
+ *    这样便宜并且过滤性强的条件(例如StudentAgeFilter)会排在昂贵的条件(例如名字长度)前面
+ * 统计信息没有加锁, 多线程下是近似值, 只影响执行顺序, 不影响结果
+ * 注意: and/or的分支会被重新排序, 不能依赖一个条件保护另一个条件, 例如
+ * and(s -> s.getName() != null, s -> s.getName().length() > 3)可能先执行第二个条件而抛出NullPointerException,
+ * 这种情况应该把两个判断写在同一个条件里
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class CompiledStudentFilter implements StudentFilter {
+
+    // 每隔多少次求值采样一次耗时, 必须是2的幂减1
+    private static final int SAMPLE_MASK = 63;
+
+    // 每隔多少次求值重新排序一次, 必须是2的幂减1
+    private static final int REORDER_MASK = 4095;
+
+    private final StudentFilter source;
+
+    private final Node root;
+
+    private CompiledStudentFilter(StudentFilter source, Node root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    public static CompiledStudentFilter compile(StudentFilter filter) {
+        if (filter instanceof CompiledStudentFilter) {
+            return (CompiledStudentFilter) filter;
+        }
+        return new CompiledStudentFilter(filter, build(filter, false));
+    }
+
+    /**
+     * 编译前的过滤条件
+     */
+    public StudentFilter getSource() {
+        return source;
+    }
+
+    @Override
+    public boolean match(Student student) {
+        return root.eval(student);
+    }
+
+    /**
+     * 当前的执行顺序以及每个条件的统计信息
+     */
+    public String explain() {
+        StringBuilder sb = new StringBuilder();
+        root.explain(sb, 0);
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "compiled(" + source + ")";
+    }
+
+    // 构建求值树, negated表示外层有奇数个not, 通过德摩根定律把not下推到叶子节点
+    private static Node build(StudentFilter filter, boolean negated) {
+        if (filter instanceof StudentNotFilter) {
+            return build(((StudentNotFilter) filter).getFilter(), !negated);
+        }
+        if (filter instanceof StudentAndFilter || filter instanceof StudentOrFilter) {
+            boolean and = filter instanceof StudentAndFilter;
+            List<StudentFilter> filters = and ? ((StudentAndFilter) filter).getFilters() : ((StudentOrFilter) filter).getFilters();
+            // not(and(a, b)) => or(not a, not b)
+            boolean junctionAnd = and != negated;
+            List<Node> children = new ArrayList<>();
+            for (StudentFilter child : filters) {
+                Node node = build(child, negated);
+                if (node instanceof Junction && ((Junction) node).and == junctionAnd) {
+                    for (Branch branch : ((Junction) node).branches) {
+                        children.add(branch.node);
+                    }
+                } else {
+                    children.add(node);
+                }
+            }
+            if (children.size() == 1) {
+                return children.get(0);
+            }
+            return new Junction(junctionAnd, children);
+        }
+        if (filter instanceof CompiledStudentFilter) {
+            return build(((CompiledStudentFilter) filter).source, negated);
+        }
+        return new Leaf(filter, negated);
+    }
+
+    private abstract static class Node {
+
+        abstract boolean eval(Student student);
+
+        abstract void explain(StringBuilder sb, int depth);
+    }
+
+    private static final class Leaf extends Node {
+
+        private final StudentFilter filter;
+
+        private final boolean negated;
+
+        Leaf(StudentFilter filter, boolean negated) {
+            this.filter = filter;
+            this.negated = negated;
+        }
+
+        @Override
+        boolean eval(Student student) {
+            return filter.match(student) != negated;
+        }
+
+        @Override
+        void explain(StringBuilder sb, int depth) {
+            sb.append(negated ? "not(" + filter + ")" : String.valueOf(filter));
+        }
+    }
+
+    // and/or中的一个分支以及它的统计信息
+    private static final class Branch {
+
+        private final Node node;
+
+        private long evaluations;
+
+        private long passes;
+
+        private long samples;
+
+        private long sampledNanos;
+
+        Branch(Node node) {
+            this.node = node;
+        }
+
+        double passRate() {
+            // 拉普拉斯平滑, 避免还没有数据的时候除0
+            return (passes + 1.0) / (evaluations + 2.0);
+        }
+
+        double cost() {
+            return samples == 0 ? 1.0 : Math.max(1.0, (double) sampledNanos / samples);
+        }
+
+        // 衰减历史数据, 让排序能跟上数据分布的变化
+        void decay() {
+            evaluations >>= 1;
+            passes >>= 1;
+            samples >>= 1;
+            sampledNanos >>= 1;
+        }
+    }
+
+    private static final class Junction extends Node {
+
+        private final boolean and;
+
+        // 写时复制, 重新排序时整体替换数组, 正在求值的线程看到的始终是一个完整的顺序
+        private volatile Branch[] branches;
+
+        private long calls;
+
+        Junction(boolean and, List<Node> children) {
+            this.and = and;
+            Branch[] branches = new Branch[children.size()];
+            for (int i = 0; i < branches.length; i++) {
+                branches[i] = new Branch(children.get(i));
+            }
+            this.branches = branches;
+        }
+
+        @Override
+        boolean eval(Student student) {
+            long n = ++calls;
+            boolean sample = (n & SAMPLE_MASK) == 0;
+            boolean result = and;
+            for (Branch branch : branches) {
+                boolean matched;
+                if (sample) {
+                    long start = System.nanoTime();
+                    matched = branch.node.eval(student);
+                    branch.sampledNanos += System.nanoTime() - start;
+                    branch.samples++;
+                } else {
+                    matched = branch.node.eval(student);
+                }
+                branch.evaluations++;
+                if (matched) {
+                    branch.passes++;
+                }
+                // and遇到false, or遇到true就可以短路返回
+                if (matched != and) {
+                    result = matched;
+                    break;
+                }
+            }
+            if ((n & REORDER_MASK) == 0) {
+                reorder();
+            }
+            return result;
+        }
+
+        private void reorder() {
+            Branch[] current = branches;
+            // 先把排序依据取出来, 排序过程中其它线程还在修改统计信息
+            double[] ranks = new double[current.length];
+            Integer[] indexes = new Integer[current.length];
+            for (int i = 0; i < current.length; i++) {
+                ranks[i] = rank(current[i]);
+                indexes[i] = i;
+                current[i].decay();
+            }
+            Arrays.sort(indexes, Comparator.comparingDouble(i -> ranks[i]));
+            Branch[] sorted = new Branch[current.length];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = current[indexes[i]];
+            }
+            branches = sorted;
+        }
+
+        private double rank(Branch branch) {
+            double shortCircuitRate = and ? 1.0 - branch.passRate() : branch.passRate();
+            return branch.cost() / shortCircuitRate;
+        }
+
+        @Override
+        void explain(StringBuilder sb, int depth) {
+            sb.append(and ? "and" : "or");
+            for (Branch branch : branches) {
+                sb.append('\n');
+                for (int i = 0; i <= depth; i++) {
+                    sb.append("  ");
+                }
+                branch.node.explain(sb, depth + 1);
+                sb.append(String.format("  [pass=%.3f, cost=%.1fns]", branch.passRate(), branch.cost()));
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.yubin.lambda.filter;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.impl.StudentAgeFilter;
+import com.yubin.lambda.filter.impl.StudentScoreFilter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 过滤条件组合与编译测试类
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class CompiledStudentFilterTest {
+
+    @Test
+    public void testCombine() {
+        List<Student> list = new ArrayList<>();
+        list.add(new Student("张三", 13, 63));
+        list.add(new Student("李四", 18, 78));
+        list.add(new Student("王五", 14, 70));
+        list.add(new Student("小红帽", 16, 89));
+        list.add(new Student("小绿", 19, 69));
+
+        // 年龄大于16并且分数大于75
+        Assert.assertEquals(Arrays.asList("李四"), findByFilter(list, new StudentAgeFilter().and(new StudentScoreFilter())));
+        // 年龄大于16或者名字的长度大于2
+        Assert.assertEquals(Arrays.asList("李四", "小红帽", "小绿"),
+                findByFilter(list, new StudentAgeFilter().or(student -> student.getName().length() > 2)));
+        // 年龄不大于16
+        Assert.assertEquals(Arrays.asList("张三", "王五", "小红帽"), findByFilter(list, new StudentAgeFilter().negate()));
+
+        // 名字条件写在前面, 但它几乎总是通过, 不能短路; 年龄条件只有30%通过, 重新排序后应该排在前面
+        StudentFilter nameFilter = new StudentFilter() {
+            @Override
+            public boolean match(Student student) {
+                return student.getName().codePointCount(0, student.getName().length()) > 2;
+            }
+
+            @Override
+            public String toString() {
+                return "name.length > 2";
+            }
+        };
+        StudentFilter filter = nameFilter.and(new StudentAgeFilter());
+        CompiledStudentFilter compiled = CompiledStudentFilter.compile(filter);
+        Assert.assertTrue(compiled.explain().startsWith("and\n  name.length > 2"));
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            Student student = new Student("小红帽" + i, 10 + random.nextInt(10), random.nextInt(101));
+            Assert.assertEquals(filter.match(student), compiled.match(student));
+        }
+        System.out.println(compiled.explain());
+        Assert.assertTrue(compiled.explain().startsWith("and\n  age > 16"));
+    }
+
+    @Test
+    public void testReorder() {
+        String[] names = {"张三", "李四", "王五", "小红帽", "小绿"};
+        Random random = new Random(42);
+        List<Student> list = new ArrayList<>();
+        for (int i = 0; i < 200000; i++) {
+            list.add(new Student(names[random.nextInt(names.length)] + i, 10 + random.nextInt(10), random.nextInt(101)));
+        }
+        // 故意把昂贵的名字条件写在前面
+        StudentFilter nameFilter = student -> student.getName().codePointCount(0, student.getName().length()) > 6;
+        StudentFilter filter = nameFilter.and(new StudentScoreFilter().and(new StudentAgeFilter())).negate().negate();
+        CompiledStudentFilter compiled = CompiledStudentFilter.compile(filter);
+
+        int expected = 0;
+        int actual = 0;
+        for (Student student : list) {
+            if (filter.match(student)) {
+                expected++;
+            }
+            if (compiled.match(student)) {
+                actual++;
+            }
+        }
+        Assert.assertEquals(expected, actual);
+        System.out.println(actual);
+        System.out.println(compiled.explain());
+    }
+
+    private List<String> findByFilter(List<Student> list, StudentFilter filter) {
+        List<String> names = new ArrayList<>();
+        for (Student student : list) {
+            if (filter.match(student)) {
+                names.add(student.getName());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,25 @@
+package com.yubin.lambda.filter;
+
+import com.yubin.lambda.entity.StudentField;
+
+/**
+ * 范围过滤条件: min <= field <= max
+ * 实现了这个接口的过滤条件可以直接走索引, 不需要全表扫描
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public interface RangeFilter extends StudentFilter {
+
+    public StudentField getField();
+
+    /**
+     * 下界, 包含
+     */
+    public int getMin();
+
+    /**
+     * 上界, 包含
+     */
+    public int getMax();
+}
@@ -1,6 +1,9 @@
 package com.yubin.lambda.filter;
 
 import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.impl.StudentAndFilter;
+import com.yubin.lambda.filter.impl.StudentNotFilter;
+import com.yubin.lambda.filter.impl.StudentOrFilter;
 
 /**
  * Student过滤类
@@ -11,4 +14,25 @@ import com.yubin.lambda.entity.Student;
 public interface StudentFilter {
 
     public boolean match(Student student);
+
+    /**
+     * 两个条件同时满足
+     */
+    default StudentFilter and(StudentFilter other) {
+        return new StudentAndFilter(this, other);
+    }
+
+    /**
+     * 满足其中一个条件
+     */
+    default StudentFilter or(StudentFilter other) {
+        return new StudentOrFilter(this, other);
+    }
+
+    /**
+     * 条件取反
+     */
+    default StudentFilter negate() {
+        return new StudentNotFilter(this);
+    }
 }
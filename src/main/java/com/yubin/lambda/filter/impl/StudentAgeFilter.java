@@ -1,7 +1,8 @@
 package com.yubin.lambda.filter.impl;
 
 import com.yubin.lambda.entity.Student;
-import com.yubin.lambda.filter.StudentFilter;
+import com.yubin.lambda.entity.StudentField;
+import com.yubin.lambda.filter.RangeFilter;
 
 /**
  * 通过年龄来过滤
@@ -9,9 +10,29 @@ import com.yubin.lambda.filter.StudentFilter;
  * @author yubin03
  * @create 2021-08-19
  */
-public class StudentAgeFilter implements StudentFilter {
+public class StudentAgeFilter implements RangeFilter {
     @Override
     public boolean match(Student student) {
         return student.getAge() > 16;
     }
+
+    @Override
+    public StudentField getField() {
+        return StudentField.AGE;
+    }
+
+    @Override
+    public int getMin() {
+        return 17;
+    }
+
+    @Override
+    public int getMax() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "age > 16";
+    }
 }
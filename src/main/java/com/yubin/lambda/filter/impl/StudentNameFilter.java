@@ -0,0 +1,35 @@
+package com.yubin.lambda.filter.impl;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.StudentFilter;
+
+import java.util.Objects;
+
+/**
+ * 通过名字来过滤: name相等
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class StudentNameFilter implements StudentFilter {
+
+    private final String name;
+
+    public StudentNameFilter(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean match(Student student) {
+        return Objects.equals(student.getName(), name);
+    }
+
+    @Override
+    public String toString() {
+        return "name = " + name;
+    }
+}
@@ -0,0 +1,38 @@
+package com.yubin.lambda.filter.impl;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.StudentFilter;
+
+/**
+ * 条件取反
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class StudentNotFilter implements StudentFilter {
+
+    private final StudentFilter filter;
+
+    public StudentNotFilter(StudentFilter filter) {
+        this.filter = filter;
+    }
+
+    public StudentFilter getFilter() {
+        return filter;
+    }
+
+    @Override
+    public boolean match(Student student) {
+        return !filter.match(student);
+    }
+
+    @Override
+    public StudentFilter negate() {
+        return filter;
+    }
+
+    @Override
+    public String toString() {
+        return "not(" + filter + ")";
+    }
+}
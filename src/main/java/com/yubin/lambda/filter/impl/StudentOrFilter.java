@@ -0,0 +1,43 @@
+package com.yubin.lambda.filter.impl;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.StudentFilter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 满足其中任意一个条件
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class StudentOrFilter implements StudentFilter {
+
+    private final StudentFilter[] filters;
+
+    public StudentOrFilter(StudentFilter... filters) {
+        this.filters = filters.clone();
+    }
+
+    public List<StudentFilter> getFilters() {
+        return Collections.unmodifiableList(Arrays.asList(filters));
+    }
+
+    @Override
+    public boolean match(Student student) {
+        // 按下标遍历数组, 不创建迭代器
+        for (int i = 0; i < filters.length; i++) {
+            if (filters[i].match(student)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "or" + Arrays.toString(filters);
+    }
+}
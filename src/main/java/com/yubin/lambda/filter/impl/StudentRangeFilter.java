@@ -0,0 +1,71 @@
+package com.yubin.lambda.filter.impl;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.entity.StudentField;
+import com.yubin.lambda.filter.RangeFilter;
+
+/**
+ * 通过某个字段的范围来过滤: min <= field <= max
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class StudentRangeFilter implements RangeFilter {
+
+    private final StudentField field;
+
+    private final int min;
+
+    private final int max;
+
+    public StudentRangeFilter(StudentField field, int min, int max) {
+        this.field = field;
+        this.min = min;
+        this.max = max;
+    }
+
+    // field == value
+    public static StudentRangeFilter equalTo(StudentField field, int value) {
+        return new StudentRangeFilter(field, value, value);
+    }
+
+    // field > value
+    public static StudentRangeFilter greaterThan(StudentField field, int value) {
+        return value == Integer.MAX_VALUE
+                ? new StudentRangeFilter(field, 1, 0)
+                : new StudentRangeFilter(field, value + 1, Integer.MAX_VALUE);
+    }
+
+    // field < value
+    public static StudentRangeFilter lessThan(StudentField field, int value) {
+        return value == Integer.MIN_VALUE
+                ? new StudentRangeFilter(field, 1, 0)
+                : new StudentRangeFilter(field, Integer.MIN_VALUE, value - 1);
+    }
+
+    @Override
+    public StudentField getField() {
+        return field;
+    }
+
+    @Override
+    public int getMin() {
+        return min;
+    }
+
+    @Override
+    public int getMax() {
+        return max;
+    }
+
+    @Override
+    public boolean match(Student student) {
+        int value = field.get(student);
+        return value >= min && value <= max;
+    }
+
+    @Override
+    public String toString() {
+        return min + " <= " + field.name().toLowerCase() + " <= " + max;
+    }
+}
@@ -1,7 +1,8 @@
 package com.yubin.lambda.filter.impl;
 
 import com.yubin.lambda.entity.Student;
-import com.yubin.lambda.filter.StudentFilter;
+import com.yubin.lambda.entity.StudentField;
+import com.yubin.lambda.filter.RangeFilter;
 
 /**
  * 通过分数来过滤
@@ -9,9 +10,29 @@ import com.yubin.lambda.filter.StudentFilter;
  * @author yubin03
  * @create 2021-08-19
  */
-public class StudentScoreFilter implements StudentFilter {
+public class StudentScoreFilter implements RangeFilter {
     @Override
     public boolean match(Student student) {
         return student.getScore() > 75;
     }
+
+    @Override
+    public StudentField getField() {
+        return StudentField.SCORE;
+    }
+
+    @Override
+    public int getMin() {
+        return 76;
+    }
+
+    @Override
+    public int getMax() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "score > 75";
+    }
 }
@@ -0,0 +1,27 @@
+package com.yubin.lambda.functionref;
+
+/**
+ * 按类缓存的访问器注册表, 代替在通用的加载、排序、序列化代码里用反射读写属性
+ * 例如: Accessors.of(Student.class).intGetter("age") 等价于 Student::getAge
+ * 缓存基于ClassValue, 类被卸载时对应的访问器也会被回收
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class Accessors {
+
+    private static final ClassValue<ClassAccessors<?>> CACHE = new ClassValue<ClassAccessors<?>>() {
+        @Override
+        protected ClassAccessors<?> computeValue(Class<?> type) {
+            return new ClassAccessors<>(type);
+        }
+    };
+
+    private Accessors() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ClassAccessors<T> of(Class<T> type) {
+        return (ClassAccessors<T>) CACHE.get(type);
+    }
+}
@@ -0,0 +1,172 @@
+package com.yubin.lambda.functionref;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.stream.io.RecordFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * LambdaMetafactory访问器测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class AccessorsTest {
+
+    @Test
+    public void testStudent() {
+        ClassAccessors<Student> accessors = Accessors.of(Student.class);
+        System.out.println(accessors);
+        // 相当于Student::new、Student::getAge、Student::setScore、Student::getName
+        Supplier<Student> constructor = accessors.constructor();
+        ToIntFunction<Student> age = accessors.intGetter("age");
+        ObjIntConsumer<Student> setScore = accessors.intSetter("score");
+        Function<Student, String> name = accessors.getter("name", String.class);
+        Function<Student, Integer> boxedAge = accessors.getter("age", Integer.class);
+
+        Student student = constructor.get();
+        accessors.setter("name", String.class).accept(student, "张三");
+        accessors.intSetter("age").accept(student, 13);
+        setScore.accept(student, 63);
+        Assert.assertEquals(13, age.applyAsInt(student));
+        Assert.assertEquals(63, student.getScore());
+        Assert.assertEquals("张三", name.apply(student));
+        Assert.assertEquals(Integer.valueOf(13), boxedAge.apply(student));
+
+        // 每个类、每个属性只生成一次
+        Assert.assertSame(accessors, Accessors.of(Student.class));
+        Assert.assertSame(age, accessors.intGetter("age"));
+        Assert.assertSame(constructor, accessors.constructor());
+        assertGenerated(constructor, age, setScore, name, boxedAge);
+    }
+
+    @Test
+    public void testErrors() {
+        ClassAccessors<Student> accessors = Accessors.of(Student.class);
+        try {
+            accessors.intGetter("name");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+        try {
+            accessors.getter("age", String.class);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+        try {
+            accessors.intGetter("height");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testPrivateClass() {
+        // 私有内部类的默认构造方法是私有的, 不能被生成的lambda访问, 退化为MethodHandle调用, 结果相同;
+        // 公共的getter/setter仍然由LambdaMetafactory生成
+        ClassAccessors<Foo> accessors = Accessors.of(Foo.class);
+        Supplier<Foo> constructor = accessors.constructor();
+        ObjIntConsumer<Foo> setValue = accessors.intSetter("value");
+        ToIntFunction<Foo> value = accessors.intGetter("value");
+        Function<Foo, Boolean> ready = accessors.getter("ready", Boolean.class);
+        Foo foo = constructor.get();
+        setValue.accept(foo, 42);
+        Assert.assertEquals(42, value.applyAsInt(foo));
+        Assert.assertTrue(ready.apply(foo));
+        Assert.assertTrue(isFallback(constructor));
+        assertGenerated(setValue, value, ready);
+    }
+
+    @Test
+    public void testBridgeMethods() {
+        // Bar实现了泛型接口, getMethods()同时返回真正的方法和参数、返回值为Object的桥接方法
+        ClassAccessors<Bar> accessors = Accessors.of(Bar.class);
+        Assert.assertEquals(String.class, accessors.getPropertyType("value"));
+        Assert.assertFalse(accessors.getter("value").isBridge());
+        Assert.assertFalse(accessors.setter("value").isBridge());
+        Bar bar = new Bar();
+        accessors.setter("value", String.class).accept(bar, "bridge");
+        Assert.assertEquals("bridge", accessors.getter("value", String.class).apply(bar));
+        try {
+            accessors.getter("value", Integer.class);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private static void assertGenerated(Object... accessors) {
+        for (Object accessor : accessors) {
+            Assert.assertFalse(accessor + " falls back to MethodHandle", isFallback(accessor));
+        }
+    }
+
+    // LambdaMetafactory生成的实现不捕获任何值, 退化的MethodHandle调用捕获了MethodHandle
+    private static boolean isFallback(Object accessor) {
+        for (Field field : accessor.getClass().getDeclaredFields()) {
+            if (MethodHandle.class.isAssignableFrom(field.getType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testRecordFormat() {
+        RecordFormat<Student> format = RecordFormat.of(Student.class, 1, "age", "score");
+        Student student = format.create("李四", new int[]{18, 78});
+        Assert.assertEquals(new Student("李四", 18, 78).toString(), student.toString());
+        Assert.assertEquals("李四", format.name(student));
+        Assert.assertEquals(78, format.field(student, format.fieldIndex("score")));
+        Assert.assertEquals(RecordFormat.STUDENT.recordSize(), format.recordSize());
+    }
+
+    private static class Foo {
+
+        private int value;
+
+        public int getValue() {
+            return value;
+        }
+
+        public void setValue(int value) {
+            this.value = value;
+        }
+
+        public boolean isReady() {
+            return value > 0;
+        }
+    }
+
+    public interface Holder<V> {
+
+        V getValue();
+
+        void setValue(V value);
+    }
+
+    public static class Bar implements Holder<String> {
+
+        private String value;
+
+        @Override
+        public String getValue() {
+            return value;
+        }
+
+        @Override
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+}
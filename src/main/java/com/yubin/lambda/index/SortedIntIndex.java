@@ -0,0 +1,135 @@
+package com.yubin.lambda.index;
+
+import java.util.Arrays;
+
+/**
+ * 有序的int索引
+ * 每个条目把 key 和行号打包成一个long: 高32位是key, 低32位是行号, 整个数组按long升序排列,
+ * 所以同一个key下的行号也是有序的, 范围查询只需要两次二分查找 O(log n), 再顺序读出k个结果
+ * 插入和删除需要移动数组元素, 适合读多写少的场景
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class SortedIntIndex {
+
+    private static final long ROW_MASK = 0xFFFFFFFFL;
+
+    private long[] entries;
+
+    private int size;
+
+    public SortedIntIndex() {
+        this(16);
+    }
+
+    public SortedIntIndex(int capacity) {
+        entries = new long[Math.max(capacity, 1)];
+    }
+
+    /**
+     * 批量构建: keys[row]是第row行的key, 排序一次即可, 比逐条插入快得多
+     */
+    public static SortedIntIndex build(int[] keys, int length) {
+        SortedIntIndex index = new SortedIntIndex(length);
+        for (int row = 0; row < length; row++) {
+            index.entries[row] = entry(keys[row], row);
+        }
+        Arrays.parallelSort(index.entries, 0, length);
+        index.size = length;
+        return index;
+    }
+
+    private static long entry(int key, int row) {
+        return ((long) key << 32) | (row & ROW_MASK);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(int key, int row) {
+        long entry = entry(key, row);
+        int pos = lowerBound(entry);
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size + (size >> 1) + 1);
+        }
+        System.arraycopy(entries, pos, entries, pos + 1, size - pos);
+        entries[pos] = entry;
+        size++;
+    }
+
+    public boolean remove(int key, int row) {
+        long entry = entry(key, row);
+        int pos = lowerBound(entry);
+        if (pos == size || entries[pos] != entry) {
+            return false;
+        }
+        System.arraycopy(entries, pos + 1, entries, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+
+    public void update(int oldKey, int newKey, int row) {
+        if (!remove(oldKey, row)) {
+            throw new IllegalStateException("Index entry not found: key=" + oldKey + ", row=" + row);
+        }
+        insert(newKey, row);
+    }
+
+    /**
+     * min <= key <= max 的条目个数, O(log n)
+     */
+    public int count(int min, int max) {
+        if (min > max) {
+            return 0;
+        }
+        return upperBound(entry(max, -1)) - lowerBound(entry(min, 0));
+    }
+
+    /**
+     * min <= key <= max 的所有行号, 按key升序
+     */
+    public int[] range(int min, int max) {
+        if (min > max) {
+            return new int[0];
+        }
+        int from = lowerBound(entry(min, 0));
+        int to = upperBound(entry(max, -1));
+        int[] rows = new int[to - from];
+        for (int i = from; i < to; i++) {
+            rows[i - from] = (int) (entries[i] & ROW_MASK);
+        }
+        return rows;
+    }
+
+    // 第一个 >= entry 的位置
+    private int lowerBound(long entry) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid] < entry) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // 第一个 > entry 的位置
+    private int upperBound(long entry) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid] <= entry) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,214 @@
+package com.yubin.lambda.index;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.entity.StudentField;
+import com.yubin.lambda.entity.StudentListener;
+import com.yubin.lambda.filter.RangeFilter;
+import com.yubin.lambda.filter.StudentFilter;
+import com.yubin.lambda.filter.impl.StudentAndFilter;
+import com.yubin.lambda.filter.impl.StudentOrFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 带有age和score二级索引的学生集合
+ * 1. RangeFilter(例如StudentAgeFilter、StudentScoreFilter)直接在索引上做范围查询, O(log n + k)
+ * 2. and条件选择命中行数最少的范围条件走索引, 其余条件在候选结果上逐个判断
+ * 3. 所有分支都是范围条件的or, 合并每个分支的索引结果
+ * 4. 其它条件退化成全表扫描
+ * 通过Student.addListener监听setAge/setScore, 学生的属性被修改后索引会同步更新
+ * 非线程安全, 同ArrayList
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class StudentIndex implements StudentListener {
+
+    private final List<Student> rows = new ArrayList<>();
+
+    // 学生 -> 行号, 按对象身份区分
+    private final Map<Student, Integer> rowIds = new IdentityHashMap<>();
+
+    private final Map<StudentField, SortedIntIndex> indexes = new EnumMap<>(StudentField.class);
+
+    public StudentIndex() {
+        for (StudentField field : StudentField.values()) {
+            indexes.put(field, new SortedIntIndex());
+        }
+    }
+
+    public StudentIndex(Collection<Student> students) {
+        int[] keys = new int[students.size()];
+        for (Student student : students) {
+            addRow(student);
+        }
+        for (StudentField field : StudentField.values()) {
+            for (int row = 0; row < rows.size(); row++) {
+                keys[row] = field.get(rows.get(row));
+            }
+            indexes.put(field, SortedIntIndex.build(keys, rows.size()));
+        }
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public boolean add(Student student) {
+        if (!addRow(student)) {
+            return false;
+        }
+        int row = rows.size() - 1;
+        for (StudentField field : StudentField.values()) {
+            indexes.get(field).insert(field.get(student), row);
+        }
+        return true;
+    }
+
+    private boolean addRow(Student student) {
+        if (rowIds.containsKey(student)) {
+            return false;
+        }
+        rowIds.put(student, rows.size());
+        rows.add(student);
+        student.addListener(this);
+        return true;
+    }
+
+    /**
+     * 删除学生: 把最后一行移动到被删除的位置, 避免整体移动行号
+     */
+    public boolean remove(Student student) {
+        Integer row = rowIds.remove(student);
+        if (row == null) {
+            return false;
+        }
+        student.removeListener(this);
+        for (StudentField field : StudentField.values()) {
+            indexes.get(field).remove(field.get(student), row);
+        }
+        int last = rows.size() - 1;
+        Student moved = rows.remove(last);
+        if (row != last) {
+            rows.set(row, moved);
+            rowIds.put(moved, row);
+            for (StudentField field : StudentField.values()) {
+                SortedIntIndex index = indexes.get(field);
+                int key = field.get(moved);
+                index.remove(key, last);
+                index.insert(key, row);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void onChange(Student student, StudentField field, int oldValue, int newValue) {
+        Integer row = rowIds.get(student);
+        if (row != null) {
+            indexes.get(field).update(oldValue, newValue, row);
+        }
+    }
+
+    /**
+     * 查找满足条件的学生, 能走索引的条件结果按索引key升序, 全表扫描的结果按插入顺序
+     */
+    public List<Student> find(StudentFilter filter) {
+        int[] candidates = candidates(filter);
+        List<Student> result = new ArrayList<>();
+        if (candidates == null) {
+            for (Student student : rows) {
+                if (filter.match(student)) {
+                    result.add(student);
+                }
+            }
+            return result;
+        }
+        for (int row : candidates) {
+            Student student = rows.get(row);
+            if (filter.match(student)) {
+                result.add(student);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 满足条件的学生个数, 单个RangeFilter只需要O(log n)
+     */
+    public int count(StudentFilter filter) {
+        if (filter instanceof RangeFilter) {
+            RangeFilter range = (RangeFilter) filter;
+            return indexes.get(range.getField()).count(range.getMin(), range.getMax());
+        }
+        return find(filter).size();
+    }
+
+    // 候选行号, 返回null表示条件无法走索引
+    private int[] candidates(StudentFilter filter) {
+        if (filter instanceof RangeFilter) {
+            RangeFilter range = (RangeFilter) filter;
+            return indexes.get(range.getField()).range(range.getMin(), range.getMax());
+        }
+        if (filter instanceof StudentAndFilter) {
+            // 展开嵌套的and, 选择命中行数最少的范围条件
+            List<RangeFilter> ranges = new ArrayList<>();
+            collectRanges((StudentAndFilter) filter, ranges);
+            RangeFilter best = null;
+            int bestCount = Integer.MAX_VALUE;
+            for (RangeFilter range : ranges) {
+                int count = indexes.get(range.getField()).count(range.getMin(), range.getMax());
+                if (count < bestCount) {
+                    best = range;
+                    bestCount = count;
+                }
+            }
+            return best == null ? null : candidates(best);
+        }
+        if (filter instanceof StudentOrFilter) {
+            List<int[]> parts = new ArrayList<>();
+            int total = 0;
+            for (StudentFilter child : ((StudentOrFilter) filter).getFilters()) {
+                int[] part = candidates(child);
+                if (part == null) {
+                    return null;
+                }
+                parts.add(part);
+                total += part.length;
+            }
+            // 多个分支可能命中同一行, 排序后去重
+            int[] merged = new int[total];
+            int n = 0;
+            for (int[] part : parts) {
+                System.arraycopy(part, 0, merged, n, part.length);
+                n += part.length;
+            }
+            Arrays.sort(merged);
+            int distinct = 0;
+            for (int i = 0; i < merged.length; i++) {
+                if (i == 0 || merged[i] != merged[i - 1]) {
+                    merged[distinct++] = merged[i];
+                }
+            }
+            return Arrays.copyOf(merged, distinct);
+        }
+        return null;
+    }
+
+    // and(a, and(b, c))中的a、b、c都是and的直接条件
+    private static void collectRanges(StudentAndFilter filter, List<RangeFilter> ranges) {
+        for (StudentFilter child : filter.getFilters()) {
+            if (child instanceof RangeFilter) {
+                ranges.add((RangeFilter) child);
+            } else if (child instanceof StudentAndFilter) {
+                collectRanges((StudentAndFilter) child, ranges);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.yubin.lambda.index;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.entity.StudentField;
+import com.yubin.lambda.filter.StudentFilter;
+import com.yubin.lambda.filter.impl.StudentAgeFilter;
+import com.yubin.lambda.filter.impl.StudentRangeFilter;
+import com.yubin.lambda.filter.impl.StudentScoreFilter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 学生二级索引测试类
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class StudentIndexTest {
+
+    @Test
+    public void testFind() {
+        List<Student> list = new ArrayList<>();
+        list.add(new Student("张三", 13, 63));
+        list.add(new Student("李四", 18, 78));
+        list.add(new Student("王五", 14, 70));
+        list.add(new Student("小红帽", 16, 89));
+        list.add(new Student("小绿", 19, 69));
+        StudentIndex index = new StudentIndex(list);
+
+        // 需求1: 查找年龄大于16的学生
+        check(index, list, new StudentAgeFilter());
+        // 需求2: 查找分数大于75的学生
+        check(index, list, new StudentScoreFilter());
+        // 需求3: 年龄大于16并且分数大于75
+        check(index, list, new StudentAgeFilter().and(new StudentScoreFilter()));
+        // 需求4: 分数在[60, 70]之间或者年龄等于16
+        check(index, list, new StudentRangeFilter(StudentField.SCORE, 60, 70)
+                .or(StudentRangeFilter.equalTo(StudentField.AGE, 16)));
+        // 需求5: 范围条件嵌套在内层的and中
+        check(index, list, ((StudentFilter) student -> student.getName().length() == 2)
+                .and(new StudentAgeFilter().and(new StudentRangeFilter(StudentField.SCORE, 60, 70))));
+    }
+
+    @Test
+    public void testUpdate() {
+        Student zhangsan = new Student("张三", 13, 63);
+        Student lisi = new Student("李四", 18, 78);
+        StudentIndex index = new StudentIndex();
+        index.add(zhangsan);
+        index.add(lisi);
+        Assert.assertEquals(1, index.count(new StudentAgeFilter()));
+
+        // 修改年龄之后索引同步更新
+        zhangsan.setAge(20);
+        Assert.assertEquals(2, index.count(new StudentAgeFilter()));
+        lisi.setScore(50);
+        Assert.assertEquals(0, index.count(new StudentScoreFilter()));
+
+        // 删除之后再修改不会影响索引
+        index.remove(zhangsan);
+        zhangsan.setScore(99);
+        Assert.assertEquals(0, index.count(new StudentScoreFilter()));
+        Assert.assertEquals(1, index.count(new StudentAgeFilter()));
+        System.out.println(index.find(new StudentAgeFilter()));
+    }
+
+    // 与全表逐个判断的结果比较, 走索引时结果按key排序, 所以按名字比较集合
+    private static void check(StudentIndex index, List<Student> list, StudentFilter filter) {
+        List<String> expected = list.stream().filter(filter::match).map(Student::getName).sorted().collect(Collectors.toList());
+        List<String> actual = index.find(filter).stream().map(Student::getName).sorted().collect(Collectors.toList());
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(expected.size(), index.count(filter));
+    }
+}
@@ -0,0 +1,81 @@
+package com.yubin.lambda.parallel;
+
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * 按下标对半拆分的Spliterator, 适用于ArrayList这类支持随机访问的集合
+ * 每次拆分都取前一半, 两边的大小最多相差1, 所以是SIZED并且SUBSIZED的
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class ChunkedListSpliterator<T> implements Spliterator<T> {
+
+    private final List<T> list;
+
+    // 当前位置, 包含
+    private int origin;
+
+    // 结束位置, 不包含
+    private final int fence;
+
+    // 小于这个大小就不再拆分
+    private final int minChunk;
+
+    public ChunkedListSpliterator(List<T> list, int minChunk) {
+        this(list, 0, list.size(), minChunk);
+    }
+
+    private ChunkedListSpliterator(List<T> list, int origin, int fence, int minChunk) {
+        if (!(list instanceof RandomAccess)) {
+            throw new IllegalArgumentException("List must support random access: " + list.getClass().getName());
+        }
+        this.list = list;
+        this.origin = origin;
+        this.fence = fence;
+        this.minChunk = Math.max(1, minChunk);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (origin < fence) {
+            action.accept(list.get(origin++));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        List<T> list = this.list;
+        for (int i = origin; i < fence; i++) {
+            action.accept(list.get(i));
+        }
+        origin = fence;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        int remaining = fence - origin;
+        if (remaining < minChunk * 2) {
+            return null;
+        }
+        int mid = origin + (remaining >>> 1);
+        Spliterator<T> prefix = new ChunkedListSpliterator<>(list, origin, mid, minChunk);
+        origin = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - origin;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED;
+    }
+}
@@ -0,0 +1,161 @@
+package com.yubin.lambda.parallel;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.StudentFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+/**
+ * 基于fork/join的并行过滤
+ * 1. 用ChunkedListSpliterator把源集合对半拆分成大小均衡的子任务
+ * 2. 每个子任务把命中的元素写到自己的缓冲区里, 不共享集合, 不需要加锁
+ * 3. 合并时按"左边在前, 右边在后"把缓冲区串成链表, 最后一次性拷贝到结果中, 保持原来的顺序
+ * 拆分的粒度根据数据量和并行度自动计算, 数据量太小的时候直接串行执行
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class ParallelFilterEngine {
+
+    // 小于这个数量直接串行过滤, 拆分任务的开销比收益大
+    private static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    // 每个子任务至少处理的元素个数
+    private static final int MIN_CHUNK = 1024;
+
+    // 每个线程平均分到的子任务个数, 任务多一些方便work-stealing做负载均衡
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+
+    public ParallelFilterEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelFilterEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public List<Student> findByFilter(List<Student> list, StudentFilter filter) {
+        return filter(list, filter::match);
+    }
+
+    /**
+     * 返回满足条件的元素, 顺序与原集合一致
+     */
+    public <T> List<T> filter(List<T> list, Predicate<? super T> predicate) {
+        int size = list.size();
+        int parallelism = pool.getParallelism();
+        if (size <= SEQUENTIAL_THRESHOLD || parallelism <= 1) {
+            List<T> result = new ArrayList<>();
+            for (T t : list) {
+                if (predicate.test(t)) {
+                    result.add(t);
+                }
+            }
+            return result;
+        }
+        int threshold = Math.max(MIN_CHUNK, size / (parallelism * TASKS_PER_THREAD));
+        // LinkedList这类不支持随机访问的集合使用自带的Spliterator, 它按批次拆分, 顺序不变
+        Spliterator<T> spliterator = list instanceof RandomAccess
+                ? new ChunkedListSpliterator<>(list, MIN_CHUNK) : list.spliterator();
+        Chunk<T> chunk = pool.invoke(new FilterTask<>(spliterator, predicate, threshold));
+        return chunk.toList();
+    }
+
+    private static class FilterTask<T> extends RecursiveTask<Chunk<T>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Spliterator<T> spliterator;
+
+        private final Predicate<? super T> predicate;
+
+        private final int threshold;
+
+        FilterTask(Spliterator<T> spliterator, Predicate<? super T> predicate, int threshold) {
+            this.spliterator = spliterator;
+            this.predicate = predicate;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Chunk<T> compute() {
+            if (spliterator.estimateSize() > threshold) {
+                Spliterator<T> prefix = spliterator.trySplit();
+                if (prefix != null) {
+                    FilterTask<T> left = new FilterTask<>(prefix, predicate, threshold);
+                    left.fork();
+                    Chunk<T> right = new FilterTask<>(spliterator, predicate, threshold).compute();
+                    return left.join().concat(right);
+                }
+            }
+            Chunk<T> chunk = new Chunk<>((int) Math.min(spliterator.estimateSize(), 64));
+            spliterator.forEachRemaining(t -> {
+                if (predicate.test(t)) {
+                    chunk.add(t);
+                }
+            });
+            return chunk;
+        }
+    }
+
+    // 子任务的结果缓冲区, 多个缓冲区按顺序串成单向链表
+    private static class Chunk<T> {
+
+        private Object[] items;
+
+        private int size;
+
+        private Chunk<T> next;
+
+        private Chunk<T> last = this;
+
+        // 整条链表的元素个数
+        private int total;
+
+        Chunk(int capacity) {
+            items = new Object[Math.max(capacity, 1)];
+        }
+
+        void add(T t) {
+            if (size == items.length) {
+                Object[] grown = new Object[size + (size >> 1) + 1];
+                System.arraycopy(items, 0, grown, 0, size);
+                items = grown;
+            }
+            items[size++] = t;
+            total++;
+        }
+
+        Chunk<T> concat(Chunk<T> right) {
+            if (right.total == 0) {
+                return this;
+            }
+            if (total == 0) {
+                return right;
+            }
+            last.next = right;
+            last = right.last;
+            total += right.total;
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> toList() {
+            List<T> result = new ArrayList<>(total);
+            for (Chunk<T> chunk = this; chunk != null; chunk = chunk.next) {
+                for (int i = 0; i < chunk.size; i++) {
+                    result.add((T) chunk.items[i]);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.yubin.lambda.parallel;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.impl.StudentAgeFilter;
+import com.yubin.lambda.filter.impl.StudentScoreFilter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * 并行过滤测试类
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class ParallelFilterEngineTest {
+
+    @Test
+    public void testFindByFilter() {
+        String[] names = {"张三", "李四", "王五", "小红帽", "小绿"};
+        Random random = new Random(42);
+        List<Student> list = new ArrayList<>();
+        for (int i = 0; i < 2000000; i++) {
+            list.add(new Student(names[random.nextInt(names.length)], 10 + random.nextInt(10), random.nextInt(101)));
+        }
+        ParallelFilterEngine engine = new ParallelFilterEngine();
+
+        // 需求1: 查找年龄大于16的学生
+        List<Student> expected = list.stream().filter(new StudentAgeFilter()::match).collect(Collectors.toList());
+        long start = System.currentTimeMillis();
+        List<Student> actual = engine.findByFilter(list, new StudentAgeFilter());
+        System.out.println("耗时: " + (System.currentTimeMillis() - start) + "ms, 命中: " + actual.size());
+        Assert.assertEquals(expected, actual);
+
+        // 需求2: 查找年龄大于16并且分数大于75的学生
+        expected = list.stream().filter(student -> student.getAge() > 16 && student.getScore() > 75).collect(Collectors.toList());
+        Assert.assertEquals(expected, engine.findByFilter(list, new StudentAgeFilter().and(new StudentScoreFilter())));
+
+        // 数据量小的时候串行执行
+        Assert.assertEquals(list.subList(0, 100).stream().filter(student -> student.getScore() > 75).collect(Collectors.toList()),
+                engine.findByFilter(list.subList(0, 100), new StudentScoreFilter()));
+    }
+
+    @Test
+    public void testLinkedList() {
+        Random random = new Random(7);
+        List<Student> list = new LinkedList<>();
+        for (int i = 0; i < 100000; i++) {
+            list.add(new Student("student" + i, 10 + random.nextInt(10), random.nextInt(101)));
+        }
+        // 不支持随机访问的集合也可以并行过滤, 结果顺序与原集合一致
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelFilterEngine engine = new ParallelFilterEngine(pool);
+            Assert.assertEquals(list.stream().filter(new StudentAgeFilter()::match).collect(Collectors.toList()),
+                    engine.findByFilter(list, new StudentAgeFilter()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.yubin.lambda.query;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.StudentFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按顺序执行的and, 前一段不满足时不会执行后一段
+ * filter(Predicate)中的lambda可能依赖前面的条件, 例如filter(s -> s.getName() != null).filter(s -> s.getName().length() > 3),
+ * 合并时每个lambda单独成为一段, 相邻的StudentFilter合并成一个StudentAndFilter, 段内可以编译和重新排序, 段之间的顺序不变
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+final class OrderedAndFilter implements StudentFilter {
+
+    private final StudentFilter[] filters;
+
+    OrderedAndFilter(List<StudentFilter> filters) {
+        this.filters = filters.toArray(new StudentFilter[0]);
+    }
+
+    List<StudentFilter> getFilters() {
+        return Collections.unmodifiableList(Arrays.asList(filters));
+    }
+
+    @Override
+    public boolean match(Student student) {
+        for (int i = 0; i < filters.length; i++) {
+            if (!filters[i].match(student)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        List<String> labels = new ArrayList<>(filters.length);
+        for (StudentFilter filter : filters) {
+            labels.add(PlanNode.label(filter));
+        }
+        return String.join(" then ", labels);
+    }
+}
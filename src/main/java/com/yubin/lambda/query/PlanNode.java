@@ -0,0 +1,194 @@
+package com.yubin.lambda.query;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.CompiledStudentFilter;
+import com.yubin.lambda.filter.StudentFilter;
+import com.yubin.stream.op.TopK;
+
+import java.util.Comparator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 查询计划中的一个操作, 逻辑计划和物理计划共用
+ * 计划内部不关心元素类型, 统一按Object处理, 类型由StudentQuery的泛型保证
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+abstract class PlanNode {
+
+    abstract Stream<Object> apply(Stream<Object> stream);
+
+    abstract String describe();
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+
+    // lambda和没有重写toString的对象没有可读性, 用简单的名字代替
+    static String label(Object function) {
+        String text = String.valueOf(function);
+        if (text.contains("$$Lambda$")) {
+            return "lambda";
+        }
+        if (function != null && text.startsWith(function.getClass().getName() + "@")) {
+            return function.getClass().getSimpleName();
+        }
+        return text;
+    }
+
+    /**
+     * 作用在Student上的过滤条件, 可以与相邻的条件合并, 可以编译, 可以走索引
+     */
+    static final class StudentFilterNode extends PlanNode {
+
+        final StudentFilter filter;
+
+        StudentFilterNode(StudentFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        Stream<Object> apply(Stream<Object> stream) {
+            StudentFilter filter = this.filter;
+            return stream.filter(o -> filter.match((Student) o));
+        }
+
+        @Override
+        String describe() {
+            if (filter instanceof CompiledStudentFilter) {
+                return "Filter[compiled " + label(((CompiledStudentFilter) filter).getSource()) + "]";
+            }
+            return "Filter[" + label(filter) + "]";
+        }
+    }
+
+    /**
+     * map之后的过滤条件
+     */
+    static final class FilterNode extends PlanNode {
+
+        final Predicate<Object> predicate;
+
+        final String description;
+
+        FilterNode(Predicate<Object> predicate, String description) {
+            this.predicate = predicate;
+            this.description = description;
+        }
+
+        @Override
+        Stream<Object> apply(Stream<Object> stream) {
+            return stream.filter(predicate);
+        }
+
+        @Override
+        String describe() {
+            return "Filter[" + description + "]";
+        }
+    }
+
+    static final class MapNode extends PlanNode {
+
+        final Function<Object, Object> mapper;
+
+        MapNode(Function<Object, Object> mapper) {
+            this.mapper = mapper;
+        }
+
+        @Override
+        Stream<Object> apply(Stream<Object> stream) {
+            return stream.map(mapper);
+        }
+
+        @Override
+        String describe() {
+            return "Map[" + label(mapper) + "]";
+        }
+    }
+
+    static final class SortedNode extends PlanNode {
+
+        final Comparator<Object> comparator;
+
+        SortedNode(Comparator<Object> comparator) {
+            this.comparator = comparator;
+        }
+
+        @Override
+        Stream<Object> apply(Stream<Object> stream) {
+            return stream.sorted(comparator);
+        }
+
+        @Override
+        String describe() {
+            return "Sort[" + label(comparator) + "]";
+        }
+    }
+
+    static final class LimitNode extends PlanNode {
+
+        final long maxSize;
+
+        LimitNode(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        Stream<Object> apply(Stream<Object> stream) {
+            return stream.limit(maxSize);
+        }
+
+        @Override
+        String describe() {
+            return "Limit[" + maxSize + "]";
+        }
+    }
+
+    static final class SkipNode extends PlanNode {
+
+        final long n;
+
+        SkipNode(long n) {
+            this.n = n;
+        }
+
+        @Override
+        Stream<Object> apply(Stream<Object> stream) {
+            return stream.skip(n);
+        }
+
+        @Override
+        String describe() {
+            return "Skip[" + n + "]";
+        }
+    }
+
+    /**
+     * sorted + limit改写成的有界堆, 只保留前k个元素
+     */
+    static final class TopKNode extends PlanNode {
+
+        final Comparator<Object> comparator;
+
+        final int k;
+
+        TopKNode(Comparator<Object> comparator, int k) {
+            this.comparator = comparator;
+            this.k = k;
+        }
+
+        @Override
+        Stream<Object> apply(Stream<Object> stream) {
+            return TopK.sortedLimit(stream, k, comparator);
+        }
+
+        @Override
+        String describe() {
+            return "TopK[k=" + k + ", " + label(comparator) + "]";
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.yubin.lambda.query;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.index.StudentIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 改写之后的物理计划, explain()输出计划树, 最上面是终止操作, 最下面是数据源
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class QueryPlan {
+
+    enum Terminal {
+        LIST, COUNT
+    }
+
+    private final List<Student> source;
+
+    private final List<PlanNode> nodes;
+
+    private final Terminal terminal;
+
+    private final boolean parallel;
+
+    // 走索引计数时使用, 否则为null
+    private final StudentIndex index;
+
+    // count下推之后, 在计数结果上直接计算的skip/limit
+    private final List<PlanNode> countTail;
+
+    QueryPlan(List<Student> source, List<PlanNode> nodes, Terminal terminal, boolean parallel,
+              StudentIndex index, List<PlanNode> countTail) {
+        this.source = source;
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        this.terminal = terminal;
+        this.parallel = parallel;
+        this.index = index;
+        this.countTail = Collections.unmodifiableList(new ArrayList<>(countTail));
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public boolean isIndexScan() {
+        return index != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    Stream<Object> stream() {
+        Stream<Object> stream = (Stream<Object>) (Stream<?>) (parallel ? source.parallelStream() : source.stream());
+        for (PlanNode node : nodes) {
+            stream = node.apply(stream);
+        }
+        return stream;
+    }
+
+    long count() {
+        long count;
+        if (index != null) {
+            count = index.count(((PlanNode.StudentFilterNode) nodes.get(0)).filter);
+        } else {
+            count = stream().count();
+        }
+        for (PlanNode node : countTail) {
+            if (node instanceof PlanNode.SkipNode) {
+                count = Math.max(0, count - ((PlanNode.SkipNode) node).n);
+            } else {
+                count = Math.min(count, ((PlanNode.LimitNode) node).maxSize);
+            }
+        }
+        return count;
+    }
+
+    public String explain() {
+        List<String> lines = new ArrayList<>();
+        lines.add(terminal == Terminal.COUNT ? "Count" : "Collect[toList]");
+        for (int i = countTail.size() - 1; i >= 0; i--) {
+            lines.add(countTail.get(i).describe() + " on count");
+        }
+        if (index != null) {
+            lines.add("IndexCount[" + PlanNode.label(((PlanNode.StudentFilterNode) nodes.get(0)).filter) + "]");
+        } else {
+            for (int i = nodes.size() - 1; i >= 0; i--) {
+                lines.add(nodes.get(i).describe());
+            }
+            lines.add((parallel ? "ParallelScan" : "SequentialScan") + "[rows=" + source.size() + "]");
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            for (int j = 0; j < i; j++) {
+                builder.append("  ");
+            }
+            builder.append(lines.get(i)).append('\n');
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+}
@@ -0,0 +1,214 @@
+package com.yubin.lambda.query;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.CompiledStudentFilter;
+import com.yubin.lambda.filter.RangeFilter;
+import com.yubin.lambda.filter.StudentFilter;
+import com.yubin.lambda.filter.impl.StudentAndFilter;
+import com.yubin.lambda.index.StudentIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+/**
+ * 查询改写规则, 按顺序执行:
+ * 1. 过滤条件下推到sorted之前: 稳定排序与无状态的过滤可以交换, 先过滤可以少排序一些元素
+ * 2. 合并相邻的过滤条件, Student上的条件合并成一个and并编译成CompiledStudentFilter, 运行时按代价自适应排序;
+ *    filter(Predicate)的lambda与前后条件的顺序保持不变, 见OrderedAndFilter
+ * 3. count下推: 丢掉不影响个数的map/sorted, 末尾的skip/limit直接在计数结果上计算, 不物化中间结果;
+ *    只剩一个可以走索引的条件并且有索引时, 直接在索引上计数
+ * 4. sorted + limit 改写成TopK, sorted + skip + limit 改写成TopK + skip
+ * 5. 数据量超过阈值并且有多个CPU时并行扫描, 否则串行扫描
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+final class QueryPlanner {
+
+    // 与ParallelFilterEngine相同, 小于这个数量串行扫描
+    static final int PARALLEL_THRESHOLD = 8192;
+
+    // TopK的堆大小上限, 更大的limit直接排序
+    static final int MAX_TOP_K = 1 << 20;
+
+    private QueryPlanner() {
+    }
+
+    static QueryPlan plan(List<Student> source, StudentIndex index, List<PlanNode> logical, QueryPlan.Terminal terminal) {
+        List<PlanNode> nodes = new ArrayList<>(logical);
+        pushFiltersBelowSort(nodes);
+        fuseFilters(nodes);
+        List<PlanNode> countTail = new ArrayList<>();
+        if (terminal == QueryPlan.Terminal.COUNT) {
+            pushDownCount(nodes, countTail);
+        }
+        rewriteTopK(nodes);
+        boolean indexCount = terminal == QueryPlan.Terminal.COUNT && index != null && nodes.size() == 1
+                && nodes.get(0) instanceof PlanNode.StudentFilterNode
+                && isIndexable(((PlanNode.StudentFilterNode) nodes.get(0)).filter);
+        if (!indexCount) {
+            compileFilters(nodes);
+        }
+        boolean parallel = !indexCount && source.size() > PARALLEL_THRESHOLD
+                && ForkJoinPool.getCommonPoolParallelism() > 1;
+        return new QueryPlan(source, nodes, terminal, parallel, indexCount ? index : null, countTail);
+    }
+
+    private static boolean isFilter(PlanNode node) {
+        return node instanceof PlanNode.StudentFilterNode || node instanceof PlanNode.FilterNode;
+    }
+
+    private static void pushFiltersBelowSort(List<PlanNode> nodes) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i + 1 < nodes.size(); i++) {
+                if (nodes.get(i) instanceof PlanNode.SortedNode && isFilter(nodes.get(i + 1))) {
+                    nodes.add(i, nodes.remove(i + 1));
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private static void fuseFilters(List<PlanNode> nodes) {
+        for (int i = 0; i + 1 < nodes.size(); ) {
+            PlanNode current = nodes.get(i);
+            PlanNode next = nodes.get(i + 1);
+            if (current instanceof PlanNode.StudentFilterNode && next instanceof PlanNode.StudentFilterNode) {
+                nodes.set(i, new PlanNode.StudentFilterNode(and(((PlanNode.StudentFilterNode) current).filter,
+                        ((PlanNode.StudentFilterNode) next).filter)));
+                nodes.remove(i + 1);
+            } else if (current instanceof PlanNode.FilterNode && next instanceof PlanNode.FilterNode) {
+                PlanNode.FilterNode left = (PlanNode.FilterNode) current;
+                PlanNode.FilterNode right = (PlanNode.FilterNode) next;
+                Predicate<Object> predicate = left.predicate.and(right.predicate);
+                nodes.set(i, new PlanNode.FilterNode(predicate, left.description + " and " + right.description));
+                nodes.remove(i + 1);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    // 合并成一层and, 不产生and(and(a, b), c)
+    // filter(Predicate)的条件可能依赖前面的条件, 不能参与重新排序, 按段合并成OrderedAndFilter
+    private static StudentFilter and(StudentFilter left, StudentFilter right) {
+        List<StudentFilter> segments = new ArrayList<>();
+        List<StudentFilter> filters = new ArrayList<>();
+        for (StudentFilter filter : new StudentFilter[]{left, right}) {
+            List<StudentFilter> parts = filter instanceof OrderedAndFilter
+                    ? ((OrderedAndFilter) filter).getFilters() : Collections.singletonList(filter);
+            for (StudentFilter part : parts) {
+                if (part instanceof StudentQuery.PredicateFilter) {
+                    addSegment(segments, filters);
+                    segments.add(part);
+                } else if (part instanceof StudentAndFilter) {
+                    filters.addAll(((StudentAndFilter) part).getFilters());
+                } else {
+                    filters.add(part);
+                }
+            }
+        }
+        addSegment(segments, filters);
+        return segments.size() == 1 ? segments.get(0) : new OrderedAndFilter(segments);
+    }
+
+    // 相邻的StudentFilter合并成一段, 段内可以重新排序
+    private static void addSegment(List<StudentFilter> segments, List<StudentFilter> filters) {
+        if (filters.size() == 1) {
+            segments.add(filters.get(0));
+        } else if (filters.size() > 1) {
+            segments.add(new StudentAndFilter(filters.toArray(new StudentFilter[0])));
+        }
+        filters.clear();
+    }
+
+    private static void pushDownCount(List<PlanNode> nodes, List<PlanNode> countTail) {
+        // 末尾的map/sorted/skip/limit都不需要真正执行
+        while (!nodes.isEmpty()) {
+            PlanNode last = nodes.get(nodes.size() - 1);
+            if (last instanceof PlanNode.SkipNode || last instanceof PlanNode.LimitNode) {
+                countTail.add(0, last);
+            } else if (!(last instanceof PlanNode.MapNode || last instanceof PlanNode.SortedNode)) {
+                break;
+            }
+            nodes.remove(nodes.size() - 1);
+        }
+        // 后面没有skip/limit的sorted不影响个数, 后面没有过滤条件的map也不影响个数
+        boolean positional = false;
+        boolean filtered = false;
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            PlanNode node = nodes.get(i);
+            if (node instanceof PlanNode.SortedNode && !positional) {
+                nodes.remove(i);
+            } else if (node instanceof PlanNode.MapNode && !filtered) {
+                nodes.remove(i);
+            } else if (node instanceof PlanNode.SkipNode || node instanceof PlanNode.LimitNode) {
+                positional = true;
+            } else if (isFilter(node)) {
+                filtered = true;
+            }
+        }
+    }
+
+    private static void rewriteTopK(List<PlanNode> nodes) {
+        for (int i = 0; i + 1 < nodes.size(); i++) {
+            if (!(nodes.get(i) instanceof PlanNode.SortedNode)) {
+                continue;
+            }
+            PlanNode.SortedNode sorted = (PlanNode.SortedNode) nodes.get(i);
+            PlanNode next = nodes.get(i + 1);
+            if (next instanceof PlanNode.LimitNode && ((PlanNode.LimitNode) next).maxSize <= MAX_TOP_K) {
+                nodes.set(i, new PlanNode.TopKNode(sorted.comparator, (int) ((PlanNode.LimitNode) next).maxSize));
+                nodes.remove(i + 1);
+            } else if (next instanceof PlanNode.SkipNode && i + 2 < nodes.size()
+                    && nodes.get(i + 2) instanceof PlanNode.LimitNode) {
+                long k = ((PlanNode.SkipNode) next).n + ((PlanNode.LimitNode) nodes.get(i + 2)).maxSize;
+                if (k >= 0 && k <= MAX_TOP_K) {
+                    // 前skip + limit个元素中再跳过skip个
+                    nodes.set(i, new PlanNode.TopKNode(sorted.comparator, (int) k));
+                    nodes.remove(i + 2);
+                }
+            }
+        }
+    }
+
+    private static boolean isIndexable(StudentFilter filter) {
+        if (filter instanceof RangeFilter) {
+            return true;
+        }
+        if (filter instanceof StudentAndFilter) {
+            for (StudentFilter child : ((StudentAndFilter) filter).getFilters()) {
+                if (child instanceof RangeFilter) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void compileFilters(List<PlanNode> nodes) {
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.get(i) instanceof PlanNode.StudentFilterNode) {
+                StudentFilter filter = ((PlanNode.StudentFilterNode) nodes.get(i)).filter;
+                nodes.set(i, new PlanNode.StudentFilterNode(compile(filter)));
+            }
+        }
+    }
+
+    // OrderedAndFilter的每一段分别编译, 段之间的顺序不变
+    private static StudentFilter compile(StudentFilter filter) {
+        if (filter instanceof OrderedAndFilter) {
+            List<StudentFilter> segments = new ArrayList<>();
+            for (StudentFilter segment : ((OrderedAndFilter) filter).getFilters()) {
+                segments.add(CompiledStudentFilter.compile(segment));
+            }
+            return new OrderedAndFilter(segments);
+        }
+        return CompiledStudentFilter.compile(filter);
+    }
+}
@@ -0,0 +1,189 @@
+package com.yubin.lambda.query;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.filter.StudentFilter;
+import com.yubin.lambda.index.StudentIndex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 学生查询, 操作与Stream相同, 但是只记录逻辑计划, 执行前由QueryPlanner改写
+ * 例如:
+ * StudentQuery.from(list).where(new StudentAgeFilter()).sorted(comparingInt(Student::getScore).reversed()).limit(10).toList()
+ * 会被改写成 过滤 + TopK(10), 不需要对所有满足条件的学生排序
+ * 查询对象是不可变的, 每个操作返回一个新的查询, 可以复用公共的前缀
+ * map函数应该没有副作用, count下推时不会执行不影响个数的map
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class StudentQuery<T> {
+
+    private final List<Student> source;
+
+    private final StudentIndex index;
+
+    private final List<PlanNode> nodes;
+
+    // 是否已经map过, map之后元素不再是Student
+    private final boolean mapped;
+
+    private StudentQuery(List<Student> source, StudentIndex index, List<PlanNode> nodes, boolean mapped) {
+        this.source = source;
+        this.index = index;
+        this.nodes = nodes;
+        this.mapped = mapped;
+    }
+
+    public static StudentQuery<Student> from(List<Student> students) {
+        return new StudentQuery<>(students, null, new ArrayList<>(), false);
+    }
+
+    /**
+     * index必须包含与students相同的学生, 只有count查询会用到索引, 其它查询要保持students的顺序
+     */
+    public static StudentQuery<Student> from(List<Student> students, StudentIndex index) {
+        if (index.size() != students.size()) {
+            throw new IllegalArgumentException("Index size " + index.size() + " != " + students.size());
+        }
+        return new StudentQuery<>(students, index, new ArrayList<>(), false);
+    }
+
+    private <R> StudentQuery<R> next(PlanNode node, boolean mapped) {
+        List<PlanNode> next = new ArrayList<>(nodes);
+        next.add(node);
+        return new StudentQuery<>(source, index, next, mapped);
+    }
+
+    /**
+     * 使用StudentFilter过滤, 只能在map之前调用; RangeFilter等条件可以走索引
+     */
+    public StudentQuery<T> where(StudentFilter filter) {
+        Objects.requireNonNull(filter);
+        if (mapped) {
+            throw new IllegalStateException("where(StudentFilter) must be applied before map");
+        }
+        return next(new PlanNode.StudentFilterNode(filter), false);
+    }
+
+    @SuppressWarnings("unchecked")
+    public StudentQuery<T> filter(Predicate<? super T> predicate) {
+        Objects.requireNonNull(predicate);
+        if (!mapped) {
+            // map之前的条件也转成StudentFilter, 以便与其它条件合并
+            return where(new PredicateFilter((Predicate<Student>) predicate));
+        }
+        return next(new PlanNode.FilterNode((Predicate<Object>) predicate, PlanNode.label(predicate)), true);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <R> StudentQuery<R> map(Function<? super T, ? extends R> mapper) {
+        Objects.requireNonNull(mapper);
+        return next(new PlanNode.MapNode((Function<Object, Object>) mapper), true);
+    }
+
+    @SuppressWarnings("unchecked")
+    public StudentQuery<T> sorted(Comparator<? super T> comparator) {
+        Objects.requireNonNull(comparator);
+        return next(new PlanNode.SortedNode((Comparator<Object>) comparator), mapped);
+    }
+
+    /**
+     * 按自然顺序排序, 元素必须实现Comparable
+     */
+    @SuppressWarnings("unchecked")
+    public StudentQuery<T> sorted() {
+        return sorted((Comparator<? super T>) Comparator.naturalOrder());
+    }
+
+    public StudentQuery<T> limit(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException(Long.toString(maxSize));
+        }
+        return next(new PlanNode.LimitNode(maxSize), mapped);
+    }
+
+    public StudentQuery<T> skip(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException(Long.toString(n));
+        }
+        return next(new PlanNode.SkipNode(n), mapped);
+    }
+
+    public List<T> toList() {
+        return stream().collect(Collectors.toList());
+    }
+
+    public void forEach(Consumer<? super T> action) {
+        stream().forEachOrdered(action);
+    }
+
+    /**
+     * 按改写后的计划执行, 返回结果流
+     */
+    @SuppressWarnings("unchecked")
+    public Stream<T> stream() {
+        return (Stream<T>) plan(QueryPlan.Terminal.LIST).stream();
+    }
+
+    public long count() {
+        return plan(QueryPlan.Terminal.COUNT).count();
+    }
+
+    /**
+     * toList/stream/forEach使用的计划
+     */
+    public String explain() {
+        return plan(QueryPlan.Terminal.LIST).explain();
+    }
+
+    /**
+     * count使用的计划
+     */
+    public String explainCount() {
+        return plan(QueryPlan.Terminal.COUNT).explain();
+    }
+
+    QueryPlan plan(QueryPlan.Terminal terminal) {
+        return QueryPlanner.plan(source, index, nodes, terminal);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("StudentQuery[rows=").append(source.size()).append(']');
+        for (PlanNode node : nodes) {
+            builder.append('.').append(node.describe());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * filter(Predicate)转成的StudentFilter, 合并时保持与前后条件的相对顺序, 见OrderedAndFilter
+     */
+    static final class PredicateFilter implements StudentFilter {
+
+        private final Predicate<Student> predicate;
+
+        PredicateFilter(Predicate<Student> predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean match(Student student) {
+            return predicate.test(student);
+        }
+
+        @Override
+        public String toString() {
+            return PlanNode.label(predicate);
+        }
+    }
+}
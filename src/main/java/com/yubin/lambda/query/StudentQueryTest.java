@@ -0,0 +1,126 @@
+package com.yubin.lambda.query;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.entity.StudentField;
+import com.yubin.lambda.filter.impl.StudentAgeFilter;
+import com.yubin.lambda.filter.impl.StudentRangeFilter;
+import com.yubin.lambda.index.StudentIndex;
+import com.yubin.stream.op.Generators;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 学生查询测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class StudentQueryTest {
+
+    private static List<Student> students(int count) {
+        return Generators.indexed(0, count, i -> new Student("student" + i,
+                10 + Generators.random(5, 2L * i, 12), Generators.random(5, 2L * i + 1, 101)))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testWhyUseLambda() {
+        // 同WhyUseLambda4: 查找年龄大于16的学生
+        List<Student> list = new ArrayList<>();
+        list.add(new Student("张三", 13, 63));
+        list.add(new Student("李四", 18, 78));
+        list.add(new Student("王五", 14, 70));
+        list.add(new Student("小红帽", 16, 89));
+        list.add(new Student("小绿", 19, 69));
+        StudentQuery<Student> query = StudentQuery.from(list).filter(student -> student.getAge() > 16);
+        query.forEach(System.out::println);
+        Assert.assertEquals(2, query.count());
+        System.out.println(query.explain());
+    }
+
+    @Test
+    public void testTopK() {
+        List<Student> students = students(50000);
+        Comparator<Student> byScore = Comparator.comparingInt(Student::getScore).reversed();
+        StudentQuery<String> query = StudentQuery.from(students)
+                .sorted(byScore)
+                .filter(s -> s.getAge() >= 15)
+                .where(StudentRangeFilter.greaterThan(StudentField.SCORE, 50))
+                .skip(5)
+                .limit(20)
+                .map(Student::getName);
+        List<String> expected = students.stream().sorted(byScore).filter(s -> s.getAge() >= 15)
+                .filter(s -> s.getScore() > 50).skip(5).limit(20).map(Student::getName).collect(Collectors.toList());
+        Assert.assertEquals(expected, query.toList());
+
+        String explain = query.explain();
+        System.out.println(explain);
+        // 两个条件合并成一个, 下推到排序之前, sorted + skip + limit改写成TopK
+        Assert.assertTrue(explain.contains("TopK[k=25"));
+        Assert.assertTrue(explain.contains("Skip[5]"));
+        Assert.assertFalse(explain.contains("Sort["));
+        Assert.assertFalse(explain.contains("Limit["));
+        Assert.assertEquals(1, explain.split("Filter\\[", -1).length - 1);
+        Assert.assertTrue(explain.indexOf("TopK") < explain.indexOf("Filter"));
+    }
+
+    @Test
+    public void testCount() {
+        List<Student> students = students(50000);
+        StudentQuery<Integer> query = StudentQuery.from(students)
+                .where(new StudentAgeFilter())
+                .sorted(Comparator.comparingInt(Student::getScore))
+                .map(Student::getScore)
+                .filter(score -> score >= 60)
+                .map(score -> score * 2)
+                .skip(100)
+                .limit(1000);
+        long expected = students.stream().filter(s -> s.getAge() >= 17).map(Student::getScore)
+                .filter(score -> score >= 60).skip(100).limit(1000).count();
+        Assert.assertEquals(expected, query.count());
+        String explain = query.explainCount();
+        System.out.println(explain);
+        // 排序和最后一个map都不需要执行, skip/limit在计数结果上计算
+        Assert.assertFalse(explain.contains("Sort["));
+        Assert.assertEquals(1, explain.split("Map\\[", -1).length - 1);
+        Assert.assertTrue(explain.contains("Limit[1000] on count"));
+
+        StudentIndex index = new StudentIndex(students);
+        StudentQuery<Student> indexed = StudentQuery.from(students, index)
+                .where(new StudentAgeFilter())
+                .where(StudentRangeFilter.lessThan(StudentField.SCORE, 30))
+                .sorted(Comparator.comparingInt(Student::getScore));
+        Assert.assertTrue(indexed.explainCount().startsWith("Count\n  IndexCount["));
+        Assert.assertEquals(students.stream().filter(s -> s.getAge() >= 17 && s.getScore() < 30).count(), indexed.count());
+        Assert.assertEquals(indexed.count(), indexed.toList().size());
+        System.out.println(indexed.explainCount());
+    }
+
+    @Test
+    public void testGuardFilter() {
+        // 每1000个学生有一个名字为null, 前一个条件保护后一个条件
+        List<Student> students = Generators.indexed(0, 20000, i -> new Student(i % 1000 == 999 ? null : "s" + i, 10 + i % 8, i % 101))
+                .collect(Collectors.toList());
+        StudentQuery<Student> query = StudentQuery.from(students)
+                .filter(s -> s.getName() != null)
+                .filter(s -> s.getName().length() > 3);
+        long expected = students.stream().filter(s -> s.getName() != null).filter(s -> s.getName().length() > 3).count();
+        Assert.assertEquals(19880, expected);
+        Assert.assertEquals(expected, query.count());
+        Assert.assertEquals(expected, query.toList().size());
+        // 与可以重新排序的条件混用时, 条件之间的相对顺序也不变
+        StudentQuery<Student> mixed = StudentQuery.from(students)
+                .where(new StudentAgeFilter())
+                .filter(s -> s.getName() != null)
+                .where(StudentRangeFilter.greaterThan(StudentField.SCORE, 50))
+                .filter(s -> s.getName().length() > 3);
+        Assert.assertEquals(students.stream().filter(s -> s.getAge() >= 17 && s.getScore() > 50 && s.getName() != null
+                && s.getName().length() > 3).count(), mixed.count());
+        System.out.println(mixed.explain());
+    }
+}
@@ -0,0 +1,248 @@
+package com.yubin.lambda.table;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * 名字字典: 把重复出现的名字(Student.name、User.name)编码成int
+ * 所有名字以UTF-8连续保存在一个byte[]中, 每个编码只需要一个起始偏移, 中文名字每个字3个字节,
+ * 同时预先计算好每个名字的码点个数, 按名字长度过滤时不需要解码
+ * 名字解码后按编码缓存, 只有不同名字个数那么多个String, 与记录数无关
+ * encode不是线程安全的; 并发构建使用encodeAll, 构建完成后的查询可以多线程并发执行
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class NameDictionary {
+
+    /**
+     * null的编码
+     */
+    public static final int NULL_CODE = -1;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private byte[] arena = new byte[256];
+
+    private int arenaSize;
+
+    // offsets[code]是第code个名字在arena中的起始位置, offsets[size]是arena的结尾
+    private int[] offsets = new int[17];
+
+    private int[] codePointLengths = new int[16];
+
+    private int[] hashes = new int[16];
+
+    private String[] decoded = new String[16];
+
+    private int size;
+
+    // 开放寻址的哈希表, 保存code + 1, 0表示空槽
+    private int[] slots = new int[32];
+
+    /**
+     * 编码一个名字, 字典中没有时追加到末尾
+     */
+    public int encode(String name) {
+        if (name == null) {
+            return NULL_CODE;
+        }
+        int hash = name.hashCode();
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            int code = entry - 1;
+            if (hashes[code] == hash && utf8Equals(code, name)) {
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int code = append(name, hash);
+        slots[slot] = code + 1;
+        if (size > slots.length * LOAD_FACTOR) {
+            rehash();
+        }
+        return code;
+    }
+
+    /**
+     * 查找名字的编码, 不存在时返回-2, 不会修改字典
+     */
+    public int find(String name) {
+        if (name == null) {
+            return NULL_CODE;
+        }
+        int hash = name.hashCode();
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            int code = entry - 1;
+            if (hashes[code] == hash && utf8Equals(code, name)) {
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -2;
+    }
+
+    /**
+     * 解码名字, 每个编码只解码一次
+     */
+    public String decode(int code) {
+        if (code == NULL_CODE) {
+            return null;
+        }
+        checkCode(code);
+        String name = decoded[code];
+        if (name == null) {
+            name = new String(arena, offsets[code], offsets[code + 1] - offsets[code], StandardCharsets.UTF_8);
+            decoded[code] = name;
+        }
+        return name;
+    }
+
+    /**
+     * 名字的码点个数, 对于常见的中文名字和String.length()相同
+     */
+    public int codePointLength(int code) {
+        if (code == NULL_CODE) {
+            return 0;
+        }
+        checkCode(code);
+        return codePointLengths[code];
+    }
+
+    /**
+     * 名字的UTF-8字节数
+     */
+    public int byteLength(int code) {
+        if (code == NULL_CODE) {
+            return 0;
+        }
+        checkCode(code);
+        return offsets[code + 1] - offsets[code];
+    }
+
+    /**
+     * 不同名字的个数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * arena占用的字节数
+     */
+    public int arenaBytes() {
+        return arenaSize;
+    }
+
+    /**
+     * 并发构建: 先并行求出不同的名字, 再串行写入字典, 最后并行把每一行编码成int
+     *
+     * @return 与names一一对应的编码
+     */
+    public int[] encodeAll(List<String> names) {
+        Set<String> distinct = ConcurrentHashMap.newKeySet();
+        names.parallelStream().filter(name -> name != null).forEach(distinct::add);
+        for (String name : distinct) {
+            encode(name);
+        }
+        return IntStream.range(0, names.size()).parallel().map(i -> find(names.get(i))).toArray();
+    }
+
+    private int append(String name, int hash) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (arenaSize + bytes.length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arenaSize + bytes.length, arena.length * 2));
+        }
+        System.arraycopy(bytes, 0, arena, arenaSize, bytes.length);
+        if (size + 1 == offsets.length) {
+            int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity + 1);
+            codePointLengths = Arrays.copyOf(codePointLengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            decoded = Arrays.copyOf(decoded, capacity);
+        }
+        int code = size++;
+        offsets[code] = arenaSize;
+        arenaSize += bytes.length;
+        offsets[size] = arenaSize;
+        codePointLengths[code] = name.codePointCount(0, name.length());
+        hashes[code] = hash;
+        return code;
+    }
+
+    // 不创建byte[], 把name逐个码点编码成UTF-8与arena比较
+    private boolean utf8Equals(int code, String name) {
+        int pos = offsets[code];
+        int end = offsets[code + 1];
+        int length = name.length();
+        for (int i = 0; i < length; ) {
+            int cp = name.codePointAt(i);
+            i += Character.charCount(cp);
+            if (cp >= 0xD800 && cp <= 0xDFFF) {
+                // 不成对的代理字符, String.getBytes会把它替换成'?'
+                cp = '?';
+            }
+            if (cp < 0x80) {
+                if (pos >= end || arena[pos++] != (byte) cp) {
+                    return false;
+                }
+            } else if (cp < 0x800) {
+                if (pos + 2 > end
+                        || arena[pos++] != (byte) (0xC0 | (cp >> 6))
+                        || arena[pos++] != (byte) (0x80 | (cp & 0x3F))) {
+                    return false;
+                }
+            } else if (cp < 0x10000) {
+                if (pos + 3 > end
+                        || arena[pos++] != (byte) (0xE0 | (cp >> 12))
+                        || arena[pos++] != (byte) (0x80 | ((cp >> 6) & 0x3F))
+                        || arena[pos++] != (byte) (0x80 | (cp & 0x3F))) {
+                    return false;
+                }
+            } else {
+                if (pos + 4 > end
+                        || arena[pos++] != (byte) (0xF0 | (cp >> 18))
+                        || arena[pos++] != (byte) (0x80 | ((cp >> 12) & 0x3F))
+                        || arena[pos++] != (byte) (0x80 | ((cp >> 6) & 0x3F))
+                        || arena[pos++] != (byte) (0x80 | (cp & 0x3F))) {
+                    return false;
+                }
+            }
+        }
+        return pos == end;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int code = 0; code < size; code++) {
+            int slot = mix(hashes[code]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = code + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    private void checkCode(int code) {
+        if (code < 0 || code >= size) {
+            throw new IndexOutOfBoundsException("Code: " + code + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.yubin.lambda.table;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * 选择向量: 按升序保存满足过滤条件的行号
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class SelectionVector {
+
+    private final int[] rows;
+
+    private final int size;
+
+    SelectionVector(int[] rows, int size) {
+        this.rows = rows;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 返回第i个被选中的行号
+     */
+    public int get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        return rows[i];
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(rows, 0, size);
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(rows, size);
+    }
+
+    @Override
+    public String toString() {
+        return "SelectionVector" + Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,266 @@
+package com.yubin.lambda.table;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.entity.StudentField;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * 按列存储的学生表
+ * age和score分别保存在int[]中, name通过NameDictionary做字典编码, 每行只保存一个int类型的编码
+ * 过滤时直接扫描基本类型的数组, 不需要为每一行访问一个单独的Student对象
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class StudentTable {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] ages;
+
+    private int[] scores;
+
+    private int[] nameCodes;
+
+    private int size;
+
+    private final NameDictionary dictionary = new NameDictionary();
+
+    public StudentTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public StudentTable(int capacity) {
+        capacity = Math.max(capacity, 1);
+        ages = new int[capacity];
+        scores = new int[capacity];
+        nameCodes = new int[capacity];
+    }
+
+    public static StudentTable of(List<Student> students) {
+        int size = students.size();
+        StudentTable table = new StudentTable(size);
+        List<String> names = new ArrayList<>(size);
+        for (Student student : students) {
+            int row = table.size++;
+            table.ages[row] = student.getAge();
+            table.scores[row] = student.getScore();
+            names.add(student.getName());
+        }
+        // 名字并行编码
+        int[] codes = table.dictionary.encodeAll(names);
+        System.arraycopy(codes, 0, table.nameCodes, 0, size);
+        return table;
+    }
+
+    /**
+     * 追加一行, 返回行号
+     */
+    public int add(Student student) {
+        return add(student.getName(), student.getAge(), student.getScore());
+    }
+
+    public int add(String name, int age, int score) {
+        if (size == ages.length) {
+            int capacity = size + (size >> 1) + 1;
+            ages = Arrays.copyOf(ages, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+            nameCodes = Arrays.copyOf(nameCodes, capacity);
+        }
+        ages[size] = age;
+        scores[size] = score;
+        nameCodes[size] = dictionary.encode(name);
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getAge(int row) {
+        checkRow(row);
+        return ages[row];
+    }
+
+    public int getScore(int row) {
+        checkRow(row);
+        return scores[row];
+    }
+
+    public String getName(int row) {
+        checkRow(row);
+        return dictionary.decode(nameCodes[row]);
+    }
+
+    /**
+     * 名字的长度(码点个数), 读取字典中预先计算好的值, 不需要解码
+     */
+    public int getNameLength(int row) {
+        checkRow(row);
+        return dictionary.codePointLength(nameCodes[row]);
+    }
+
+    public int get(StudentField field, int row) {
+        checkRow(row);
+        return column(field)[row];
+    }
+
+    /**
+     * 名字在字典中的编码, 名字相同的行编码相同, null的编码是NameDictionary.NULL_CODE
+     */
+    public int getNameCode(int row) {
+        checkRow(row);
+        return nameCodes[row];
+    }
+
+    public NameDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * 把一行还原成Student对象
+     */
+    public Student get(int row) {
+        checkRow(row);
+        return new Student(dictionary.decode(nameCodes[row]), ages[row], scores[row]);
+    }
+
+    public List<Student> toStudents(SelectionVector selection) {
+        List<Student> students = new ArrayList<>(selection.size());
+        for (int i = 0; i < selection.size(); i++) {
+            students.add(get(selection.get(i)));
+        }
+        return students;
+    }
+
+    /**
+     * 全表扫描某一列, 返回满足条件的行
+     */
+    public SelectionVector select(StudentField field, IntPredicate predicate) {
+        int[] column = column(field);
+        int[] rows = new int[size];
+        int n = 0;
+        for (int row = 0; row < size; row++) {
+            if (predicate.test(column[row])) {
+                rows[n++] = row;
+            }
+        }
+        return new SelectionVector(rows, n);
+    }
+
+    /**
+     * 在上一次的选择结果上继续过滤另一列, 用来实现多个条件的and
+     */
+    public SelectionVector select(SelectionVector selection, StudentField field, IntPredicate predicate) {
+        int[] column = column(field);
+        int[] rows = new int[selection.size()];
+        int n = 0;
+        for (int i = 0; i < selection.size(); i++) {
+            int row = selection.get(i);
+            if (predicate.test(column[row])) {
+                rows[n++] = row;
+            }
+        }
+        return new SelectionVector(rows, n);
+    }
+
+    /**
+     * 范围扫描 min <= value <= max, 比较直接写在循环里, 不经过IntPredicate
+     */
+    public SelectionVector selectRange(StudentField field, int min, int max) {
+        int[] column = column(field);
+        int[] rows = new int[size];
+        int n = 0;
+        for (int row = 0; row < size; row++) {
+            int value = column[row];
+            if (value >= min && value <= max) {
+                rows[n++] = row;
+            }
+        }
+        return new SelectionVector(rows, n);
+    }
+
+    /**
+     * 按名字过滤: 条件只对字典中每个不同的名字计算一次, 扫描时只比较编码
+     */
+    public SelectionVector selectName(Predicate<String> predicate) {
+        boolean[] matched = new boolean[dictionary.size()];
+        for (int code = 0; code < matched.length; code++) {
+            matched[code] = predicate.test(dictionary.decode(code));
+        }
+        return selectCodes(matched, () -> predicate.test(null));
+    }
+
+    /**
+     * 按名字长度过滤, 例如WhyUseLambda4中的 student.getName().length() > 2,
+     * 使用字典中预先计算好的码点个数, 不解码名字
+     */
+    public SelectionVector selectNameLength(IntPredicate predicate) {
+        boolean[] matched = new boolean[dictionary.size()];
+        for (int code = 0; code < matched.length; code++) {
+            matched[code] = predicate.test(dictionary.codePointLength(code));
+        }
+        return selectCodes(matched, () -> predicate.test(0));
+    }
+
+    /**
+     * 名字等于name的行, 扫描时只做int比较
+     */
+    public SelectionVector selectNameEquals(String name) {
+        int code = dictionary.find(name);
+        int[] rows = new int[size];
+        int n = 0;
+        for (int row = 0; row < size; row++) {
+            if (nameCodes[row] == code) {
+                rows[n++] = row;
+            }
+        }
+        return new SelectionVector(rows, n);
+    }
+
+    // matched[code]表示编码是否满足条件, 名字为null的行只在出现时计算一次nullMatched
+    private SelectionVector selectCodes(boolean[] matched, BooleanSupplier nullMatched) {
+        int[] rows = new int[size];
+        int n = 0;
+        int nullState = 0;
+        for (int row = 0; row < size; row++) {
+            int code = nameCodes[row];
+            boolean match;
+            if (code == NameDictionary.NULL_CODE) {
+                if (nullState == 0) {
+                    nullState = nullMatched.getAsBoolean() ? 1 : -1;
+                }
+                match = nullState > 0;
+            } else {
+                match = matched[code];
+            }
+            if (match) {
+                rows[n++] = row;
+            }
+        }
+        return new SelectionVector(rows, n);
+    }
+
+    private int[] column(StudentField field) {
+        switch (field) {
+            case AGE:
+                return ages;
+            case SCORE:
+                return scores;
+            default:
+                throw new IllegalArgumentException("Unknown field: " + field);
+        }
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+    }
+}
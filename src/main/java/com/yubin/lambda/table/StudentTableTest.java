@@ -0,0 +1,86 @@
+package com.yubin.lambda.table;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.entity.StudentField;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 列式存储学生表测试类
+ *
+ * @author yubin03
+ * @create 2021-08-19
+ */
+public class StudentTableTest {
+
+    @Test
+    public void testSelect() {
+        List<Student> list = new ArrayList<>();
+        list.add(new Student("张三", 13, 63));
+        list.add(new Student("李四", 18, 78));
+        list.add(new Student("王五", 14, 70));
+        list.add(new Student("小红帽", 16, 89));
+        list.add(new Student("小绿", 19, 69));
+        StudentTable table = StudentTable.of(list);
+
+        // 需求1: 查找年龄大于16的学生
+        SelectionVector byAge = table.select(StudentField.AGE, age -> age > 16);
+        assertSameStudents(list.stream().filter(s -> s.getAge() > 16), table.toStudents(byAge));
+        // 需求2: 查找分数大于75的学生
+        SelectionVector byScore = table.selectRange(StudentField.SCORE, 76, Integer.MAX_VALUE);
+        assertSameStudents(list.stream().filter(s -> s.getScore() > 75), table.toStudents(byScore));
+        // 需求3: 查找名字的长度大于2的学生
+        assertSameStudents(list.stream().filter(s -> s.getName().length() > 2),
+                table.toStudents(table.selectNameLength(length -> length > 2)));
+        // 需求4: 年龄大于16并且分数大于75
+        assertSameStudents(list.stream().filter(s -> s.getAge() > 16 && s.getScore() > 75),
+                table.toStudents(table.select(byAge, StudentField.SCORE, score -> score > 75)));
+        // 需求5: 名字是小红帽
+        assertSameStudents(list.stream().filter(s -> "小红帽".equals(s.getName())),
+                table.toStudents(table.selectNameEquals("小红帽")));
+    }
+
+    @Test
+    public void testNameDictionary() {
+        String[] names = {"张三", "李四", "王五", "小红帽", "小绿", "zhangsan", "é", "\uD83D\uDE00笑"};
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            rows.add(i % 1000 == 0 ? null : names[i % names.length]);
+        }
+        NameDictionary dictionary = new NameDictionary();
+        int[] codes = dictionary.encodeAll(rows);
+        Assert.assertEquals(names.length, dictionary.size());
+        for (int i = 0; i < rows.size(); i++) {
+            String name = rows.get(i);
+            Assert.assertEquals(name, dictionary.decode(codes[i]));
+            Assert.assertEquals(codes[i], dictionary.encode(name));
+            if (name != null) {
+                Assert.assertEquals(name.codePointCount(0, name.length()), dictionary.codePointLength(codes[i]));
+            }
+        }
+        Assert.assertEquals(-2, dictionary.find("赵六"));
+        System.out.println("不同名字个数: " + dictionary.size() + ", 字节数: " + dictionary.arenaBytes());
+
+        List<Student> students = new ArrayList<>();
+        for (String name : rows) {
+            students.add(new Student(name, 18, 60));
+        }
+        StudentTable table = StudentTable.of(students);
+        long expected = rows.stream().filter(name -> name != null && name.codePointCount(0, name.length()) > 2).count();
+        Assert.assertEquals(expected, table.selectNameLength(length -> length > 2).size());
+        Assert.assertEquals(100, table.selectNameEquals(null).size());
+        Assert.assertEquals(table.selectNameEquals("小红帽").size(), table.selectName("小红帽"::equals).size());
+    }
+
+    // Student没有equals, 按字段比较, 顺序也要相同
+    private static void assertSameStudents(Stream<Student> expected, List<Student> actual) {
+        List<String> expectedRows = expected.map(Student::toString).collect(Collectors.toList());
+        Assert.assertFalse(expectedRows.isEmpty());
+        Assert.assertEquals(expectedRows, actual.stream().map(Student::toString).collect(Collectors.toList()));
+    }
+}
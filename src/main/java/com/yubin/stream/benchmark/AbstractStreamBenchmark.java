@@ -0,0 +1,327 @@
+package com.yubin.stream.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * StreamDemo中每一种操作的基准测试, 分别以stream()、parallelStream()和手写for循环三种方式执行
+ * 子类只需要提供测试数据、过滤条件和排序用的int类型的key
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public abstract class AbstractStreamBenchmark<T> {
+
+    // limit操作截取的元素个数
+    private static final int LIMIT = 100;
+
+    // flatMap操作中每个子集合的大小
+    private static final int CHUNK = 100;
+
+    @Param({"10", "1000", "100000", "10000000"})
+    public int size;
+
+    @Param({"STREAM", "PARALLEL_STREAM", "LOOP"})
+    public Execution execution;
+
+    protected List<T> list;
+
+    private List<T> head;
+
+    private List<T> tail;
+
+    private List<List<T>> chunks;
+
+    private Predicate<T> filter;
+
+    private ToIntFunction<T> key;
+
+    private Comparator<T> comparator;
+
+    /**
+     * 生成第i个测试元素, 固定随机种子保证每次运行的数据一致
+     */
+    protected abstract T create(int i, Random random);
+
+    /**
+     * filter、findFirst、findAny使用的过滤条件
+     */
+    protected abstract Predicate<T> predicate();
+
+    /**
+     * map、reduce、sorted、min、max使用的int类型的key
+     */
+    protected abstract ToIntFunction<T> keyExtractor();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(create(i, random));
+        }
+        head = list.subList(0, size / 2);
+        tail = list.subList(size / 2, size);
+        chunks = new ArrayList<>();
+        for (int i = 0; i < size; i += CHUNK) {
+            chunks.add(list.subList(i, Math.min(size, i + CHUNK)));
+        }
+        filter = predicate();
+        key = keyExtractor();
+        comparator = Comparator.comparingInt(key);
+    }
+
+    private Stream<T> stream() {
+        return execution == Execution.PARALLEL_STREAM ? list.parallelStream() : list.stream();
+    }
+
+    private <E> Stream<E> stream(List<E> source) {
+        return execution == Execution.PARALLEL_STREAM ? source.parallelStream() : source.stream();
+    }
+
+    // Stream中间操作filter
+    @Benchmark
+    public List<T> filter() {
+        if (execution == Execution.LOOP) {
+            List<T> result = new ArrayList<>();
+            for (T t : list) {
+                if (filter.test(t)) {
+                    result.add(t);
+                }
+            }
+            return result;
+        }
+        return stream().filter(filter).collect(Collectors.toList());
+    }
+
+    // Stream中间操作distinct
+    @Benchmark
+    public List<T> distinct() {
+        if (execution == Execution.LOOP) {
+            return new ArrayList<>(new LinkedHashSet<>(list));
+        }
+        return stream().distinct().collect(Collectors.toList());
+    }
+
+    // Stream中间操作sorted
+    @Benchmark
+    public List<T> sorted() {
+        if (execution == Execution.LOOP) {
+            List<T> result = new ArrayList<>(list);
+            result.sort(comparator);
+            return result;
+        }
+        return stream().sorted(comparator).collect(Collectors.toList());
+    }
+
+    // Stream中间操作concat
+    @Benchmark
+    public List<T> concat() {
+        if (execution == Execution.LOOP) {
+            List<T> result = new ArrayList<>(head.size() + tail.size());
+            for (T t : head) {
+                result.add(t);
+            }
+            for (T t : tail) {
+                result.add(t);
+            }
+            return result;
+        }
+        return Stream.concat(stream(head), stream(tail)).collect(Collectors.toList());
+    }
+
+    // Stream中间操作limit
+    @Benchmark
+    public List<T> limit() {
+        if (execution == Execution.LOOP) {
+            List<T> result = new ArrayList<>(LIMIT);
+            for (T t : list) {
+                if (result.size() == LIMIT) {
+                    break;
+                }
+                result.add(t);
+            }
+            return result;
+        }
+        return stream().limit(LIMIT).collect(Collectors.toList());
+    }
+
+    // Stream中间操作skip
+    @Benchmark
+    public List<T> skip() {
+        if (execution == Execution.LOOP) {
+            List<T> result = new ArrayList<>();
+            for (int i = size / 2; i < size; i++) {
+                result.add(list.get(i));
+            }
+            return result;
+        }
+        return stream().skip(size / 2).collect(Collectors.toList());
+    }
+
+    // Stream中间操作map
+    @Benchmark
+    public List<Integer> map() {
+        if (execution == Execution.LOOP) {
+            List<Integer> result = new ArrayList<>(size);
+            for (T t : list) {
+                result.add(key.applyAsInt(t));
+            }
+            return result;
+        }
+        return stream().map(key::applyAsInt).collect(Collectors.toList());
+    }
+
+    // Stream中间操作flatMap
+    @Benchmark
+    public List<T> flatMap() {
+        if (execution == Execution.LOOP) {
+            List<T> result = new ArrayList<>(size);
+            for (List<T> chunk : chunks) {
+                for (T t : chunk) {
+                    result.add(t);
+                }
+            }
+            return result;
+        }
+        return stream(chunks).flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    // Stream终止操作reduce
+    @Benchmark
+    public int reduce() {
+        if (execution == Execution.LOOP) {
+            int sum = 0;
+            for (T t : list) {
+                sum += key.applyAsInt(t);
+            }
+            return sum;
+        }
+        return stream().map(key::applyAsInt).reduce(0, Integer::sum);
+    }
+
+    // Stream终止操作collect
+    @Benchmark
+    public List<T> collect() {
+        if (execution == Execution.LOOP) {
+            List<T> result = new ArrayList<>();
+            for (T t : list) {
+                result.add(t);
+            }
+            return result;
+        }
+        return stream().collect(Collectors.toList());
+    }
+
+    // Stream终止操作min
+    @Benchmark
+    public Optional<T> min() {
+        if (execution == Execution.LOOP) {
+            T min = null;
+            for (T t : list) {
+                if (min == null || comparator.compare(t, min) < 0) {
+                    min = t;
+                }
+            }
+            return Optional.ofNullable(min);
+        }
+        return stream().min(comparator);
+    }
+
+    // Stream终止操作max
+    @Benchmark
+    public Optional<T> max() {
+        if (execution == Execution.LOOP) {
+            T max = null;
+            for (T t : list) {
+                if (max == null || comparator.compare(t, max) > 0) {
+                    max = t;
+                }
+            }
+            return Optional.ofNullable(max);
+        }
+        return stream().max(comparator);
+    }
+
+    // Stream终止操作allMatch 所有元素都满足条件, 需要遍历全部元素
+    @Benchmark
+    public boolean allMatch() {
+        if (execution == Execution.LOOP) {
+            for (T t : list) {
+                if (key.applyAsInt(t) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return stream().allMatch(t -> key.applyAsInt(t) >= 0);
+    }
+
+    // Stream终止操作anyMatch 没有元素满足条件, 需要遍历全部元素
+    @Benchmark
+    public boolean anyMatch() {
+        if (execution == Execution.LOOP) {
+            for (T t : list) {
+                if (key.applyAsInt(t) < 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return stream().anyMatch(t -> key.applyAsInt(t) < 0);
+    }
+
+    // Stream终止操作noneMatch 没有元素满足条件, 需要遍历全部元素
+    @Benchmark
+    public boolean noneMatch() {
+        if (execution == Execution.LOOP) {
+            for (T t : list) {
+                if (key.applyAsInt(t) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return stream().noneMatch(t -> key.applyAsInt(t) < 0);
+    }
+
+    // Stream终止操作findFirst
+    @Benchmark
+    public Optional<T> findFirst() {
+        if (execution == Execution.LOOP) {
+            for (T t : list) {
+                if (filter.test(t)) {
+                    return Optional.of(t);
+                }
+            }
+            return Optional.empty();
+        }
+        return stream().filter(filter).findFirst();
+    }
+
+    // Stream终止操作findAny
+    @Benchmark
+    public Optional<T> findAny() {
+        if (execution == Execution.LOOP) {
+            for (T t : list) {
+                if (filter.test(t)) {
+                    return Optional.of(t);
+                }
+            }
+            return Optional.empty();
+        }
+        return stream().filter(filter).findAny();
+    }
+}
@@ -0,0 +1,73 @@
+package com.yubin.stream.benchmark;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.functionref.Accessors;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * 读写Student属性的基准测试, 对比直接调用、LambdaMetafactory生成的访问器和反射
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessorBenchmark {
+
+    private final Student student = new Student("张三", 13, 63);
+
+    private final ToIntFunction<Student> getAge = Accessors.of(Student.class).intGetter("age");
+
+    private final ObjIntConsumer<Student> setScore = Accessors.of(Student.class).intSetter("score");
+
+    private Method getAgeMethod;
+
+    private Method setScoreMethod;
+
+    private int value;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        getAgeMethod = Student.class.getMethod("getAge");
+        setScoreMethod = Student.class.getMethod("setScore", int.class);
+    }
+
+    @Benchmark
+    public int directGet() {
+        return student.getAge();
+    }
+
+    @Benchmark
+    public int accessorGet() {
+        return getAge.applyAsInt(student);
+    }
+
+    @Benchmark
+    public int reflectionGet() throws Exception {
+        return (Integer) getAgeMethod.invoke(student);
+    }
+
+    @Benchmark
+    public void directSet() {
+        student.setScore(value++);
+    }
+
+    @Benchmark
+    public void accessorSet() {
+        setScore.accept(student, value++);
+    }
+
+    @Benchmark
+    public void reflectionSet() throws Exception {
+        setScoreMethod.invoke(student, value++);
+    }
+}
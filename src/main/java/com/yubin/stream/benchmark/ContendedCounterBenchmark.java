@@ -0,0 +1,74 @@
+package com.yubin.stream.benchmark;
+
+import com.yubin.stream.concurrent.StripedHistogram;
+import com.yubin.stream.concurrent.StripedKeyedCounter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 多线程按年龄计数的基准测试, 对比共享的AtomicLong/ConcurrentHashMap.merge与分段累加器
+ * 用 -t 指定线程数观察扩展性, 例如: ContendedCounterBenchmark -t 32
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class ContendedCounterBenchmark {
+
+    private static final int AGES = 16;
+
+    private final AtomicLong total = new AtomicLong();
+
+    private final AtomicLongArray ages = new AtomicLongArray(AGES);
+
+    private final ConcurrentHashMap<Integer, Long> map = new ConcurrentHashMap<>();
+
+    private final StripedKeyedCounter counter = new StripedKeyedCounter();
+
+    private final StripedHistogram histogram = new StripedHistogram(0, 1, AGES);
+
+    @State(Scope.Thread)
+    public static class Age {
+
+        private int next;
+
+        int next() {
+            return next = (next + 1) & (AGES - 1);
+        }
+    }
+
+    @Benchmark
+    public long atomicLong() {
+        return total.incrementAndGet();
+    }
+
+    @Benchmark
+    public long atomicLongArray(Age age) {
+        return ages.incrementAndGet(age.next());
+    }
+
+    @Benchmark
+    public Long concurrentHashMapMerge(Age age) {
+        return map.merge(age.next(), 1L, Long::sum);
+    }
+
+    @Benchmark
+    public void stripedKeyedCounter(Age age) {
+        counter.increment(age.next());
+    }
+
+    @Benchmark
+    public void stripedHistogram(Age age) {
+        histogram.accept(age.next());
+    }
+}
@@ -0,0 +1,25 @@
+package com.yubin.stream.benchmark;
+
+/**
+ * 基准测试的执行方式
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public enum Execution {
+
+    /**
+     * list.stream() 串行流
+     */
+    STREAM,
+
+    /**
+     * list.parallelStream() 并行流
+     */
+    PARALLEL_STREAM,
+
+    /**
+     * 手写的for循环, 写法同WhyUseLambda1.findByAge
+     */
+    LOOP
+}
@@ -0,0 +1,30 @@
+package com.yubin.stream.benchmark;
+
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * List<Integer>上的Stream基准测试, 对应StreamDemo中的案例
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class IntegerStreamBenchmark extends AbstractStreamBenchmark<Integer> {
+
+    @Override
+    protected Integer create(int i, Random random) {
+        // 取值范围是size的一半, 保证distinct有重复元素可去
+        return random.nextInt(Math.max(1, size / 2));
+    }
+
+    @Override
+    protected Predicate<Integer> predicate() {
+        return x -> x % 2 == 0;
+    }
+
+    @Override
+    protected ToIntFunction<Integer> keyExtractor() {
+        return x -> x;
+    }
+}
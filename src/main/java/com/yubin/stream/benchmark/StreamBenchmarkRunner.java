@@ -0,0 +1,37 @@
+package com.yubin.stream.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试启动类
+ * 默认开启 -prof gc 统计内存分配, 结果以JSON格式写入 target/jmh-result.json, 便于不同版本之间做回归对比
+ * 命令行参数同JMH, 例如: StudentStreamBenchmark.filter -p size=1000 -p execution=LOOP
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class StreamBenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmd);
+        if (cmd.getIncludes().isEmpty()) {
+            builder.include(AbstractStreamBenchmark.class.getPackage().getName() + ".*Benchmark");
+        }
+        if (!cmd.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmd.getResult().hasValue()) {
+            builder.result("target/jmh-result.json");
+        }
+        if (cmd.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        new Runner(builder.build()).run();
+    }
+}
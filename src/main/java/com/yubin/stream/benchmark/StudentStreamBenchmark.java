@@ -0,0 +1,33 @@
+package com.yubin.stream.benchmark;
+
+import com.yubin.lambda.entity.Student;
+
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * List<Student>上的Stream基准测试, 过滤条件同StudentScoreFilter
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class StudentStreamBenchmark extends AbstractStreamBenchmark<Student> {
+
+    private static final String[] NAMES = {"张三", "李四", "王五", "小红帽", "小绿"};
+
+    @Override
+    protected Student create(int i, Random random) {
+        return new Student(NAMES[i % NAMES.length], 10 + random.nextInt(15), random.nextInt(101));
+    }
+
+    @Override
+    protected Predicate<Student> predicate() {
+        return student -> student.getScore() > 75;
+    }
+
+    @Override
+    protected ToIntFunction<Student> keyExtractor() {
+        return Student::getScore;
+    }
+}
@@ -0,0 +1,31 @@
+package com.yubin.stream.benchmark;
+
+import com.yubin.stream.User;
+
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * List<User>上的Stream基准测试
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class UserStreamBenchmark extends AbstractStreamBenchmark<User> {
+
+    @Override
+    protected User create(int i, Random random) {
+        return new User("user" + i, 1 + random.nextInt(100));
+    }
+
+    @Override
+    protected Predicate<User> predicate() {
+        return user -> user.getAge() > 16;
+    }
+
+    @Override
+    protected ToIntFunction<User> keyExtractor() {
+        return User::getAge;
+    }
+}
@@ -0,0 +1,124 @@
+package com.yubin.stream.collector;
+
+/**
+ * 等宽分桶的直方图, 第i个桶统计[origin + i * width, origin + (i + 1) * width)中的值
+ * 小于origin的值计入underflow, 超出最后一个桶的值计入overflow
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class IntHistogram {
+
+    private final int origin;
+
+    private final int width;
+
+    private final long[] counts;
+
+    private long underflow;
+
+    private long overflow;
+
+    public IntHistogram(int origin, int width, int buckets) {
+        if (width <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("width and buckets must be positive: " + width + ", " + buckets);
+        }
+        this.origin = origin;
+        this.width = width;
+        this.counts = new long[buckets];
+    }
+
+    /**
+     * 用已经统计好的各个桶的数量创建直方图
+     */
+    public IntHistogram(int origin, int width, long[] counts, long underflow, long overflow) {
+        this(origin, width, counts.length);
+        System.arraycopy(counts, 0, this.counts, 0, counts.length);
+        this.underflow = underflow;
+        this.overflow = overflow;
+    }
+
+    public void accept(int value) {
+        long offset = (long) value - origin;
+        if (offset < 0) {
+            underflow++;
+            return;
+        }
+        long bucket = offset / width;
+        if (bucket >= counts.length) {
+            overflow++;
+        } else {
+            counts[(int) bucket]++;
+        }
+    }
+
+    /**
+     * 合并分桶方式相同的直方图
+     */
+    public IntHistogram merge(IntHistogram other) {
+        if (origin != other.origin || width != other.width || counts.length != other.counts.length) {
+            throw new IllegalArgumentException("Incompatible histogram: " + other.describe() + " vs " + describe());
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        underflow += other.underflow;
+        overflow += other.overflow;
+        return this;
+    }
+
+    public int getBuckets() {
+        return counts.length;
+    }
+
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * 桶的下界, 包含
+     */
+    public int getLowerBound(int bucket) {
+        return origin + bucket * width;
+    }
+
+    public long getUnderflow() {
+        return underflow;
+    }
+
+    public long getOverflow() {
+        return overflow;
+    }
+
+    public long getTotal() {
+        long total = underflow + overflow;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    public long[] toArray() {
+        return counts.clone();
+    }
+
+    private String describe() {
+        return "[origin=" + origin + ", width=" + width + ", buckets=" + counts.length + "]";
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        if (underflow > 0) {
+            builder.append("< ").append(origin).append(": ").append(underflow).append('\n');
+        }
+        for (int i = 0; i < counts.length; i++) {
+            builder.append('[').append(getLowerBound(i)).append(", ").append(getLowerBound(i) + width).append("): ")
+                    .append(counts[i]).append('\n');
+        }
+        if (overflow > 0) {
+            builder.append(">= ").append(getLowerBound(counts.length)).append(": ").append(overflow).append('\n');
+        }
+        return builder.toString();
+    }
+}
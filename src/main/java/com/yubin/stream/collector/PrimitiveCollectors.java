@@ -0,0 +1,94 @@
+package com.yubin.stream.collector;
+
+import com.yubin.stream.primitive.IntObjectHashMap;
+import com.yubin.stream.primitive.IntSummaryMap;
+
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+
+/**
+ * 不装箱的收集器
+ * Collectors.groupingBy的键是Integer, 分组统计时每个元素还要经过Map<Integer, List<T>>;
+ * 这里的分组键都是int, 保存在开放寻址的Map中, 统计值直接累加到long[]/int[]里, 并行合并时也不装箱
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class PrimitiveCollectors {
+
+    private PrimitiveCollectors() {
+    }
+
+    /**
+     * 按int键分组, 统计每组value的count/sum/min/max/average
+     * 相当于groupingBy(key, summarizingInt(value)), 例如每个年龄的平均分
+     */
+    public static <T> Collector<T, ?, IntSummaryMap> summarizingByInt(ToIntFunction<? super T> key,
+                                                                      ToIntFunction<? super T> value) {
+        return Collector.of(IntSummaryMap::new,
+                (map, t) -> map.accept(key.applyAsInt(t), value.applyAsInt(t)),
+                (left, right) -> {
+                    left.merge(right);
+                    return left;
+                },
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * 按int键计数, 相当于groupingBy(key, counting()), 结果用IntSummaryMap.getCount读取
+     */
+    public static <T> Collector<T, ?, IntSummaryMap> countingByInt(ToIntFunction<? super T> key) {
+        return summarizingByInt(key, t -> 0);
+    }
+
+    /**
+     * 按int键分组, 每组再交给下游收集器, 相当于groupingBy(key, downstream)
+     */
+    public static <T, A, R> Collector<T, ?, IntObjectHashMap<R>> groupingByInt(ToIntFunction<? super T> key,
+                                                                               Collector<? super T, A, R> downstream) {
+        Supplier<A> supplier = downstream.supplier();
+        BiConsumer<A, ? super T> accumulator = downstream.accumulator();
+        BinaryOperator<A> combiner = downstream.combiner();
+        BiConsumer<IntObjectHashMap<A>, T> groupAccumulator =
+                (map, t) -> accumulator.accept(map.computeIfAbsent(key.applyAsInt(t), k -> supplier.get()), t);
+        BinaryOperator<IntObjectHashMap<A>> groupCombiner = (left, right) -> {
+            right.forEach((k, container) -> {
+                A existing = left.get(k);
+                left.put(k, existing == null ? container : combiner.apply(existing, container));
+            });
+            return left;
+        };
+        // 与Collectors.groupingBy一样, 只有下游不关心顺序时才声明UNORDERED, 否则并行时组内的元素要保持出现顺序
+        boolean unordered = downstream.characteristics().contains(Collector.Characteristics.UNORDERED);
+        if (downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            // 下游的容器就是结果, 不需要再转换一遍
+            @SuppressWarnings("unchecked")
+            Function<IntObjectHashMap<A>, IntObjectHashMap<R>> identity = map -> (IntObjectHashMap<R>) map;
+            return Collector.of(IntObjectHashMap::new, groupAccumulator, groupCombiner, identity, unordered
+                    ? new Collector.Characteristics[]{Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH}
+                    : new Collector.Characteristics[]{Collector.Characteristics.IDENTITY_FINISH});
+        }
+        Function<A, R> finisher = downstream.finisher();
+        return Collector.of(IntObjectHashMap::new, groupAccumulator, groupCombiner, map -> {
+            IntObjectHashMap<R> result = new IntObjectHashMap<>(map.size());
+            map.forEach((k, container) -> result.put(k, finisher.apply(container)));
+            return result;
+        }, unordered
+                ? new Collector.Characteristics[]{Collector.Characteristics.UNORDERED}
+                : new Collector.Characteristics[0]);
+    }
+
+    /**
+     * 等宽分桶的直方图
+     */
+    public static <T> Collector<T, ?, IntHistogram> histogram(ToIntFunction<? super T> value, int origin, int width, int buckets) {
+        return Collector.of(() -> new IntHistogram(origin, width, buckets),
+                (histogram, t) -> histogram.accept(value.applyAsInt(t)),
+                IntHistogram::merge,
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+}
@@ -0,0 +1,83 @@
+package com.yubin.stream.collector;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.stream.op.Generators;
+import com.yubin.stream.primitive.IntObjectHashMap;
+import com.yubin.stream.primitive.IntSummaryMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * 不装箱收集器测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class PrimitiveCollectorsTest {
+
+    private static List<Student> students(int count) {
+        return Generators.indexed(0, count, i -> new Student("student" + (i % 100),
+                15 + Generators.random(7, 2L * i, 10), Generators.random(7, 2L * i + 1, 101)))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testScoreByAge() {
+        List<Student> students = students(100000);
+        Map<Integer, IntSummaryStatistics> expected = students.stream()
+                .collect(Collectors.groupingBy(Student::getAge, Collectors.summarizingInt(Student::getScore)));
+        IntSummaryMap actual = students.parallelStream().collect(StudentCollectors.scoreByAge());
+        Assert.assertEquals(expected.size(), actual.size());
+        expected.forEach((age, statistics) -> {
+            Assert.assertEquals(statistics.getCount(), actual.getCount(age));
+            Assert.assertEquals(statistics.getSum(), actual.getSum(age));
+            Assert.assertEquals(statistics.getMin(), actual.getMin(age));
+            Assert.assertEquals(statistics.getMax(), actual.getMax(age));
+            Assert.assertEquals(statistics.getAverage(), actual.getAverage(age), 1e-9);
+        });
+        System.out.println(actual);
+
+        IntSummaryMap counts = students.parallelStream().collect(PrimitiveCollectors.countingByInt(Student::getScore));
+        Assert.assertEquals(101, counts.size());
+        Assert.assertEquals(students.stream().filter(s -> s.getScore() == 0).count(), counts.getCount(0));
+    }
+
+    @Test
+    public void testGroupingByInt() {
+        List<Student> students = students(50000);
+        IntObjectHashMap<List<String>> names = students.parallelStream()
+                .collect(PrimitiveCollectors.groupingByInt(Student::getAge, Collectors.mapping(Student::getName, Collectors.toList())));
+        Map<Integer, List<String>> expected = students.stream()
+                .collect(Collectors.groupingBy(Student::getAge, Collectors.mapping(Student::getName, Collectors.toList())));
+        Assert.assertEquals(expected.size(), names.size());
+        expected.forEach((age, list) -> Assert.assertEquals(list, names.get(age)));
+
+        IntObjectHashMap<Long> counts = students.parallelStream()
+                .collect(PrimitiveCollectors.groupingByInt(Student::getAge, Collectors.counting()));
+        expected.forEach((age, list) -> Assert.assertEquals(Long.valueOf(list.size()), counts.get(age)));
+        // 下游是有序的toList时不能声明UNORDERED, 下游无序时可以
+        Assert.assertFalse(PrimitiveCollectors.groupingByInt(Student::getAge, Collectors.toList())
+                .characteristics().contains(Collector.Characteristics.UNORDERED));
+        Assert.assertTrue(PrimitiveCollectors.groupingByInt(Student::getAge, Collectors.toSet())
+                .characteristics().contains(Collector.Characteristics.UNORDERED));
+    }
+
+    @Test
+    public void testHistogram() {
+        List<Student> students = students(100000);
+        IntHistogram scores = students.parallelStream().collect(StudentCollectors.scoreHistogram());
+        Assert.assertEquals(students.size(), scores.getTotal());
+        Assert.assertEquals(0, scores.getOverflow());
+        Assert.assertEquals(students.stream().filter(s -> s.getScore() >= 90 && s.getScore() < 100).count(), scores.getCount(9));
+        System.out.println(scores);
+
+        IntHistogram ages = students.parallelStream().collect(StudentCollectors.ageHistogram());
+        Assert.assertEquals(students.stream().filter(s -> s.getAge() == 17).count(), ages.getCount(17));
+    }
+}
@@ -0,0 +1,57 @@
+package com.yubin.stream.collector;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.stream.User;
+import com.yubin.stream.primitive.IntSummaryMap;
+
+import java.util.stream.Collector;
+
+/**
+ * Student/User常用字段的不装箱收集器
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class StudentCollectors {
+
+    // 年龄按1岁分桶, 覆盖[0, 128)
+    public static final int AGE_BUCKETS = 128;
+
+    // 分数按10分分桶, [0, 10) ... [90, 100), 满分100单独一个桶
+    public static final int SCORE_WIDTH = 10;
+
+    public static final int SCORE_BUCKETS = 11;
+
+    private StudentCollectors() {
+    }
+
+    /**
+     * 每个年龄的分数统计, 例如每个年龄的平均分
+     */
+    public static Collector<Student, ?, IntSummaryMap> scoreByAge() {
+        return PrimitiveCollectors.summarizingByInt(Student::getAge, Student::getScore);
+    }
+
+    /**
+     * 每个年龄的人数
+     */
+    public static Collector<Student, ?, IntSummaryMap> countByAge() {
+        return PrimitiveCollectors.countingByInt(Student::getAge);
+    }
+
+    public static Collector<Student, ?, IntHistogram> ageHistogram() {
+        return PrimitiveCollectors.histogram(Student::getAge, 0, 1, AGE_BUCKETS);
+    }
+
+    public static Collector<Student, ?, IntHistogram> scoreHistogram() {
+        return PrimitiveCollectors.histogram(Student::getScore, 0, SCORE_WIDTH, SCORE_BUCKETS);
+    }
+
+    public static Collector<User, ?, IntSummaryMap> userCountByAge() {
+        return PrimitiveCollectors.countingByInt(User::getAge);
+    }
+
+    public static Collector<User, ?, IntHistogram> userAgeHistogram() {
+        return PrimitiveCollectors.histogram(User::getAge, 0, 1, AGE_BUCKETS);
+    }
+}
@@ -0,0 +1,59 @@
+package com.yubin.stream.concurrent;
+
+/**
+ * 分段累加器的公共部分: 分段数、缓存行填充和线程到分段的映射
+ * 与LongAdder相同, 每个线程有一个探针值, 用它选择分段; 发生竞争时换一个探针, 让冲突的线程分散到不同的分段
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+final class Striped {
+
+    // 分段数, CPU核数的2倍向上取2的幂
+    static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+    // 相邻分段之间间隔的long个数, 16个long是128字节, 同时避开相邻缓存行预取带来的伪共享
+    static final int PAD = 16;
+
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> new int[]{initialProbe()});
+
+    private Striped() {
+    }
+
+    private static int stripes(int processors) {
+        int n = Math.max(2, processors * 2);
+        return Math.min(1 << 16, Integer.highestOneBit(n - 1) << 1);
+    }
+
+    private static int initialProbe() {
+        // 线程id是连续的, 打散之后再使用
+        long id = Thread.currentThread().getId();
+        int probe = (int) (id * 0x9e3779b97f4a7c15L >>> 32);
+        return probe == 0 ? 1 : probe;
+    }
+
+    /**
+     * 当前线程的探针值
+     */
+    static int probe() {
+        return PROBE.get()[0];
+    }
+
+    /**
+     * 当前线程在分段上发生了竞争, 换一个探针值(xorshift)
+     */
+    static int advanceProbe(int probe) {
+        probe ^= probe << 13;
+        probe ^= probe >>> 17;
+        probe ^= probe << 5;
+        PROBE.get()[0] = probe;
+        return probe;
+    }
+
+    /**
+     * 把n向上取整为PAD的倍数
+     */
+    static int padded(int n) {
+        return (n + PAD - 1) / PAD * PAD;
+    }
+}
@@ -0,0 +1,50 @@
+package com.yubin.stream.concurrent;
+
+import com.yubin.stream.collector.IntHistogram;
+import com.yubin.stream.primitive.IntSummaryMap;
+
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+/**
+ * 基于分段累加器的并发收集器
+ * 收集器是CONCURRENT | UNORDERED的, 并行流的所有线程直接写同一个分段累加器, 不再为每个子任务创建容器再逐层合并
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class StripedCollectors {
+
+    private StripedCollectors() {
+    }
+
+    public static <T> Collector<T, ?, IntSummaryMap> countingByInt(ToIntFunction<? super T> key) {
+        return summarizingByInt(key, t -> 1);
+    }
+
+    public static <T> Collector<T, ?, IntSummaryMap> summarizingByInt(ToIntFunction<? super T> key,
+                                                                      ToIntFunction<? super T> value) {
+        return Collector.of(StripedKeyedCounter::new,
+                (counter, t) -> counter.accept(key.applyAsInt(t), value.applyAsInt(t)),
+                StripedKeyedCounter::merge,
+                StripedKeyedCounter::snapshot,
+                Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED);
+    }
+
+    public static <T> Collector<T, ?, IntHistogram> histogram(ToIntFunction<? super T> value, int origin, int width, int buckets) {
+        return Collector.of(() -> new StripedHistogram(origin, width, buckets),
+                (histogram, t) -> histogram.accept(value.applyAsInt(t)),
+                StripedHistogram::merge,
+                StripedHistogram::snapshot,
+                Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED);
+    }
+
+    public static <T> Collector<T, ?, StripedMinMax> minMax(ToLongFunction<? super T> value) {
+        return Collector.of(StripedMinMax::new,
+                (minMax, t) -> minMax.accept(value.applyAsLong(t)),
+                StripedMinMax::merge,
+                Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+}
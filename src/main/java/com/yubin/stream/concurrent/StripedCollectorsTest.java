@@ -0,0 +1,84 @@
+package com.yubin.stream.concurrent;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.stream.collector.IntHistogram;
+import com.yubin.stream.collector.StudentCollectors;
+import com.yubin.stream.op.Generators;
+import com.yubin.stream.primitive.IntSummaryMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 分段累加器测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class StripedCollectorsTest {
+
+    private static List<Student> students(int count) {
+        return Generators.indexed(0, count, i -> new Student("student" + i,
+                15 + Generators.random(11, 2L * i, 10), Generators.random(11, 2L * i + 1, 101)))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testForEachSink() {
+        List<Student> students = students(200000);
+        StripedKeyedCounter counter = new StripedKeyedCounter();
+        StripedHistogram histogram = new StripedHistogram(0, 10, 11);
+        StripedMinMax minMax = new StripedMinMax();
+        students.parallelStream().forEach(counter.counting(Student::getAge));
+        students.parallelStream().mapToInt(Student::getScore).forEach(histogram);
+        students.parallelStream().mapToLong(Student::getScore).forEach(minMax);
+
+        Map<Integer, Long> expected = students.stream().collect(Collectors.groupingBy(Student::getAge, Collectors.counting()));
+        expected.forEach((age, count) -> Assert.assertEquals(count.longValue(), counter.getCount(age)));
+        IntHistogram scores = students.stream().collect(StudentCollectors.scoreHistogram());
+        Assert.assertArrayEquals(scores.toArray(), histogram.snapshot().toArray());
+        Assert.assertEquals(0, minMax.getMin());
+        Assert.assertEquals(100, minMax.getMax());
+    }
+
+    @Test
+    public void testCollector() {
+        List<Student> students = students(200000);
+        IntSummaryMap expected = students.stream().collect(StudentCollectors.scoreByAge());
+        IntSummaryMap actual = students.parallelStream().collect(StripedCollectors.summarizingByInt(Student::getAge, Student::getScore));
+        Assert.assertEquals(expected.toString(), actual.toString());
+
+        IntHistogram ages = students.parallelStream().collect(StripedCollectors.histogram(Student::getAge, 0, 1, 128));
+        Assert.assertArrayEquals(students.stream().collect(StudentCollectors.ageHistogram()).toArray(), ages.toArray());
+
+        StripedMinMax minMax = IntStream.range(-5000, 5000).boxed().parallel().collect(StripedCollectors.minMax(x -> x));
+        Assert.assertEquals(-5000, minMax.getMin());
+        Assert.assertEquals(4999, minMax.getMax());
+        Assert.assertTrue(new StripedMinMax().isEmpty());
+    }
+
+    @Test
+    public void testContention() throws InterruptedException {
+        // 所有线程都挤在少数几个键上
+        StripedKeyedCounter counter = new StripedKeyedCounter(4);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100000; i++) {
+                    counter.increment(i & 3);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int key = 0; key < 4; key++) {
+            Assert.assertEquals(threads.length * 25000L, counter.getCount(key));
+        }
+    }
+}
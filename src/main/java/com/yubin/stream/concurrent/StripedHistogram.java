@@ -0,0 +1,116 @@
+package com.yubin.stream.concurrent;
+
+import com.yubin.stream.collector.IntHistogram;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * 分段的等宽直方图, 分桶方式与IntHistogram相同
+ * 每个分段有一整行计数器, 行与行之间按PAD对齐, 线程只会写自己分段的那一行, 读取时把所有行加起来
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class StripedHistogram implements IntConsumer {
+
+    private final int origin;
+
+    private final int width;
+
+    private final int buckets;
+
+    // 每一行: buckets个桶, 然后是underflow和overflow
+    private final int row;
+
+    private final AtomicLongArray cells;
+
+    private final int mask;
+
+    public StripedHistogram(int origin, int width, int buckets) {
+        this(origin, width, buckets, Striped.STRIPES);
+    }
+
+    StripedHistogram(int origin, int width, int buckets, int stripes) {
+        if (width <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("width and buckets must be positive: " + width + ", " + buckets);
+        }
+        this.origin = origin;
+        this.width = width;
+        this.buckets = buckets;
+        this.row = Striped.padded(buckets + 2);
+        this.cells = new AtomicLongArray((stripes + 1) * row + Striped.PAD);
+        this.mask = stripes - 1;
+    }
+
+    @Override
+    public void accept(int value) {
+        long offset = (long) value - origin;
+        int bucket;
+        if (offset < 0) {
+            bucket = buckets;
+        } else {
+            long b = offset / width;
+            bucket = b >= buckets ? buckets + 1 : (int) b;
+        }
+        cells.getAndIncrement(rowStart(Striped.probe() & mask) + bucket);
+    }
+
+    private int rowStart(int stripe) {
+        return Striped.PAD + stripe * row;
+    }
+
+    private long sum(int bucket) {
+        long sum = 0;
+        for (int i = 0; i <= mask; i++) {
+            sum += cells.get(rowStart(i) + bucket);
+        }
+        return sum;
+    }
+
+    public long getCount(int bucket) {
+        if (bucket < 0 || bucket >= buckets) {
+            throw new IndexOutOfBoundsException("bucket: " + bucket);
+        }
+        return sum(bucket);
+    }
+
+    public long getUnderflow() {
+        return sum(buckets);
+    }
+
+    public long getOverflow() {
+        return sum(buckets + 1);
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * 当前各个桶的数量, 并发写入时不是一个原子的快照
+     */
+    public IntHistogram snapshot() {
+        long[] counts = new long[buckets];
+        for (int i = 0; i < buckets; i++) {
+            counts[i] = sum(i);
+        }
+        return new IntHistogram(origin, width, counts, getUnderflow(), getOverflow());
+    }
+
+    public StripedHistogram merge(StripedHistogram other) {
+        if (origin != other.origin || width != other.width || buckets != other.buckets) {
+            throw new IllegalArgumentException("Incompatible histogram");
+        }
+        int start = rowStart(Striped.probe() & mask);
+        for (int i = 0; i < buckets + 2; i++) {
+            cells.getAndAdd(start + i, other.sum(i));
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
@@ -0,0 +1,190 @@
+package com.yubin.stream.concurrent;
+
+import com.yubin.stream.primitive.IntSummaryMap;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * int键的分段计数器, 代替ConcurrentHashMap<Integer, AtomicLong>和ConcurrentHashMap.merge
+ * 每个分段是一个CAS锁加一个IntSummaryMap, 线程按探针值选择分段, 用tryLock加锁;
+ * 分段被其他线程占用时换一个探针再试, 所以正常情况下锁都是无竞争的, 键也不会装箱
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class StripedKeyedCounter {
+
+    private final Cell[] cells;
+
+    private final int mask;
+
+    public StripedKeyedCounter() {
+        this(Striped.STRIPES);
+    }
+
+    StripedKeyedCounter(int stripes) {
+        cells = new Cell[stripes];
+        for (int i = 0; i < stripes; i++) {
+            cells[i] = new Cell();
+        }
+        mask = stripes - 1;
+    }
+
+    /**
+     * key的计数加1
+     */
+    public void increment(int key) {
+        accept(key, 1);
+    }
+
+    /**
+     * 把value计入key所在的分组, getCount是调用次数, getSum是value的和
+     */
+    public void accept(int key, int value) {
+        int probe = Striped.probe();
+        for (int attempt = 0; attempt <= mask; attempt++) {
+            Cell cell = cells[probe & mask];
+            if (cell.tryLock()) {
+                try {
+                    cell.map.accept(key, value);
+                } finally {
+                    cell.unlock();
+                }
+                return;
+            }
+            probe = Striped.advanceProbe(probe);
+        }
+        // 所有分段都被占用了, 在当前分段上等待
+        Cell cell = cells[probe & mask];
+        cell.lock();
+        try {
+            cell.map.accept(key, value);
+        } finally {
+            cell.unlock();
+        }
+    }
+
+    /**
+     * 用作forEach的sink, 按key计数
+     */
+    public <T> Consumer<T> counting(ToIntFunction<? super T> key) {
+        return t -> increment(key.applyAsInt(t));
+    }
+
+    /**
+     * 用作forEach的sink, 按key统计value
+     */
+    public <T> Consumer<T> summarizing(ToIntFunction<? super T> key, ToIntFunction<? super T> value) {
+        return t -> accept(key.applyAsInt(t), value.applyAsInt(t));
+    }
+
+    public long getCount(int key) {
+        long count = 0;
+        for (Cell cell : cells) {
+            cell.lock();
+            try {
+                count += cell.map.getCount(key);
+            } finally {
+                cell.unlock();
+            }
+        }
+        return count;
+    }
+
+    public long getSum(int key) {
+        long sum = 0;
+        for (Cell cell : cells) {
+            cell.lock();
+            try {
+                sum += cell.map.getSum(key);
+            } finally {
+                cell.unlock();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 把所有分段合并成一个IntSummaryMap, 并发写入时每个分段各自一致, 整体不是原子的快照
+     */
+    public IntSummaryMap snapshot() {
+        IntSummaryMap result = new IntSummaryMap();
+        for (Cell cell : cells) {
+            cell.lock();
+            try {
+                result.merge(cell.map);
+            } finally {
+                cell.unlock();
+            }
+        }
+        return result;
+    }
+
+    public StripedKeyedCounter merge(StripedKeyedCounter other) {
+        IntSummaryMap map = other.snapshot();
+        Cell cell = cells[Striped.probe() & mask];
+        cell.lock();
+        try {
+            cell.map.merge(map);
+        } finally {
+            cell.unlock();
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /**
+     * 锁状态前面的填充, 父类的字段排在子类前面, 用继承保证填充字段和锁状态的相对位置
+     */
+    @SuppressWarnings("unused")
+    private abstract static class CellLeftPad {
+
+        private long p0, p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    /**
+     * 分段的锁状态和数据, 锁状态是竞争时被频繁写入的字段, 它直接保存在分段中, 而不是另一个Sync对象里
+     */
+    private abstract static class CellState extends CellLeftPad {
+
+        private static final AtomicIntegerFieldUpdater<CellState> LOCKED =
+                AtomicIntegerFieldUpdater.newUpdater(CellState.class, "locked");
+
+        // 0: 空闲, 1: 被占用
+        private volatile int locked;
+
+        final IntSummaryMap map = new IntSummaryMap();
+
+        boolean tryLock() {
+            return locked == 0 && LOCKED.compareAndSet(this, 0, 1);
+        }
+
+        /**
+         * 临界区只是一次哈希表更新, 等待时让出CPU即可
+         */
+        void lock() {
+            while (!tryLock()) {
+                Thread.yield();
+            }
+        }
+
+        void unlock() {
+            locked = 0;
+        }
+    }
+
+    /**
+     * 一个分段, 前后的填充字段让相邻分段的锁状态不在同一个缓存行中
+     */
+    @SuppressWarnings("unused")
+    private static final class Cell extends CellState {
+
+        private long q0, q1, q2, q3, q4, q5, q6, q7;
+    }
+}
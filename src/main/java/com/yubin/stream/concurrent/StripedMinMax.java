@@ -0,0 +1,99 @@
+package com.yubin.stream.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+/**
+ * 分段的最小值与最大值, 可以作为parallelStream().forEach的sink
+ * 每个分段的min和max放在同一个缓存行中, 不同分段之间隔开PAD个long;
+ * 只有新值比当前值更小(更大)时才写入, 值稳定之后几乎只有读操作
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class StripedMinMax implements LongConsumer {
+
+    private final AtomicLongArray cells;
+
+    private final int mask;
+
+    public StripedMinMax() {
+        this(Striped.STRIPES);
+    }
+
+    StripedMinMax(int stripes) {
+        cells = new AtomicLongArray((stripes + 1) * Striped.PAD);
+        mask = stripes - 1;
+        for (int i = 0; i < stripes; i++) {
+            cells.set(minIndex(i), Long.MAX_VALUE);
+            cells.set(minIndex(i) + 1, Long.MIN_VALUE);
+        }
+    }
+
+    // 第0个分段从PAD开始, 数组头部的对象头不会与分段共享缓存行
+    private static int minIndex(int stripe) {
+        return (stripe + 1) * Striped.PAD;
+    }
+
+    @Override
+    public void accept(long value) {
+        int probe = Striped.probe();
+        int index = minIndex(probe & mask);
+        long current;
+        while (value < (current = cells.get(index))) {
+            if (cells.compareAndSet(index, current, value)) {
+                break;
+            }
+            // 发生竞争, 换到另一个分段重试
+            probe = Striped.advanceProbe(probe);
+            index = minIndex(probe & mask);
+        }
+        index = minIndex(probe & mask) + 1;
+        while (value > (current = cells.get(index))) {
+            if (cells.compareAndSet(index, current, value)) {
+                break;
+            }
+            probe = Striped.advanceProbe(probe);
+            index = minIndex(probe & mask) + 1;
+        }
+    }
+
+    /**
+     * 没有任何值时返回Long.MAX_VALUE
+     */
+    public long getMin() {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i <= mask; i++) {
+            min = Math.min(min, cells.get(minIndex(i)));
+        }
+        return min;
+    }
+
+    /**
+     * 没有任何值时返回Long.MIN_VALUE
+     */
+    public long getMax() {
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i <= mask; i++) {
+            max = Math.max(max, cells.get(minIndex(i) + 1));
+        }
+        return max;
+    }
+
+    public boolean isEmpty() {
+        return getMin() > getMax();
+    }
+
+    public StripedMinMax merge(StripedMinMax other) {
+        if (!other.isEmpty()) {
+            accept(other.getMin());
+            accept(other.getMax());
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "StripedMinMax{}" : "StripedMinMax{min=" + getMin() + ", max=" + getMax() + "}";
+    }
+}
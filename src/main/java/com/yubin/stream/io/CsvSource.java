@@ -0,0 +1,483 @@
+package com.yubin.stream.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * CSV文件的流式读取, 每行一条记录, 列是名字和RecordFormat中的int字段
+ * 1. 不把整个文件读进内存: 每个子任务按块(默认1MB)读取自己负责的字节区间, 边读边解析
+ * 2. 并行时按字节区间对半拆分, 一行属于行首所在的区间, 拆分点不需要对齐到行首
+ * 3. int字段直接从字节解析, 只有名字会创建String
+ * 4. stream()的大小是估计值; sizedStream()先并行扫描一遍换行符, 每隔STRIDE行记录一个行首位置,
+ *    之后按这些位置拆分, 得到SIZED | SUBSIZED的流, 索引只占 行数 / STRIDE 个long
+ * 有表头时按表头的列名匹配列, 多余的列忽略; 没有表头时列的顺序是 name, 字段1, 字段2 ...
+ * 名字可以用双引号括起来, 双引号内的""表示一个双引号; 空行会被跳过
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class CsvSource<T> implements Closeable {
+
+    private static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    // 每隔多少行记录一个行首位置
+    private static final int DEFAULT_STRIDE = 4096;
+
+    // 拆分后每个子任务至少负责的字节数
+    private static final long MIN_SPLIT = 1 << 16;
+
+    // 列的作用: 名字、忽略, 或者是字段下标
+    private static final int NAME = -1;
+
+    private static final int IGNORED = -2;
+
+    private final Path path;
+
+    private final RecordFormat<T> format;
+
+    private final FileChannel channel;
+
+    private final long fileSize;
+
+    // 第一条数据的行首, 有表头时是第二行
+    private final long dataStart;
+
+    private final int[] columns;
+
+    private final int blockSize;
+
+    private final int stride;
+
+    // sizedStream使用的行首索引, 第一次使用时创建
+    private volatile LineIndex index;
+
+    public CsvSource(Path path, RecordFormat<T> format, boolean header) throws IOException {
+        this(path, format, header, DEFAULT_BLOCK_SIZE, DEFAULT_STRIDE);
+    }
+
+    CsvSource(Path path, RecordFormat<T> format, boolean header, int blockSize, int stride) throws IOException {
+        this.path = path;
+        this.format = format;
+        this.blockSize = blockSize;
+        this.stride = stride;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.fileSize = channel.size();
+            if (header) {
+                LineReader reader = new LineReader(channel, fileSize, blockSize);
+                if (!reader.nextLine()) {
+                    throw new IOException("Missing header: " + path);
+                }
+                this.columns = columns(new String(reader.block, reader.lineOffset, reader.lineLength, StandardCharsets.UTF_8));
+                this.dataStart = reader.position();
+            } else {
+                this.columns = new int[format.fieldCount() + 1];
+                this.columns[0] = NAME;
+                for (int i = 1; i < columns.length; i++) {
+                    columns[i] = i - 1;
+                }
+                this.dataStart = 0;
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private int[] columns(String header) throws IOException {
+        String[] names = header.split(",", -1);
+        int[] result = new int[names.length];
+        boolean hasName = false;
+        boolean[] found = new boolean[format.fieldCount()];
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i].trim();
+            // 去掉UTF-8的BOM
+            if (name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            if ("name".equals(name)) {
+                result[i] = NAME;
+                hasName = true;
+                continue;
+            }
+            result[i] = IGNORED;
+            for (int field = 0; field < found.length; field++) {
+                if (format.fieldName(field).equals(name)) {
+                    result[i] = field;
+                    found[field] = true;
+                }
+            }
+        }
+        for (int field = 0; field < found.length; field++) {
+            if (!found[field]) {
+                throw new IOException("Missing column " + format.fieldName(field) + " in " + path + ": " + header);
+            }
+        }
+        if (!hasName) {
+            throw new IOException("Missing column name in " + path + ": " + header);
+        }
+        return result;
+    }
+
+    public RecordFormat<T> getFormat() {
+        return format;
+    }
+
+    /**
+     * 惰性解析的流, 大小是按字节数估计的
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(new CsvSpliterator(dataStart, fileSize, null, 0, 0), false);
+    }
+
+    /**
+     * 大小精确的流, 第一次调用时并行扫描一遍文件建立行首索引
+     */
+    public Stream<T> sizedStream() {
+        LineIndex lineIndex = index();
+        return StreamSupport.stream(new CsvSpliterator(dataStart, fileSize, lineIndex, 0, lineIndex.offsets.length - 1), false);
+    }
+
+    /**
+     * 记录条数, 不解析记录
+     */
+    public long count() {
+        LineIndex lineIndex = index();
+        return lineIndex.lines[lineIndex.lines.length - 1];
+    }
+
+    private LineIndex index() {
+        LineIndex result = index;
+        if (result == null) {
+            synchronized (this) {
+                result = index;
+                if (result == null) {
+                    result = buildIndex();
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    // 把数据区分成若干块并行扫描, 每块记录自己的第0、STRIDE、2 * STRIDE ...行的行首和总行数, 再拼成全局索引
+    private LineIndex buildIndex() {
+        long length = fileSize - dataStart;
+        int chunks = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4L, length / MIN_SPLIT));
+        List<long[]> checkpoints = new ArrayList<>();
+        long[] counts = new long[chunks];
+        IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+            long from = dataStart + length * chunk / chunks;
+            long to = dataStart + length * (chunk + 1) / chunks;
+            LongList starts = new LongList();
+            long lines = 0;
+            try {
+                LineReader reader = new LineReader(channel, fileSize, blockSize);
+                reader.seek(from);
+                if (from > dataStart) {
+                    reader.alignToLineStart();
+                }
+                while (reader.position() < to && reader.nextLine()) {
+                    if (reader.lineLength > 0) {
+                        if (lines % stride == 0) {
+                            starts.add(reader.lineStart);
+                        }
+                        lines++;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            counts[chunk] = lines;
+            return starts.toArray();
+        }).forEachOrdered(checkpoints::add);
+
+        LongList offsets = new LongList();
+        LongList lineNumbers = new LongList();
+        long total = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            long[] starts = checkpoints.get(chunk);
+            for (int i = 0; i < starts.length; i++) {
+                offsets.add(starts[i]);
+                lineNumbers.add(total + (long) i * stride);
+            }
+            total += counts[chunk];
+        }
+        // 哨兵: 文件末尾和总行数
+        offsets.add(fileSize);
+        lineNumbers.add(total);
+        return new LineIndex(offsets.toArray(), lineNumbers.toArray());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 解析[from, to)范围内的int, 允许前后有空格
+     */
+    static int parseInt(byte[] bytes, int from, int to) {
+        while (from < to && bytes[from] == ' ') {
+            from++;
+        }
+        while (to > from && bytes[to - 1] == ' ') {
+            to--;
+        }
+        boolean negative = false;
+        int i = from;
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        if (i == to) {
+            throw numberFormat(bytes, from, to);
+        }
+        // 按负数累加, 可以表示Integer.MIN_VALUE
+        int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int result = 0;
+        for (; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9 || result < limit / 10) {
+                throw numberFormat(bytes, from, to);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw numberFormat(bytes, from, to);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private static NumberFormatException numberFormat(byte[] bytes, int from, int to) {
+        return new NumberFormatException("For input string: \"" + new String(bytes, from, to - from, StandardCharsets.UTF_8) + "\"");
+    }
+
+    // 稀疏的行首索引: offsets[i]是第lines[i]条记录的行首, 最后一项是文件末尾和总条数
+    private static final class LineIndex {
+
+        final long[] offsets;
+
+        final long[] lines;
+
+        LineIndex(long[] offsets, long[] lines) {
+            this.offsets = offsets;
+            this.lines = lines;
+        }
+    }
+
+    private static final class LongList {
+
+        private long[] values = new long[16];
+
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * 负责行首在[origin, fence)中的行
+     * 有索引时按索引项[low, high)拆分, 起点总是行首, 大小精确; 没有索引时按字节对半拆分, 第一次读取前对齐到行首
+     */
+    private class CsvSpliterator implements Spliterator<T> {
+
+        private long origin;
+
+        private final long fence;
+
+        private final LineIndex lineIndex;
+
+        private int low;
+
+        private final int high;
+
+        // 已经读取的记录条数, 用于计算精确的剩余大小
+        private long consumed;
+
+        private LineReader reader;
+
+        // 每行的字段, 传给RecordFormat.create之后可以复用, 现有的RecordFormat都不持有这个数组
+        private final int[] fields = new int[format.fieldCount()];
+
+        CsvSpliterator(long origin, long fence, LineIndex lineIndex, int low, int high) {
+            this.origin = origin;
+            this.fence = fence;
+            this.lineIndex = lineIndex;
+            this.low = low;
+            this.high = high;
+            if (lineIndex != null) {
+                this.origin = lineIndex.offsets[low];
+            }
+        }
+
+        private LineReader reader() throws IOException {
+            if (reader == null) {
+                reader = new LineReader(channel, fileSize, blockSize);
+                reader.seek(origin);
+                if (lineIndex == null && origin > dataStart) {
+                    reader.alignToLineStart();
+                }
+            }
+            return reader;
+        }
+
+        private long end() {
+            return lineIndex == null ? fence : lineIndex.offsets[high];
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            try {
+                LineReader r = reader();
+                long end = end();
+                while (r.position() < end && r.nextLine()) {
+                    if (r.lineLength > 0) {
+                        consumed++;
+                        action.accept(parse(r));
+                        return true;
+                    }
+                }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            try {
+                LineReader r = reader();
+                long end = end();
+                while (r.position() < end && r.nextLine()) {
+                    if (r.lineLength > 0) {
+                        consumed++;
+                        action.accept(parse(r));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private T parse(LineReader r) {
+            byte[] bytes = r.block;
+            int position = r.lineOffset;
+            int end = position + r.lineLength;
+            String name = null;
+            int found = 0;
+            for (int column = 0; column < columns.length; column++) {
+                if (position > end) {
+                    throw new IllegalArgumentException("Too few columns at byte " + r.lineStart + " of " + path);
+                }
+                int role = columns[column];
+                if (role == NAME && position < end && bytes[position] == '"') {
+                    int close = closingQuote(bytes, position + 1, end, r.lineStart);
+                    name = unquote(bytes, position + 1, close);
+                    position = close + 1;
+                    if (position < end && bytes[position] != ',') {
+                        throw new IllegalArgumentException("Unexpected character after quoted name at byte " + r.lineStart + " of " + path);
+                    }
+                    position++;
+                    continue;
+                }
+                int comma = position;
+                while (comma < end && bytes[comma] != ',') {
+                    comma++;
+                }
+                if (role == NAME) {
+                    name = new String(bytes, position, comma - position, StandardCharsets.UTF_8);
+                } else if (role >= 0) {
+                    fields[role] = parseInt(bytes, position, comma);
+                    found++;
+                }
+                position = comma + 1;
+            }
+            if (found != fields.length) {
+                throw new IllegalArgumentException("Too few columns at byte " + r.lineStart + " of " + path);
+            }
+            return format.create(name, fields);
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (reader != null) {
+                // 已经开始读取的部分不再拆分
+                return null;
+            }
+            if (lineIndex != null) {
+                int mid = (low + high) >>> 1;
+                if (mid <= low) {
+                    return null;
+                }
+                CsvSpliterator prefix = new CsvSpliterator(0, 0, lineIndex, low, mid);
+                low = mid;
+                origin = lineIndex.offsets[mid];
+                return prefix;
+            }
+            if (fence - origin < 2 * MIN_SPLIT) {
+                return null;
+            }
+            long mid = origin + (fence - origin) / 2;
+            CsvSpliterator prefix = new CsvSpliterator(origin, mid, null, 0, 0);
+            origin = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            if (lineIndex != null) {
+                return lineIndex.lines[high] - lineIndex.lines[low] - consumed;
+            }
+            // 没有索引时按平均每行16字节粗略估计
+            long remaining = fence - (reader == null ? origin : reader.position());
+            return Math.max(0, remaining / 16);
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = ORDERED | NONNULL | IMMUTABLE;
+            return lineIndex == null ? characteristics : characteristics | SIZED | SUBSIZED;
+        }
+    }
+
+    private int closingQuote(byte[] bytes, int from, int end, long lineStart) {
+        for (int i = from; i < end; i++) {
+            if (bytes[i] == '"') {
+                if (i + 1 < end && bytes[i + 1] == '"') {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unterminated quote at byte " + lineStart + " of " + path);
+    }
+
+    private static String unquote(byte[] bytes, int from, int to) {
+        String text = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        return text.indexOf('"') < 0 ? text : text.replace("\"\"", "\"");
+    }
+}
@@ -0,0 +1,98 @@
+package com.yubin.stream.io;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.stream.User;
+import com.yubin.stream.op.Generators;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+/**
+ * CSV流式读取测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class CsvSourceTest {
+
+    private static final String[] NAMES = {"张三", "李四", "王五", "小红帽", "小绿", "O\"Brien, Jr."};
+
+    @Test
+    public void testStudent() throws Exception {
+        List<Student> list = Generators.indexed(0, 200000, i -> new Student(NAMES[Generators.random(1, 3L * i, NAMES.length)] + i,
+                Generators.random(1, 3L * i + 1, 20), Generators.random(1, 3L * i + 2, 101) - 1)).collect(Collectors.toList());
+        Path path = Files.createTempFile("student", ".csv");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                // 列的顺序与RecordFormat不同, 还有一列多余的列和Windows换行符
+                writer.write("score,name,id,age\r\n");
+                for (int i = 0; i < list.size(); i++) {
+                    Student student = list.get(i);
+                    String name = student.getName().contains(",")
+                            ? '"' + student.getName().replace("\"", "\"\"") + '"' : student.getName();
+                    writer.write(student.getScore() + "," + name + "," + i + ", " + student.getAge() + (i % 2 == 0 ? "\n" : "\r\n"));
+                    if (i % 50000 == 0) {
+                        writer.write("\n");
+                    }
+                }
+            }
+            List<String> expected = list.stream().map(Student::toString).collect(Collectors.toList());
+            // 块很小, 行首索引很密, 用来覆盖跨块、扩容和拆分的各种边界
+            try (CsvSource<Student> source = new CsvSource<>(path, RecordFormat.STUDENT, true, 64, 7)) {
+                Assert.assertEquals(expected, source.stream().map(Student::toString).collect(Collectors.toList()));
+                Assert.assertEquals(expected, source.stream().parallel().map(Student::toString).collect(Collectors.toList()));
+                Assert.assertEquals(list.size(), source.count());
+                Spliterator<Student> spliterator = source.sizedStream().spliterator();
+                Assert.assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+                Assert.assertEquals(list.size(), spliterator.getExactSizeIfKnown());
+                Assert.assertEquals(expected, source.sizedStream().parallel().map(Student::toString).collect(Collectors.toList()));
+            }
+            try (CsvSource<Student> source = new CsvSource<>(path, RecordFormat.STUDENT, true)) {
+                Assert.assertEquals(list.stream().mapToInt(Student::getScore).sum(),
+                        source.stream().parallel().mapToInt(Student::getScore).sum());
+                Assert.assertEquals(source.stream().count(), source.sizedStream().parallel().count());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testUser() throws Exception {
+        Path path = Files.createTempFile("user", ".csv");
+        try {
+            // 没有表头, 最后一行没有换行符
+            Files.write(path, "zhangsan,1\nlisi,-2\n\nwangwu,2147483647".getBytes(StandardCharsets.UTF_8));
+            try (CsvSource<User> source = new CsvSource<>(path, RecordFormat.USER, false)) {
+                source.stream().forEach(System.out::println);
+                Assert.assertEquals(Arrays.asList(1, -2, Integer.MAX_VALUE),
+                        source.sizedStream().map(User::getAge).collect(Collectors.toList()));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testParseInt() {
+        byte[] bytes = " -2147483648,+15,99999999999,1a".getBytes(StandardCharsets.US_ASCII);
+        Assert.assertEquals(Integer.MIN_VALUE, CsvSource.parseInt(bytes, 0, 12));
+        Assert.assertEquals(15, CsvSource.parseInt(bytes, 13, 16));
+        for (int[] range : new int[][]{{17, 28}, {29, 31}, {12, 12}}) {
+            try {
+                CsvSource.parseInt(bytes, range[0], range[1]);
+                Assert.fail();
+            } catch (NumberFormatException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.yubin.stream.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 按块读取文件并切分行, 每次读取blockSize字节到同一个byte[]中, 行跨块时从行首重新读取一块
+ * 行尾的\r会被去掉; 使用FileChannel的定位读, 多个LineReader可以并发读取同一个FileChannel
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+final class LineReader {
+
+    private final FileChannel channel;
+
+    private final long fileSize;
+
+    byte[] block;
+
+    // block[0]在文件中的位置
+    private long blockStart;
+
+    private int blockLength;
+
+    // 下一行的行首
+    private long position;
+
+    // 当前行在文件中的位置, 以及在block中的偏移和长度
+    long lineStart;
+
+    int lineOffset;
+
+    int lineLength;
+
+    LineReader(FileChannel channel, long fileSize, int blockSize) {
+        this.channel = channel;
+        this.fileSize = fileSize;
+        this.block = new byte[blockSize];
+    }
+
+    void seek(long position) {
+        this.position = position;
+    }
+
+    long position() {
+        return position;
+    }
+
+    /**
+     * 把position移动到不小于position的第一个行首, 即position - 1处或之后的第一个换行符的下一个字节
+     */
+    void alignToLineStart() throws IOException {
+        if (position == 0) {
+            return;
+        }
+        long p = position - 1;
+        while (p < fileSize) {
+            if (p < blockStart || p >= blockStart + blockLength) {
+                fill(p);
+            }
+            for (int i = (int) (p - blockStart); i < blockLength; i++) {
+                if (block[i] == '\n') {
+                    position = blockStart + i + 1;
+                    return;
+                }
+            }
+            p = blockStart + blockLength;
+        }
+        position = fileSize;
+    }
+
+    /**
+     * 读取从position开始的一行, 已经到文件末尾时返回false
+     */
+    boolean nextLine() throws IOException {
+        if (position >= fileSize) {
+            return false;
+        }
+        if (position < blockStart || position >= blockStart + blockLength) {
+            fill(position);
+        }
+        int offset = (int) (position - blockStart);
+        int end = indexOfNewline(offset);
+        while (end < 0 && blockStart + blockLength < fileSize) {
+            // 行跨越了块的末尾, 从行首重新读, 一块放不下这一行时把块加大一倍
+            if (offset == 0) {
+                if (block.length >= Integer.MAX_VALUE / 2) {
+                    throw new IOException("Line too long at " + position);
+                }
+                byte[] larger = new byte[block.length * 2];
+                System.arraycopy(block, 0, larger, 0, blockLength);
+                block = larger;
+                fill(blockStart + blockLength, blockLength);
+            } else {
+                fill(position);
+                offset = 0;
+            }
+            end = indexOfNewline(offset);
+        }
+        int lineEnd = end < 0 ? blockLength : end;
+        lineStart = position;
+        lineOffset = offset;
+        lineLength = lineEnd - offset;
+        if (lineLength > 0 && block[lineEnd - 1] == '\r') {
+            lineLength--;
+        }
+        position = blockStart + lineEnd + 1;
+        return true;
+    }
+
+    private int indexOfNewline(int from) {
+        byte[] b = block;
+        for (int i = from; i < blockLength; i++) {
+            if (b[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void fill(long from) throws IOException {
+        blockStart = from;
+        blockLength = 0;
+        fill(from, 0);
+    }
+
+    // 从文件的from处读取到block[offset]开始的位置, 直到block满或者文件结束
+    private void fill(long from, int offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(block, offset, block.length - offset);
+        long filePosition = from;
+        while (buffer.hasRemaining() && filePosition < fileSize) {
+            int read = channel.read(buffer, filePosition);
+            if (read < 0) {
+                break;
+            }
+            filePosition += read;
+        }
+        blockLength = buffer.position();
+    }
+}
@@ -0,0 +1,273 @@
+package com.yubin.stream.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基于FileChannel.map的定长二进制记录文件读取类
+ * 打开文件时只读取文件头, 记录按需从映射的内存中解码, 不需要先把整个文件反序列化到堆上
+ * 单个MappedByteBuffer最大2GB, 所以按段映射:
+ * 记录区每段包含整数条记录, 字符串区每段额外多映射maxNameLength个字节, 保证任何一个名字都能在一段内读完
+ * 映射的内存在MappedRecordFile被GC回收后才会释放
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class MappedRecordFile<T> implements Closeable {
+
+    private static final long DEFAULT_SEGMENT_SIZE = 1L << 30;
+
+    private final RecordFormat<T> format;
+
+    private final FileChannel channel;
+
+    private final int recordSize;
+
+    private final long count;
+
+    private final long recordsPerSegment;
+
+    private final long heapSegmentSize;
+
+    private final MappedByteBuffer[] recordSegments;
+
+    private final MappedByteBuffer[] heapSegments;
+
+    public MappedRecordFile(Path path, RecordFormat<T> format) throws IOException {
+        this(path, format, DEFAULT_SEGMENT_SIZE);
+    }
+
+    MappedRecordFile(Path path, RecordFormat<T> format, long segmentSize) throws IOException {
+        this.format = format;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, RecordFileWriter.HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != RecordFileWriter.MAGIC || header.getInt(4) != RecordFileWriter.VERSION) {
+                throw new IOException("Not a record file: " + path);
+            }
+            if (header.getInt(8) != format.type() || header.getInt(12) != format.recordSize()) {
+                throw new IOException("Record type mismatch: " + path);
+            }
+            this.recordSize = format.recordSize();
+            this.count = header.getLong(16);
+            long heapOffset = header.getLong(24);
+            long heapLength = header.getLong(32);
+            int maxNameLength = header.getInt(40);
+
+            this.recordsPerSegment = Math.max(1, segmentSize / recordSize);
+            int recordSegmentCount = (int) ((count + recordsPerSegment - 1) / recordsPerSegment);
+            this.recordSegments = new MappedByteBuffer[recordSegmentCount];
+            for (int i = 0; i < recordSegmentCount; i++) {
+                long first = i * recordsPerSegment;
+                long records = Math.min(recordsPerSegment, count - first);
+                recordSegments[i] = map(RecordFileWriter.HEADER_SIZE + first * recordSize, records * recordSize);
+            }
+
+            this.heapSegmentSize = segmentSize;
+            int heapSegmentCount = (int) ((heapLength + segmentSize - 1) / segmentSize);
+            this.heapSegments = new MappedByteBuffer[heapSegmentCount];
+            for (int i = 0; i < heapSegmentCount; i++) {
+                long start = i * segmentSize;
+                long length = Math.min(segmentSize + maxNameLength, heapLength - start);
+                heapSegments[i] = map(heapOffset + start, length);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private MappedByteBuffer map(long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    public RecordFormat<T> getFormat() {
+        return format;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    /**
+     * 读取第index条记录的第field个int字段, 不创建任何对象
+     */
+    public int getInt(long index, int field) {
+        checkIndex(index);
+        return recordSegments[(int) (index / recordsPerSegment)]
+                .getInt((int) (index % recordsPerSegment) * recordSize + field * 4);
+    }
+
+    /**
+     * 名字的UTF-8字节数, -1表示名字为null
+     */
+    public int getNameLength(long index) {
+        checkIndex(index);
+        return recordSegments[(int) (index / recordsPerSegment)]
+                .getInt((int) (index % recordsPerSegment) * recordSize + format.fieldCount() * 4);
+    }
+
+    public String getName(long index) {
+        int length = getNameLength(index);
+        if (length < 0) {
+            return null;
+        }
+        long offset = recordSegments[(int) (index / recordsPerSegment)]
+                .getLong((int) (index % recordsPerSegment) * recordSize + format.fieldCount() * 4 + 4);
+        MappedByteBuffer segment = heapSegments[(int) (offset / heapSegmentSize)];
+        int position = (int) (offset % heapSegmentSize);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = segment.get(position + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解码第index条记录
+     */
+    public T get(long index) {
+        int[] fields = new int[format.fieldCount()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = getInt(index, i);
+        }
+        return format.create(getName(index), fields);
+    }
+
+    /**
+     * 所有记录组成的流, 元素在遍历时才解码, 并行时按记录下标拆分
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(new RecordSpliterator(0, count), false);
+    }
+
+    /**
+     * 某一个int字段组成的流, 直接从映射内存中读取, 不创建记录对象
+     */
+    public IntStream column(String fieldName) {
+        return column(format.fieldIndex(fieldName));
+    }
+
+    public IntStream column(int field) {
+        if (field < 0 || field >= format.fieldCount()) {
+            throw new IllegalArgumentException("Unknown field index: " + field);
+        }
+        return StreamSupport.intStream(new ColumnSpliterator(field, 0, count), false);
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // 按记录下标区间[origin, fence)拆分的Spliterator
+    private abstract static class RangeSpliterator {
+
+        long origin;
+
+        final long fence;
+
+        RangeSpliterator(long origin, long fence) {
+            this.origin = origin;
+            this.fence = fence;
+        }
+
+        // 拆出前一半, 返回拆分点, 剩余的太少时返回-1
+        long splitPoint() {
+            long remaining = fence - origin;
+            return remaining < 2 ? -1 : origin + (remaining >>> 1);
+        }
+
+        public long estimateSize() {
+            return fence - origin;
+        }
+    }
+
+    private class RecordSpliterator extends RangeSpliterator implements Spliterator<T> {
+
+        RecordSpliterator(long origin, long fence) {
+            super(origin, fence);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (origin < fence) {
+                action.accept(get(origin++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            long mid = splitPoint();
+            if (mid < 0) {
+                return null;
+            }
+            Spliterator<T> prefix = new RecordSpliterator(origin, mid);
+            origin = mid;
+            return prefix;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+    }
+
+    private class ColumnSpliterator extends RangeSpliterator implements Spliterator.OfInt {
+
+        private final int field;
+
+        ColumnSpliterator(int field, long origin, long fence) {
+            super(origin, fence);
+            this.field = field;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (origin < fence) {
+                action.accept(getInt(origin++, field));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            long mid = splitPoint();
+            if (mid < 0) {
+                return null;
+            }
+            Spliterator.OfInt prefix = new ColumnSpliterator(field, origin, mid);
+            origin = mid;
+            return prefix;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.yubin.stream.io;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.stream.User;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * 内存映射二进制文件测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class MappedRecordFileTest {
+
+    @Test
+    public void testStudent() throws Exception {
+        String[] names = {"张三", "李四", "王五", "小红帽", "小绿"};
+        Random random = new Random(42);
+        List<Student> list = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            list.add(new Student(names[random.nextInt(names.length)] + (i % 100), 10 + random.nextInt(10), random.nextInt(101)));
+        }
+        list.add(new Student(null, 20, 100));
+        Path path = Files.createTempFile("student", ".bin");
+        try {
+            try (RecordFileWriter<Student> writer = new RecordFileWriter<>(path, RecordFormat.STUDENT)) {
+                writer.writeAll(list);
+            }
+            System.out.println("文件大小: " + Files.size(path));
+            // 段大小故意设置得很小, 验证跨段读取
+            try (MappedRecordFile<Student> file = new MappedRecordFile<>(path, RecordFormat.STUDENT, 1000)) {
+                Assert.assertEquals(list.size(), file.size());
+                Assert.assertEquals(list.toString(), file.stream().collect(Collectors.toList()).toString());
+                Assert.assertEquals(list.toString(), file.stream().parallel().collect(Collectors.toList()).toString());
+                Assert.assertEquals(list.stream().mapToInt(Student::getScore).sum(), file.column("score").parallel().sum());
+                Assert.assertEquals(list.stream().filter(s -> s.getAge() > 16).count(),
+                        file.stream().parallel().filter(s -> s.getAge() > 16).count());
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testUser() throws Exception {
+        List<User> list = Arrays.asList(new User("zhangsan", 1), new User("lisi", 2), new User("zhangsan", 3));
+        Path path = Files.createTempFile("user", ".bin");
+        try {
+            try (RecordFileWriter<User> writer = new RecordFileWriter<>(path, RecordFormat.USER)) {
+                writer.writeAll(list);
+            }
+            try (MappedRecordFile<User> file = new MappedRecordFile<>(path, RecordFormat.USER)) {
+                List<User> users = file.stream().collect(Collectors.toList());
+                users.forEach(System.out::println);
+                Assert.assertEquals(list.size(), file.size());
+                Assert.assertEquals(list.toString(), users.toString());
+                // 重复的名字"zhangsan"在字符串区只保存一次, 两条记录都能读回来
+                Assert.assertEquals(Arrays.asList("zhangsan", "lisi", "zhangsan"),
+                        users.stream().map(User::getName).collect(Collectors.toList()));
+                Assert.assertEquals(2.0, file.column("age").average().getAsDouble(), 0.0);
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
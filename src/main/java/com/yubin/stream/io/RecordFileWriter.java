@@ -0,0 +1,162 @@
+package com.yubin.stream.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 定长二进制记录文件的写入类
+ * 文件结构: [64字节文件头][定长记录区][字符串区]
+ * 记录区直接顺序写入目标文件, 字符串区先写到临时文件, close()时追加到记录区后面并回填文件头
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class RecordFileWriter<T> implements Closeable {
+
+    static final int MAGIC = 0x46534259;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 64;
+
+    // 字符串去重表的最大条目数, 超过之后新名字不再去重, 避免名字都不相同时占用过多内存
+    private static final int MAX_DEDUP_ENTRIES = 1 << 20;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final RecordFormat<T> format;
+
+    private final Path heapPath;
+
+    private final FileChannel records;
+
+    private final FileChannel heap;
+
+    private final ByteBuffer recordBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private final ByteBuffer heapBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private final Map<String, Long> offsets = new HashMap<>();
+
+    private long count;
+
+    private long heapLength;
+
+    private int maxNameLength;
+
+    private boolean closed;
+
+    public RecordFileWriter(Path path, RecordFormat<T> format) throws IOException {
+        this.format = format;
+        this.records = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        Path dir = path.toAbsolutePath().getParent();
+        this.heapPath = Files.createTempFile(dir, path.getFileName().toString(), ".heap");
+        this.heap = FileChannel.open(heapPath, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        records.position(HEADER_SIZE);
+    }
+
+    public void write(T t) throws IOException {
+        String name = format.name(t);
+        int nameLength = 0;
+        long nameOffset = 0;
+        if (name != null) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            nameLength = bytes.length;
+            Long offset = offsets.get(name);
+            if (offset == null) {
+                offset = appendHeap(bytes);
+                if (offsets.size() < MAX_DEDUP_ENTRIES) {
+                    offsets.put(name, offset);
+                }
+            }
+            nameOffset = offset;
+        } else {
+            // 长度-1表示名字为null
+            nameLength = -1;
+        }
+        if (recordBuffer.remaining() < format.recordSize()) {
+            flush(recordBuffer, records);
+        }
+        for (int i = 0; i < format.fieldCount(); i++) {
+            recordBuffer.putInt(format.field(t, i));
+        }
+        recordBuffer.putInt(nameLength);
+        recordBuffer.putLong(nameOffset);
+        count++;
+    }
+
+    public void writeAll(Iterable<? extends T> items) throws IOException {
+        for (T t : items) {
+            write(t);
+        }
+    }
+
+    private long appendHeap(byte[] bytes) throws IOException {
+        long offset = heapLength;
+        int written = 0;
+        while (written < bytes.length) {
+            if (!heapBuffer.hasRemaining()) {
+                flush(heapBuffer, heap);
+            }
+            int n = Math.min(heapBuffer.remaining(), bytes.length - written);
+            heapBuffer.put(bytes, written, n);
+            written += n;
+        }
+        heapLength += bytes.length;
+        maxNameLength = Math.max(maxNameLength, bytes.length);
+        return offset;
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush(recordBuffer, records);
+            flush(heapBuffer, heap);
+            long heapOffset = HEADER_SIZE + count * format.recordSize();
+            long transferred = 0;
+            while (transferred < heapLength) {
+                transferred += heap.transferTo(transferred, heapLength - transferred, records);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(format.type())
+                    .putInt(format.recordSize())
+                    .putLong(count)
+                    .putLong(heapOffset)
+                    .putLong(heapLength)
+                    .putInt(maxNameLength);
+            header.clear();
+            records.write(header, 0);
+        } finally {
+            try {
+                records.close();
+                heap.close();
+            } finally {
+                Files.deleteIfExists(heapPath);
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.yubin.stream.io;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.lambda.functionref.Accessors;
+import com.yubin.lambda.functionref.ClassAccessors;
+import com.yubin.stream.User;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * 定长二进制记录格式
+ * 每条记录: [int字段 * fieldCount][int 名字字节数][long 名字在字符串区中的偏移], 小端字节序
+ * 名字统一以UTF-8保存在文件末尾的字符串区, 相同的名字只保存一份
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public abstract class RecordFormat<T> {
+
+    public static final RecordFormat<Student> STUDENT = new RecordFormat<Student>(1, "age", "score") {
+        @Override
+        public String name(Student student) {
+            return student.getName();
+        }
+
+        @Override
+        public int field(Student student, int index) {
+            return index == 0 ? student.getAge() : student.getScore();
+        }
+
+        @Override
+        public Student create(String name, int[] fields) {
+            return new Student(name, fields[0], fields[1]);
+        }
+    };
+
+    public static final RecordFormat<User> USER = new RecordFormat<User>(2, "age") {
+        @Override
+        public String name(User user) {
+            return user.getName();
+        }
+
+        @Override
+        public int field(User user, int index) {
+            return user.getAge();
+        }
+
+        @Override
+        public User create(String name, int[] fields) {
+            return new User(name, fields[0]);
+        }
+    };
+
+    /**
+     * 任意JavaBean的记录格式: String类型的name属性, 加上fieldNames指定的int类型属性
+     * 需要无参构造方法和对应的setter, 属性访问器由Accessors生成, 读写与直接调用getter/setter一样快
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> RecordFormat<T> of(Class<T> beanType, int type, String... fieldNames) {
+        ClassAccessors<T> accessors = Accessors.of(beanType);
+        Supplier<T> constructor = accessors.constructor();
+        Function<T, String> nameGetter = accessors.getter("name", String.class);
+        BiConsumer<T, String> nameSetter = accessors.setter("name", String.class);
+        ToIntFunction<T>[] getters = new ToIntFunction[fieldNames.length];
+        ObjIntConsumer<T>[] setters = new ObjIntConsumer[fieldNames.length];
+        for (int i = 0; i < fieldNames.length; i++) {
+            getters[i] = accessors.intGetter(fieldNames[i]);
+            setters[i] = accessors.intSetter(fieldNames[i]);
+        }
+        return new RecordFormat<T>(type, fieldNames.clone()) {
+            @Override
+            public String name(T t) {
+                return nameGetter.apply(t);
+            }
+
+            @Override
+            public int field(T t, int index) {
+                return getters[index].applyAsInt(t);
+            }
+
+            @Override
+            public T create(String name, int[] fields) {
+                T t = constructor.get();
+                nameSetter.accept(t, name);
+                for (int i = 0; i < setters.length; i++) {
+                    setters[i].accept(t, fields[i]);
+                }
+                return t;
+            }
+        };
+    }
+
+    private final int type;
+
+    private final String[] fieldNames;
+
+    private RecordFormat(int type, String... fieldNames) {
+        this.type = type;
+        this.fieldNames = fieldNames;
+    }
+
+    public int type() {
+        return type;
+    }
+
+    public int fieldCount() {
+        return fieldNames.length;
+    }
+
+    /**
+     * 每条记录的字节数
+     */
+    public int recordSize() {
+        return fieldNames.length * 4 + 4 + 8;
+    }
+
+    /**
+     * 估算一条记录在堆中占用的字节数: 对象头和int字段、数组中的引用、名字的String和char[]
+     * 用于按内存预算决定什么时候溢出到磁盘
+     */
+    public long estimateHeapSize(T t) {
+        String name = name(t);
+        long size = 16 + 8 + 4L * fieldNames.length;
+        return name == null ? size : size + 24 + 16 + 2L * name.length();
+    }
+
+    public String fieldName(int index) {
+        return fieldNames[index];
+    }
+
+    /**
+     * 字段在记录中的下标
+     */
+    public int fieldIndex(String fieldName) {
+        for (int i = 0; i < fieldNames.length; i++) {
+            if (fieldNames[i].equals(fieldName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field: " + fieldName);
+    }
+
+    public abstract String name(T t);
+
+    public abstract int field(T t, int index);
+
+    public abstract T create(String name, int[] fields);
+}
@@ -0,0 +1,98 @@
+package com.yubin.stream.io;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 顺序读取SpillWriter写出的文件, 用固定大小的缓冲区分块读取, 每个打开的文件只占一个缓冲区的内存
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class SpillReader<T> implements Closeable {
+
+    private final RecordFormat<T> format;
+
+    private final FileChannel channel;
+
+    private final int[] fields;
+
+    private ByteBuffer buffer;
+
+    private long remaining;
+
+    public SpillReader(Path path, RecordFormat<T> format, long count, int bufferSize) throws IOException {
+        this.format = format;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fields = new int[format.fieldCount()];
+        this.remaining = count;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        buffer.limit(0);
+    }
+
+    /**
+     * 读取下一条记录, 读完时返回null
+     */
+    public T next() throws IOException {
+        if (remaining == 0) {
+            return null;
+        }
+        remaining--;
+        int length = readVarint() - 1;
+        String name = null;
+        if (length >= 0) {
+            ensure(length);
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+        }
+        for (int i = 0; i < fields.length; i++) {
+            int value = readVarint();
+            fields[i] = (value >>> 1) ^ -(value & 1);
+        }
+        return format.create(name, fields);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            ensure(1);
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    // 保证缓冲区中至少有bytes个未读字节
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        if (buffer.capacity() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(bytes);
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Truncated run file");
+            }
+        }
+        buffer.flip();
+    }
+}
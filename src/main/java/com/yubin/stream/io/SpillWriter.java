@@ -0,0 +1,95 @@
+package com.yubin.stream.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 把溢出到磁盘的记录顺序写到临时文件(外部排序的有序段、哈希连接的分区)
+ * 每条记录: [varint 名字字节数+1][名字UTF-8][zigzag varint字段 * fieldCount]
+ * 名字为null时长度写0; 小的int只占1~2个字节, 学生记录通常只有十几个字节
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class SpillWriter<T> implements Closeable {
+
+    // varint最多5个字节
+    private static final int MAX_VARINT = 5;
+
+    private final RecordFormat<T> format;
+
+    private final FileChannel channel;
+
+    private ByteBuffer buffer;
+
+    private long count;
+
+    public SpillWriter(Path path, RecordFormat<T> format, int bufferSize) throws IOException {
+        this.format = format;
+        this.channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public void write(T t) throws IOException {
+        String name = format.name(t);
+        byte[] nameBytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+        int fieldCount = format.fieldCount();
+        ensure(MAX_VARINT * (fieldCount + 1) + (nameBytes == null ? 0 : nameBytes.length));
+        if (nameBytes == null) {
+            buffer.put((byte) 0);
+        } else {
+            putVarint(buffer, nameBytes.length + 1);
+            buffer.put(nameBytes);
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            int value = format.field(t, i);
+            putVarint(buffer, (value << 1) ^ (value >> 31));
+        }
+        count++;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        flush();
+        if (buffer.capacity() < bytes) {
+            // 超长的名字
+            buffer = ByteBuffer.allocateDirect(bytes);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
@@ -0,0 +1,353 @@
+package com.yubin.stream.join;
+
+import com.yubin.stream.io.RecordFormat;
+import com.yubin.stream.io.SpillReader;
+import com.yubin.stream.io.SpillWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 两个流之间的哈希连接, 代替嵌套的filter/anyMatch, 复杂度从O(n * m)降到O(n + m)
+ * 1. 建表端是估计大小较小的一边, 名字用NameDictionary编码, 哈希表中只有long类型的key和int类型的行号(JoinTable)
+ * 2. 探测端的名字不在字典中时直接跳过, 不需要查哈希表; 探测是并行流, 返回的流也是并行的
+ * 3. 有RecordFormat和内存预算时, 建表端估计的内存占用超过预算后, 两边都按键的哈希值分区写到临时文件,
+ *    再逐个分区建表和探测(Grace哈希连接), 同时只有一个分区的建表端在内存中, 这时探测按分区顺序进行
+ * 左边是建表端时, LEFT连接的匹配结果、SEMI/ANTI连接的探测会在调用时执行, 之后再输出没有(或有)匹配的左边记录;
+ * 其余情况的探测都是惰性的. 输出的顺序不保证与输入相同
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class HashJoin<L, R> {
+
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+    private static final int DEFAULT_PARTITIONS = 32;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final JoinKey<L> leftKey;
+
+    private final JoinKey<R> rightKey;
+
+    private final RecordFormat<L> leftFormat;
+
+    private final RecordFormat<R> rightFormat;
+
+    private final long memoryBudget;
+
+    private final Path tempDir;
+
+    private final int partitions;
+
+    /**
+     * 只在内存中连接
+     */
+    public HashJoin(JoinKey<L> leftKey, JoinKey<R> rightKey) {
+        this(leftKey, null, rightKey, null, Long.MAX_VALUE, null, DEFAULT_PARTITIONS);
+    }
+
+    public HashJoin(JoinKey<L> leftKey, RecordFormat<L> leftFormat, JoinKey<R> rightKey, RecordFormat<R> rightFormat,
+                    long memoryBudget) {
+        this(leftKey, leftFormat, rightKey, rightFormat, memoryBudget, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    public HashJoin(JoinKey<L> leftKey, RecordFormat<L> leftFormat, JoinKey<R> rightKey, RecordFormat<R> rightFormat,
+                    long memoryBudget, Path tempDir) {
+        this(leftKey, leftFormat, rightKey, rightFormat, memoryBudget, tempDir, DEFAULT_PARTITIONS);
+    }
+
+    HashJoin(JoinKey<L> leftKey, RecordFormat<L> leftFormat, JoinKey<R> rightKey, RecordFormat<R> rightFormat,
+             long memoryBudget, Path tempDir, int partitions) {
+        if (leftKey.hasNumber() != rightKey.hasNumber()) {
+            throw new IllegalArgumentException("Join keys must have the same shape");
+        }
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("memoryBudget must be positive: " + memoryBudget);
+        }
+        this.leftKey = leftKey;
+        this.rightKey = rightKey;
+        this.leftFormat = leftFormat;
+        this.rightFormat = rightFormat;
+        this.memoryBudget = memoryBudget;
+        this.tempDir = tempDir;
+        this.partitions = partitions;
+    }
+
+    public Stream<Joined<L, R>> inner(Stream<L> left, Stream<R> right) {
+        return inner(left, right, Joined::new);
+    }
+
+    public <O> Stream<O> inner(Stream<L> left, Stream<R> right, BiFunction<? super L, ? super R, ? extends O> combiner) {
+        return join(JoinType.INNER, left, right, combiner);
+    }
+
+    public Stream<Joined<L, R>> left(Stream<L> left, Stream<R> right) {
+        return left(left, right, Joined::new);
+    }
+
+    /**
+     * 左连接, 没有匹配时combiner的第二个参数为null
+     */
+    public <O> Stream<O> left(Stream<L> left, Stream<R> right, BiFunction<? super L, ? super R, ? extends O> combiner) {
+        return join(JoinType.LEFT, left, right, combiner);
+    }
+
+    public Stream<L> semi(Stream<L> left, Stream<R> right) {
+        return join(JoinType.SEMI, left, right, (l, r) -> l);
+    }
+
+    public Stream<L> anti(Stream<L> left, Stream<R> right) {
+        return join(JoinType.ANTI, left, right, (l, r) -> l);
+    }
+
+    private <O> Stream<O> join(JoinType type, Stream<L> left, Stream<R> right,
+                               BiFunction<? super L, ? super R, ? extends O> combiner) {
+        Spliterator<L> leftSource = left.spliterator();
+        Spliterator<R> rightSource = right.spliterator();
+        Stream<O> result;
+        try {
+            if (leftSource.estimateSize() < rightSource.estimateSize()) {
+                result = build(leftSource, leftFormat, leftKey, rightSource, rightFormat, rightKey,
+                        (table, probe) -> probeRight(type, table, probe, combiner));
+            } else {
+                result = build(rightSource, rightFormat, rightKey, leftSource, leftFormat, leftKey,
+                        (table, probe) -> probeLeft(type, table, probe, combiner));
+            }
+        } catch (RuntimeException | Error e) {
+            left.close();
+            right.close();
+            throw e;
+        }
+        return result.onClose(left::close).onClose(right::close);
+    }
+
+    /**
+     * 读入建表端, 没有超过预算时在内存中连接, 否则两边都分区写到磁盘
+     */
+    private <B, P, O> Stream<O> build(Spliterator<B> buildSource, RecordFormat<B> buildFormat, JoinKey<B> buildKey,
+                                      Spliterator<P> probeSource, RecordFormat<P> probeFormat, JoinKey<P> probeKey,
+                                      BiFunction<JoinTable<B>, Stream<P>, Stream<O>> joiner) {
+        boolean canSpill = buildFormat != null && probeFormat != null;
+        List<B> rows = new ArrayList<>();
+        long[] bytes = new long[1];
+        Consumer<B> collector = canSpill ? b -> {
+            rows.add(b);
+            bytes[0] += buildFormat.estimateHeapSize(b);
+        } : rows::add;
+        while (bytes[0] <= memoryBudget && buildSource.tryAdvance(collector)) {
+            // 读到超出预算或者读完为止
+        }
+        if (bytes[0] <= memoryBudget) {
+            JoinTable<B> table = new JoinTable<>(rows, buildKey);
+            return joiner.apply(table, StreamSupport.stream(probeSource, true));
+        }
+        Partitions<B> buildParts = new Partitions<>(buildFormat, buildKey);
+        Partitions<P> probeParts = new Partitions<>(probeFormat, probeKey);
+        try {
+            buildParts.write(rows, buildSource);
+            rows.clear();
+            probeParts.write(Collections.emptyList(), probeSource);
+        } catch (IOException e) {
+            buildParts.deleteAll();
+            probeParts.deleteAll();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException | Error e) {
+            buildParts.deleteAll();
+            probeParts.deleteAll();
+            throw e;
+        }
+        return IntStream.range(0, partitions).boxed()
+                .flatMap(i -> {
+                    JoinTable<B> table = new JoinTable<>(buildParts.read(i), buildKey);
+                    buildParts.delete(i);
+                    Stream<P> probe = probeParts.stream(i);
+                    return joiner.apply(table, probe).onClose(probe::close).onClose(() -> probeParts.delete(i));
+                })
+                .onClose(buildParts::deleteAll)
+                .onClose(probeParts::deleteAll);
+    }
+
+    // 右边建表, 左边探测: 全部惰性执行
+    private <O> Stream<O> probeLeft(JoinType type, JoinTable<R> table, Stream<L> probe,
+                                    BiFunction<? super L, ? super R, ? extends O> combiner) {
+        switch (type) {
+            case INNER:
+                return probe.flatMap(l -> {
+                    int first = table.first(l, leftKey);
+                    return first < 0 ? Stream.empty() : table.matches(first).map(r -> combiner.apply(l, r));
+                });
+            case LEFT:
+                return probe.flatMap(l -> {
+                    int first = table.first(l, leftKey);
+                    return first < 0 ? Stream.of(combiner.apply(l, null)) : table.matches(first).map(r -> combiner.apply(l, r));
+                });
+            case SEMI:
+                return probe.filter(l -> table.first(l, leftKey) >= 0).map(l -> combiner.apply(l, null));
+            default:
+                return probe.filter(l -> table.first(l, leftKey) < 0).map(l -> combiner.apply(l, null));
+        }
+    }
+
+    // 左边建表, 右边探测: 除了INNER, 都要等探测结束后才知道哪些左边记录被匹配过
+    private <O> Stream<O> probeRight(JoinType type, JoinTable<L> table, Stream<R> probe,
+                                     BiFunction<? super L, ? super R, ? extends O> combiner) {
+        switch (type) {
+            case INNER:
+                return probe.flatMap(r -> {
+                    int first = table.first(r, rightKey);
+                    return first < 0 ? Stream.empty() : table.matches(first).map(l -> combiner.apply(l, r));
+                });
+            case LEFT:
+                List<O> pairs = probe.flatMap(r -> {
+                    int first = table.first(r, rightKey);
+                    return first < 0 ? Stream.<O>empty() : table.matches(first).map(l -> combiner.apply(l, r));
+                }).collect(Collectors.toList());
+                return Stream.concat(pairs.stream(), table.rows(false).map(l -> combiner.apply(l, null)));
+            default:
+                probe.forEach(r -> {
+                    int first = table.first(r, rightKey);
+                    if (first >= 0) {
+                        table.markMatched(first);
+                    }
+                });
+                return table.rows(type == JoinType.SEMI).map(l -> combiner.apply(l, null));
+        }
+    }
+
+    /**
+     * 一边按键的哈希值分区后的临时文件
+     */
+    private final class Partitions<T> {
+
+        private final RecordFormat<T> format;
+
+        private final JoinKey<T> key;
+
+        private final Path[] paths = new Path[partitions];
+
+        private final long[] counts = new long[partitions];
+
+        private Partitions(RecordFormat<T> format, JoinKey<T> key) {
+            this.format = format;
+            this.key = key;
+        }
+
+        private void write(List<T> buffered, Spliterator<T> rest) throws IOException {
+            List<SpillWriter<T>> writers = new ArrayList<>(partitions);
+            try {
+                for (int i = 0; i < partitions; i++) {
+                    paths[i] = Files.createTempFile(tempDir, "join-part-", ".bin");
+                    writers.add(new SpillWriter<>(paths[i], format, BUFFER_SIZE));
+                }
+                for (T t : buffered) {
+                    writers.get(partition(t)).write(t);
+                }
+                IOException[] failure = new IOException[1];
+                rest.forEachRemaining(t -> {
+                    if (failure[0] == null) {
+                        try {
+                            writers.get(partition(t)).write(t);
+                        } catch (IOException e) {
+                            failure[0] = e;
+                        }
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+            } finally {
+                for (int i = 0; i < writers.size(); i++) {
+                    counts[i] = writers.get(i).count();
+                    writers.get(i).close();
+                }
+            }
+        }
+
+        // 两边用同样的哈希函数, 相同的键落在编号相同的分区
+        private int partition(T t) {
+            int h = key.hash(t);
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            return (h & Integer.MAX_VALUE) % partitions;
+        }
+
+        private List<T> read(int partition) {
+            List<T> rows = new ArrayList<>((int) counts[partition]);
+            try (SpillReader<T> reader = new SpillReader<>(paths[partition], format, counts[partition], BUFFER_SIZE)) {
+                for (T t = reader.next(); t != null; t = reader.next()) {
+                    rows.add(t);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return rows;
+        }
+
+        // 惰性读取一个分区, 流关闭时关闭文件
+        private Stream<T> stream(int partition) {
+            SpillReader<T> reader;
+            try {
+                reader = new SpillReader<>(paths[partition], format, counts[partition], BUFFER_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(counts[partition], Spliterator.ORDERED) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    T t;
+                    try {
+                        t = reader.next();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (t == null) {
+                        return false;
+                    }
+                    action.accept(t);
+                    return true;
+                }
+            };
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+
+        private void delete(int partition) {
+            if (paths[partition] == null) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(paths[partition]);
+            } catch (IOException ignored) {
+                // 临时目录中的文件, 删除失败不影响结果
+            }
+        }
+
+        private void deleteAll() {
+            for (int i = 0; i < partitions; i++) {
+                delete(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.yubin.stream.join;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.stream.User;
+import com.yubin.stream.io.RecordFormat;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 哈希连接测试类, 结果与嵌套的filter/anyMatch比较
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class HashJoinTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testJoinByName() {
+        List<Student> students = Arrays.asList(new Student("zhangsan", 10, 90), new Student("lisi", 12, 80),
+                new Student("wangwu", 11, 70), new Student(null, 13, 60));
+        List<User> users = Arrays.asList(new User("zhangsan", 10), new User("zhangsan", 20), new User("lisi", 12),
+                new User("zhaoliu", 11), new User(null, 13));
+        HashJoin<Student, User> join = StudentJoins.byName();
+        join.inner(students.stream(), users.stream()).forEach(System.out::println);
+        Assert.assertEquals(3, join.inner(students.stream(), users.stream()).count());
+        Assert.assertEquals(5, join.left(students.stream(), users.stream()).count());
+        Assert.assertEquals(Arrays.asList("lisi", "zhangsan"),
+                join.semi(students.stream(), users.stream()).map(Student::getName).sorted().collect(Collectors.toList()));
+        // 名字为null的学生没有匹配
+        Assert.assertEquals(Arrays.asList("null", "wangwu"),
+                join.anti(students.stream(), users.stream()).map(s -> String.valueOf(s.getName())).sorted().collect(Collectors.toList()));
+        Assert.assertEquals(2, StudentJoins.byNameAndAge().inner(students.stream(), users.stream()).count());
+    }
+
+    @Test
+    public void testCompareWithNestedLoop() {
+        // 分别让左边和右边作为建表端
+        check(students(3000, 1), users(500, 2), StudentJoins.byName(), false);
+        check(students(500, 3), users(3000, 4), StudentJoins.byName(), false);
+        check(students(3000, 5), users(500, 6), StudentJoins.byNameAndAge(), true);
+        check(students(500, 7), users(3000, 8), StudentJoins.byNameAndAge(), true);
+    }
+
+    @Test
+    public void testSpillToDisk() throws IOException {
+        Path dir = folder.newFolder().toPath();
+        // 预算16KB, 建表端只能放下大约100条记录, 分成8个分区
+        HashJoin<Student, User> byName = new HashJoin<>(StudentJoins.STUDENT_NAME, RecordFormat.STUDENT,
+                StudentJoins.USER_NAME, RecordFormat.USER, 16 << 10, dir, 8);
+        HashJoin<Student, User> byNameAndAge = new HashJoin<>(StudentJoins.STUDENT_NAME_AGE, RecordFormat.STUDENT,
+                StudentJoins.USER_NAME_AGE, RecordFormat.USER, 16 << 10, dir, 8);
+        check(students(3000, 11), users(1000, 12), byName, false);
+        check(students(1000, 13), users(3000, 14), byNameAndAge, true);
+        try (Stream<Joined<Student, User>> joined = byName.inner(students(3000, 15).stream(), users(1000, 16).stream())) {
+            // 只读一部分
+            Assert.assertEquals(10, joined.limit(10).count());
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            Assert.assertEquals(0, files.count());
+        }
+    }
+
+    private static void check(List<Student> students, List<User> users, HashJoin<Student, User> join, boolean byAge) {
+        List<String> expectedInner = new ArrayList<>();
+        List<String> expectedLeft = new ArrayList<>();
+        List<String> expectedSemi = new ArrayList<>();
+        List<String> expectedAnti = new ArrayList<>();
+        for (Student s : students) {
+            List<User> matches = users.stream()
+                    .filter(u -> s.getName() != null && s.getName().equals(u.getName()) && (!byAge || s.getAge() == u.getAge()))
+                    .collect(Collectors.toList());
+            matches.forEach(u -> expectedInner.add(pair(s, u)));
+            if (matches.isEmpty()) {
+                expectedLeft.add(pair(s, null));
+                expectedAnti.add(pair(s, null));
+            } else {
+                expectedLeft.addAll(matches.stream().map(u -> pair(s, u)).collect(Collectors.toList()));
+                expectedSemi.add(pair(s, null));
+            }
+        }
+        assertSameElements(expectedInner, join.inner(students.stream(), users.stream(), HashJoinTest::pair));
+        assertSameElements(expectedLeft, join.left(students.stream(), users.stream(), HashJoinTest::pair));
+        assertSameElements(expectedSemi, join.semi(students.stream(), users.stream()).map(s -> pair(s, null)));
+        assertSameElements(expectedAnti, join.anti(students.stream(), users.stream()).map(s -> pair(s, null)));
+    }
+
+    private static String pair(Student s, User u) {
+        return s.getName() + "/" + s.getAge() + "/" + s.getScore() + " - " + (u == null ? "null" : u.getName() + "/" + u.getAge());
+    }
+
+    private static void assertSameElements(List<String> expected, Stream<String> actual) {
+        List<String> sortedExpected = new ArrayList<>(expected);
+        sortedExpected.sort(null);
+        List<String> sortedActual;
+        try (Stream<String> stream = actual) {
+            sortedActual = stream.sorted().collect(Collectors.toList());
+        }
+        Assert.assertEquals(sortedExpected, sortedActual);
+    }
+
+    private static List<Student> students(int count, long seed) {
+        Random random = new Random(seed);
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // 分数带上下标, 使每个学生都不相同
+            String name = random.nextInt(50) == 0 ? null : "name" + random.nextInt(count);
+            students.add(new Student(name, 10 + random.nextInt(5), i));
+        }
+        return students;
+    }
+
+    private static List<User> users(int count, long seed) {
+        Random random = new Random(seed);
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = random.nextInt(50) == 0 ? null : "name" + random.nextInt(count);
+            users.add(new User(name, 10 + random.nextInt(5)));
+        }
+        return users;
+    }
+}
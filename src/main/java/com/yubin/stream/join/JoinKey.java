@@ -0,0 +1,62 @@
+package com.yubin.stream.join;
+
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * 连接键: 名字, 或者名字加一个int字段(例如年龄)
+ * 建表时名字用NameDictionary编码成int, 再和int字段拼成一个long, 哈希表中只保存long
+ * 名字为null的记录不和任何记录匹配
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class JoinKey<T> {
+
+    private final Function<? super T, String> name;
+
+    private final ToIntFunction<? super T> number;
+
+    private JoinKey(Function<? super T, String> name, ToIntFunction<? super T> number) {
+        this.name = name;
+        this.number = number;
+    }
+
+    /**
+     * 按名字连接, 例如JoinKey.byName(Student::getName)
+     */
+    public static <T> JoinKey<T> byName(Function<? super T, String> name) {
+        return new JoinKey<>(name, null);
+    }
+
+    /**
+     * 按名字和一个int字段连接, 例如JoinKey.byName(User::getName, User::getAge)
+     */
+    public static <T> JoinKey<T> byName(Function<? super T, String> name, ToIntFunction<? super T> number) {
+        return new JoinKey<>(name, number);
+    }
+
+    boolean hasNumber() {
+        return number != null;
+    }
+
+    String name(T t) {
+        return name.apply(t);
+    }
+
+    /**
+     * 名字的编码和int字段拼成的long
+     */
+    long pack(int nameCode, T t) {
+        return number == null ? nameCode : ((long) nameCode << 32) | (number.applyAsInt(t) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 不依赖字典的哈希值, 溢出到磁盘时用来给两边分区
+     */
+    int hash(T t) {
+        String n = name.apply(t);
+        int h = n == null ? 0 : n.hashCode();
+        return number == null ? h : h * 31 + number.applyAsInt(t);
+    }
+}
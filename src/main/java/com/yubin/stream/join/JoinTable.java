@@ -0,0 +1,157 @@
+package com.yubin.stream.join;
+
+import com.yubin.lambda.table.NameDictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 哈希连接的建表端: 名字字典 + 以long为key的开放寻址哈希表
+ * 每个槽保存key和这个key的第一行, 相同key的行用next[]串成链表, 链表按行号从小到大
+ * 建表后只读(matched除外), 可以多线程并发探测
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+final class JoinTable<T> {
+
+    private static final int NO_ROW = -1;
+
+    private final List<T> rows;
+
+    private final NameDictionary dictionary = new NameDictionary();
+
+    private final long[] slotKeys;
+
+    // 链表头的行号 + 1, 0表示空槽
+    private final int[] slotHeads;
+
+    private final int[] next;
+
+    private final int mask;
+
+    // 被探测端匹配过的行, 只会从false变成true, 并发写入是安全的
+    private final boolean[] matched;
+
+    JoinTable(List<T> rows, JoinKey<T> key) {
+        this.rows = rows instanceof ArrayList ? rows : new ArrayList<>(rows);
+        int n = this.rows.size();
+        List<String> names = new ArrayList<>(n);
+        for (T row : this.rows) {
+            names.add(key.name(row));
+        }
+        int[] codes = dictionary.encodeAll(names);
+        long[] keys = IntStream.range(0, n).parallel()
+                .mapToLong(i -> codes[i] < 0 ? 0 : key.pack(codes[i], this.rows.get(i)))
+                .toArray();
+        int capacity = Integer.highestOneBit(Math.max(2, n) * 2 - 1) << 1;
+        this.slotKeys = new long[capacity];
+        this.slotHeads = new int[capacity];
+        this.mask = capacity - 1;
+        this.next = new int[n];
+        this.matched = new boolean[n];
+        // 倒序插入到链表头, 链表就是按行号从小到大的
+        for (int i = n - 1; i >= 0; i--) {
+            if (codes[i] < 0) {
+                continue;
+            }
+            int slot = slot(keys[i]);
+            next[i] = slotHeads[slot] - 1;
+            slotKeys[slot] = keys[i];
+            slotHeads[slot] = i + 1;
+        }
+    }
+
+    /**
+     * probe在表中匹配的第一行, 没有时返回-1
+     */
+    <P> int first(P probe, JoinKey<P> probeKey) {
+        String name = probeKey.name(probe);
+        if (name == null) {
+            return NO_ROW;
+        }
+        int code = dictionary.find(name);
+        if (code < 0) {
+            // 名字不在字典中, 不需要查哈希表
+            return NO_ROW;
+        }
+        return slotHeads[slot(probeKey.pack(code, probe))] - 1;
+    }
+
+    int next(int row) {
+        return next[row];
+    }
+
+    T row(int row) {
+        return rows.get(row);
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    /**
+     * 从first开始的所有匹配行, 同时把它们标记为已匹配
+     */
+    Stream<T> matches(int first) {
+        return StreamSupport.stream(new ChainSpliterator(first), false);
+    }
+
+    /**
+     * 标记从first开始的所有匹配行
+     */
+    void markMatched(int first) {
+        for (int row = first; row != NO_ROW; row = next[row]) {
+            matched[row] = true;
+        }
+    }
+
+    /**
+     * 按行号顺序返回被匹配过(matched为true)或者没有被匹配过的行
+     */
+    Stream<T> rows(boolean matchedRows) {
+        return IntStream.range(0, rows.size()).filter(i -> matched[i] == matchedRows).mapToObj(rows::get);
+    }
+
+    // 第一个key相同或者为空的槽
+    private int slot(long key) {
+        int slot = mix(key) & mask;
+        while (slotHeads[slot] != 0 && slotKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private final class ChainSpliterator extends Spliterators.AbstractSpliterator<T> {
+
+        private int row;
+
+        private ChainSpliterator(int first) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.row = first;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (row == NO_ROW) {
+                return false;
+            }
+            matched[row] = true;
+            T t = rows.get(row);
+            row = next[row];
+            action.accept(t);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.yubin.stream.join;
+
+/**
+ * 连接类型
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public enum JoinType {
+
+    /**
+     * 两边都匹配的记录对
+     */
+    INNER,
+
+    /**
+     * 左边的每条记录都输出, 没有匹配时右边为null
+     */
+    LEFT,
+
+    /**
+     * 右边存在匹配的左边记录, 每条只输出一次
+     */
+    SEMI,
+
+    /**
+     * 右边不存在匹配的左边记录
+     */
+    ANTI
+}
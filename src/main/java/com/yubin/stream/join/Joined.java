@@ -0,0 +1,35 @@
+package com.yubin.stream.join;
+
+/**
+ * 连接结果中的一对记录, 左连接没有匹配时right为null
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class Joined<L, R> {
+
+    private final L left;
+
+    private final R right;
+
+    public Joined(L left, R right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    public L getLeft() {
+        return left;
+    }
+
+    public R getRight() {
+        return right;
+    }
+
+    @Override
+    public String toString() {
+        return "Joined{" +
+                "left=" + left +
+                ", right=" + right +
+                '}';
+    }
+}
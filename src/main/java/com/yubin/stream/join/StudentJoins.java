@@ -0,0 +1,53 @@
+package com.yubin.stream.join;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.stream.User;
+import com.yubin.stream.io.RecordFormat;
+
+/**
+ * 学生和用户之间常用的连接, 左边是Student, 右边是User
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class StudentJoins {
+
+    public static final JoinKey<Student> STUDENT_NAME = JoinKey.byName(Student::getName);
+
+    public static final JoinKey<User> USER_NAME = JoinKey.byName(User::getName);
+
+    public static final JoinKey<Student> STUDENT_NAME_AGE = JoinKey.byName(Student::getName, Student::getAge);
+
+    public static final JoinKey<User> USER_NAME_AGE = JoinKey.byName(User::getName, User::getAge);
+
+    private StudentJoins() {
+    }
+
+    /**
+     * 按名字连接, 只在内存中执行
+     */
+    public static HashJoin<Student, User> byName() {
+        return new HashJoin<>(STUDENT_NAME, USER_NAME);
+    }
+
+    /**
+     * 按名字连接, 建表端超过memoryBudget字节时溢出到临时文件
+     */
+    public static HashJoin<Student, User> byName(long memoryBudget) {
+        return new HashJoin<>(STUDENT_NAME, RecordFormat.STUDENT, USER_NAME, RecordFormat.USER, memoryBudget);
+    }
+
+    /**
+     * 按名字和年龄连接, 只在内存中执行
+     */
+    public static HashJoin<Student, User> byNameAndAge() {
+        return new HashJoin<>(STUDENT_NAME_AGE, USER_NAME_AGE);
+    }
+
+    /**
+     * 按名字和年龄连接, 建表端超过memoryBudget字节时溢出到临时文件
+     */
+    public static HashJoin<Student, User> byNameAndAge(long memoryBudget) {
+        return new HashJoin<>(STUDENT_NAME_AGE, RecordFormat.STUDENT, USER_NAME_AGE, RecordFormat.USER, memoryBudget);
+    }
+}
@@ -0,0 +1,65 @@
+package com.yubin.stream.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * 当前线程累计分配的字节数, 基于com.sun.management.ThreadMXBean
+ * 读取本身也会分配少量内存, 启动时测出这部分开销并在结果中扣除; JVM不支持时总是返回0
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+final class AllocationCounter {
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = threadBean();
+
+    // 连续读取两次之间的分配量, 即一次读取本身的开销
+    private static final long OVERHEAD = calibrate();
+
+    private AllocationCounter() {
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        if (!threadBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!threadBean.isThreadAllocatedMemoryEnabled()) {
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return threadBean;
+    }
+
+    private static long calibrate() {
+        if (THREAD_BEAN == null) {
+            return 0;
+        }
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long before = current();
+            long after = current();
+            min = Math.min(min, after - before);
+        }
+        return min;
+    }
+
+    static boolean isSupported() {
+        return THREAD_BEAN != null;
+    }
+
+    static long current() {
+        return THREAD_BEAN == null ? 0 : THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * before是之前current()的返回值, 返回两次读取之间用户代码分配的字节数
+     */
+    static long since(long before) {
+        return Math.max(0, current() - before - OVERHEAD);
+    }
+}
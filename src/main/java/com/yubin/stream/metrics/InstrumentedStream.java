@@ -0,0 +1,189 @@
+package com.yubin.stream.metrics;
+
+import java.util.Comparator;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * 带统计的Stream包装, 每个操作多一个阶段名参数, 统计值记录到PipelineMetrics中
+ * filter/map/forEach/collect包装传入的函数, 记录输入输出的元素个数, 并采样测量函数的耗时和分配量;
+ * sorted测量的是比较器; distinct/limit/skip只记录元素个数
+ * 所有统计都依赖元素真正流过流水线, 所以count也是逐个元素求和; unwrap之后直接调用count()可能跳过前面的阶段
+ * 例如:
+ * InstrumentedStream.of(list.stream(), metrics).filter("adult", s -> s.getAge() >= 18).map("name", Student::getName).collect("toList", toList())
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class InstrumentedStream<T> {
+
+    private final Stream<T> stream;
+
+    private final PipelineMetrics metrics;
+
+    private InstrumentedStream(Stream<T> stream, PipelineMetrics metrics) {
+        this.stream = stream;
+        this.metrics = metrics;
+    }
+
+    public static <T> InstrumentedStream<T> of(Stream<T> stream, PipelineMetrics metrics) {
+        return new InstrumentedStream<>(stream, metrics);
+    }
+
+    public InstrumentedStream<T> filter(String stage, Predicate<? super T> predicate) {
+        StageMetrics metrics = this.metrics.stage(stage);
+        return next(stream.filter(t -> {
+            metrics.in();
+            boolean result;
+            if (metrics.call()) {
+                long bytes = AllocationCounter.current();
+                long start = System.nanoTime();
+                result = predicate.test(t);
+                metrics.sample(System.nanoTime() - start, AllocationCounter.since(bytes));
+            } else {
+                result = predicate.test(t);
+            }
+            if (result) {
+                metrics.out();
+            }
+            return result;
+        }));
+    }
+
+    public <R> InstrumentedStream<R> map(String stage, Function<? super T, ? extends R> mapper) {
+        StageMetrics metrics = this.metrics.stage(stage);
+        return next(stream.map(t -> {
+            metrics.in();
+            R result = apply(metrics, mapper, t);
+            metrics.out();
+            return result;
+        }));
+    }
+
+    public InstrumentedStream<T> sorted(String stage, Comparator<? super T> comparator) {
+        StageMetrics metrics = this.metrics.stage(stage);
+        Comparator<T> measured = (a, b) -> {
+            if (metrics.call()) {
+                long bytes = AllocationCounter.current();
+                long start = System.nanoTime();
+                int result = comparator.compare(a, b);
+                metrics.sample(System.nanoTime() - start, AllocationCounter.since(bytes));
+                return result;
+            }
+            return comparator.compare(a, b);
+        };
+        return next(stream.peek(t -> metrics.in()).sorted(measured).peek(t -> metrics.out()));
+    }
+
+    @SuppressWarnings("unchecked")
+    public InstrumentedStream<T> sorted(String stage) {
+        return sorted(stage, (Comparator<? super T>) Comparator.naturalOrder());
+    }
+
+    public InstrumentedStream<T> distinct(String stage) {
+        StageMetrics metrics = this.metrics.stage(stage);
+        return next(stream.peek(t -> metrics.in()).distinct().peek(t -> metrics.out()));
+    }
+
+    public InstrumentedStream<T> limit(String stage, long maxSize) {
+        StageMetrics metrics = this.metrics.stage(stage);
+        return next(stream.peek(t -> metrics.in()).limit(maxSize).peek(t -> metrics.out()));
+    }
+
+    public InstrumentedStream<T> skip(String stage, long n) {
+        StageMetrics metrics = this.metrics.stage(stage);
+        return next(stream.peek(t -> metrics.in()).skip(n).peek(t -> metrics.out()));
+    }
+
+    public InstrumentedStream<T> parallel() {
+        return next(stream.parallel());
+    }
+
+    public InstrumentedStream<T> sequential() {
+        return next(stream.sequential());
+    }
+
+    public void forEach(String stage, Consumer<? super T> action) {
+        StageMetrics metrics = this.metrics.stage(stage);
+        stream.forEach(t -> {
+            metrics.in();
+            accept(metrics, action, t);
+        });
+    }
+
+    public long count(String stage) {
+        StageMetrics metrics = this.metrics.stage(stage);
+        // 不能用peek(...).count(): JDK 9之后SIZED的流执行count()时会跳过整个流水线, peek和上游的map都不会执行
+        long count = stream.mapToLong(t -> {
+            metrics.in();
+            return 1L;
+        }).sum();
+        metrics.out();
+        return count;
+    }
+
+    /**
+     * 测量的是收集器的accumulator, 整个收集的结果算一个输出
+     */
+    public <R, A> R collect(String stage, Collector<? super T, A, R> collector) {
+        StageMetrics metrics = this.metrics.stage(stage);
+        BiConsumer<A, ? super T> accumulator = collector.accumulator();
+        Supplier<A> supplier = collector.supplier();
+        BinaryOperator<A> combiner = collector.combiner();
+        Function<A, R> finisher = collector.finisher();
+        Collector<T, A, R> measured = Collector.of(supplier, (container, t) -> {
+            metrics.in();
+            if (metrics.call()) {
+                long bytes = AllocationCounter.current();
+                long start = System.nanoTime();
+                accumulator.accept(container, t);
+                metrics.sample(System.nanoTime() - start, AllocationCounter.since(bytes));
+            } else {
+                accumulator.accept(container, t);
+            }
+        }, combiner, finisher, collector.characteristics().toArray(new Collector.Characteristics[0]));
+        R result = stream.collect(measured);
+        metrics.out();
+        return result;
+    }
+
+    /**
+     * 取出被包装的Stream, 继续执行不需要统计的操作
+     * 注意: 对SIZED的流直接调用count()不会执行前面的阶段, 这些阶段的统计值会是0
+     */
+    public Stream<T> unwrap() {
+        return stream;
+    }
+
+    private <R> InstrumentedStream<R> next(Stream<R> next) {
+        return new InstrumentedStream<>(next, metrics);
+    }
+
+    private static <T, R> R apply(StageMetrics metrics, Function<? super T, ? extends R> function, T t) {
+        if (metrics.call()) {
+            long bytes = AllocationCounter.current();
+            long start = System.nanoTime();
+            R result = function.apply(t);
+            metrics.sample(System.nanoTime() - start, AllocationCounter.since(bytes));
+            return result;
+        }
+        return function.apply(t);
+    }
+
+    private static <T> void accept(StageMetrics metrics, Consumer<? super T> action, T t) {
+        if (metrics.call()) {
+            long bytes = AllocationCounter.current();
+            long start = System.nanoTime();
+            action.accept(t);
+            metrics.sample(System.nanoTime() - start, AllocationCounter.since(bytes));
+        } else {
+            action.accept(t);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.yubin.stream.metrics;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.stream.op.Generators;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 流水线统计测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class InstrumentedStreamTest {
+
+    @Test
+    public void testFilter() {
+        // 同StreamDemo.testFilter, 不用在filter里打印也能看到filter执行了几次
+        PipelineMetrics metrics = new PipelineMetrics("testFilter", 1);
+        InstrumentedStream.of(Arrays.asList(1, 2, 3, 4, 5, 6).stream(), metrics)
+                .filter("filter", x -> x % 2 == 0)
+                .forEach("forEach", System.out::println);
+        StageMetrics filter = metrics.stage("filter");
+        Assert.assertEquals(6, filter.getElementsIn());
+        Assert.assertEquals(3, filter.getElementsOut());
+        Assert.assertEquals(6, filter.getSamples());
+        Assert.assertEquals(3, metrics.stage("forEach").getElementsIn());
+        System.out.println(metrics);
+    }
+
+    @Test
+    public void testCountSizedSource() {
+        // SIZED的流执行count()时JDK 9之后会跳过流水线, 统计值仍然要和实际元素个数一致
+        PipelineMetrics metrics = new PipelineMetrics("testCount", 1);
+        long count = InstrumentedStream.of(Arrays.asList(1, 2, 3, 4, 5).stream(), metrics)
+                .map("square", x -> x * x)
+                .sorted("sorted", Comparator.reverseOrder())
+                .count("count");
+        Assert.assertEquals(5, count);
+        Assert.assertEquals(5, metrics.stage("square").getElementsIn());
+        Assert.assertEquals(5, metrics.stage("sorted").getElementsIn());
+        Assert.assertEquals(5, metrics.stage("sorted").getElementsOut());
+        Assert.assertEquals(5, metrics.stage("count").getElementsIn());
+    }
+
+    @Test
+    public void testPipeline() throws Exception {
+        List<Student> students = Generators.indexed(0, 100000, i -> new Student("student" + i,
+                15 + Generators.random(3, 2L * i, 10), Generators.random(3, 2L * i + 1, 101)))
+                .collect(Collectors.toList());
+        PipelineMetrics metrics = new PipelineMetrics("students", 4);
+        metrics.registerMBeans();
+        try {
+            List<String> names = InstrumentedStream.of(students.stream(), metrics).parallel()
+                    .filter("adult", s -> s.getAge() >= 18)
+                    .sorted("byScore", Comparator.comparingInt(Student::getScore))
+                    .map("name", s -> s.getName().toUpperCase())
+                    .limit("top", 100)
+                    .collect("toList", Collectors.toList());
+            Assert.assertEquals(100, names.size());
+            long adults = students.stream().filter(s -> s.getAge() >= 18).count();
+            Assert.assertEquals(students.size(), metrics.stage("adult").getElementsIn());
+            Assert.assertEquals(adults, metrics.stage("adult").getElementsOut());
+            Assert.assertEquals(adults, metrics.stage("byScore").getElementsIn());
+            Assert.assertEquals(100, metrics.stage("top").getElementsOut());
+            Assert.assertTrue(metrics.stage("adult").getSamples() > 0);
+            // toUpperCase每次都会创建新的字符串
+            Assert.assertTrue(!AllocationCounter.isSupported() || metrics.stage("name").getEstimatedAllocatedBytes() > 0);
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName adult = metrics.objectName("adult");
+            Assert.assertEquals(adults, server.getAttribute(adult, "ElementsOut"));
+            Assert.assertEquals(5, server.queryNames(new ObjectName(PipelineMetrics.DOMAIN + ":*"), null).size());
+
+            CountDownLatch latch = new CountDownLatch(2);
+            ScheduledFuture<?> future = metrics.scheduleSnapshots(10, TimeUnit.MILLISECONDS, snapshots -> {
+                Assert.assertEquals(5, snapshots.size());
+                latch.countDown();
+            });
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            future.cancel(false);
+            System.out.println(metrics);
+        } finally {
+            metrics.unregisterMBeans();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.yubin.stream.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 一条命名流水线的所有阶段的统计值
+ * 调用registerMBeans()后每个阶段注册为 com.yubin.stream.metrics:type=Stage,pipeline=名称,stage=阶段名 ,
+ * 之后新增的阶段也会自动注册; scheduleSnapshots定期把所有阶段的快照交给回调, 可以接日志或监控系统
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class PipelineMetrics {
+
+    public static final String DOMAIN = "com.yubin.stream.metrics";
+
+    // 默认每64次调用测量一次耗时和分配量
+    public static final int DEFAULT_SAMPLE_INTERVAL = 64;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "pipeline-metrics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+
+    private final int sampleInterval;
+
+    private final Map<String, StageMetrics> stages = new ConcurrentHashMap<>();
+
+    // 阶段按创建的顺序排列
+    private final List<StageMetrics> ordered = new CopyOnWriteArrayList<>();
+
+    private volatile boolean registered;
+
+    public PipelineMetrics(String name) {
+        this(name, DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * @param sampleInterval 平均每多少次调用测量一次, 1表示每次都测量
+     */
+    public PipelineMetrics(String name, int sampleInterval) {
+        if (sampleInterval <= 0) {
+            throw new IllegalArgumentException("sampleInterval must be positive: " + sampleInterval);
+        }
+        this.name = name;
+        this.sampleInterval = sampleInterval;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取阶段的统计值, 不存在时创建
+     */
+    public StageMetrics stage(String stage) {
+        StageMetrics metrics = stages.get(stage);
+        if (metrics != null) {
+            return metrics;
+        }
+        synchronized (this) {
+            metrics = stages.get(stage);
+            if (metrics == null) {
+                metrics = new StageMetrics(name, stage, sampleInterval);
+                if (registered) {
+                    register(metrics);
+                }
+                stages.put(stage, metrics);
+                ordered.add(metrics);
+            }
+            return metrics;
+        }
+    }
+
+    public List<StageMetrics> getStages() {
+        return new ArrayList<>(ordered);
+    }
+
+    public List<StageSnapshot> snapshot() {
+        List<StageSnapshot> result = new ArrayList<>(ordered.size());
+        for (StageMetrics metrics : ordered) {
+            result.add(metrics.snapshot());
+        }
+        return result;
+    }
+
+    /**
+     * 每隔period把所有阶段的快照交给listener, 返回的ScheduledFuture用来取消
+     */
+    public ScheduledFuture<?> scheduleSnapshots(long period, TimeUnit unit, Consumer<? super List<StageSnapshot>> listener) {
+        return SCHEDULER.scheduleAtFixedRate(() -> listener.accept(snapshot()), period, period, unit);
+    }
+
+    public void reset() {
+        for (StageMetrics metrics : ordered) {
+            metrics.reset();
+        }
+    }
+
+    public synchronized void registerMBeans() {
+        if (!registered) {
+            for (StageMetrics metrics : ordered) {
+                register(metrics);
+            }
+            registered = true;
+        }
+    }
+
+    public synchronized void unregisterMBeans() {
+        if (registered) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (StageMetrics metrics : ordered) {
+                try {
+                    ObjectName objectName = objectName(metrics.getStage());
+                    if (server.isRegistered(objectName)) {
+                        server.unregisterMBean(objectName);
+                    }
+                } catch (JMException e) {
+                    throw new IllegalStateException("Failed to unregister " + metrics.getStage(), e);
+                }
+            }
+            registered = false;
+        }
+    }
+
+    private void register(StageMetrics metrics) {
+        try {
+            ObjectName objectName = objectName(metrics.getStage());
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(metrics, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register " + metrics.getStage(), e);
+        }
+    }
+
+    public ObjectName objectName(String stage) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Stage,pipeline=" + ObjectName.quote(name) + ",stage=" + ObjectName.quote(stage));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (StageSnapshot snapshot : snapshot()) {
+            builder.append(snapshot).append('\n');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,150 @@
+package com.yubin.stream.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 流水线中一个阶段的统计值
+ * 元素个数和调用次数每次都记录, 用LongAdder累加, 并行流中也没有竞争;
+ * 耗时和分配量只在采样到的调用上测量, 平均每sampleInterval次调用采样一次
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class StageMetrics implements StageMetricsMXBean {
+
+    private final String pipeline;
+
+    private final String stage;
+
+    private final int sampleInterval;
+
+    private final LongAdder elementsIn = new LongAdder();
+
+    private final LongAdder elementsOut = new LongAdder();
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder samples = new LongAdder();
+
+    private final LongAdder sampledNanos = new LongAdder();
+
+    private final LongAdder sampledBytes = new LongAdder();
+
+    StageMetrics(String pipeline, String stage, int sampleInterval) {
+        if (sampleInterval <= 0) {
+            throw new IllegalArgumentException("sampleInterval must be positive: " + sampleInterval);
+        }
+        this.pipeline = pipeline;
+        this.stage = stage;
+        this.sampleInterval = sampleInterval;
+    }
+
+    void in() {
+        elementsIn.increment();
+    }
+
+    void out() {
+        elementsOut.increment();
+    }
+
+    /**
+     * 记录一次调用, 返回这次调用是否需要测量
+     */
+    boolean call() {
+        calls.increment();
+        return sampleInterval == 1 || ThreadLocalRandom.current().nextInt(sampleInterval) == 0;
+    }
+
+    void sample(long nanos, long bytes) {
+        samples.increment();
+        sampledNanos.add(nanos);
+        sampledBytes.add(bytes);
+    }
+
+    @Override
+    public String getPipeline() {
+        return pipeline;
+    }
+
+    @Override
+    public String getStage() {
+        return stage;
+    }
+
+    @Override
+    public long getElementsIn() {
+        return elementsIn.sum();
+    }
+
+    @Override
+    public long getElementsOut() {
+        return elementsOut.sum();
+    }
+
+    @Override
+    public double getSelectivity() {
+        long in = getElementsIn();
+        return in == 0 ? 0.0 : (double) getElementsOut() / in;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getSamples() {
+        return samples.sum();
+    }
+
+    @Override
+    public long getSampledNanos() {
+        return sampledNanos.sum();
+    }
+
+    @Override
+    public long getEstimatedNanos() {
+        return estimate(getSampledNanos());
+    }
+
+    @Override
+    public long getSampledAllocatedBytes() {
+        return sampledBytes.sum();
+    }
+
+    @Override
+    public long getEstimatedAllocatedBytes() {
+        return estimate(getSampledAllocatedBytes());
+    }
+
+    private long estimate(long sampled) {
+        long count = getSamples();
+        return count == 0 ? 0 : (long) ((double) sampled * getCalls() / count);
+    }
+
+    @Override
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    @Override
+    public void reset() {
+        elementsIn.reset();
+        elementsOut.reset();
+        calls.reset();
+        samples.reset();
+        sampledNanos.reset();
+        sampledBytes.reset();
+    }
+
+    public StageSnapshot snapshot() {
+        return new StageSnapshot(pipeline, stage, System.currentTimeMillis(), getElementsIn(), getElementsOut(),
+                getCalls(), getSamples(), getEstimatedNanos(), getEstimatedAllocatedBytes());
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.yubin.stream.metrics;
+
+/**
+ * 流水线中一个阶段的JMX接口
+ * 耗时和分配量是采样得到的, Estimated开头的值是按采样比例推算出的总量
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public interface StageMetricsMXBean {
+
+    String getPipeline();
+
+    String getStage();
+
+    long getElementsIn();
+
+    long getElementsOut();
+
+    /**
+     * 输出与输入的比例, 对filter来说就是命中率
+     */
+    double getSelectivity();
+
+    /**
+     * 阶段函数(谓词、映射函数、比较器等)被调用的次数
+     */
+    long getCalls();
+
+    long getSamples();
+
+    long getSampledNanos();
+
+    long getEstimatedNanos();
+
+    long getSampledAllocatedBytes();
+
+    long getEstimatedAllocatedBytes();
+
+    int getSampleInterval();
+
+    void reset();
+}
@@ -0,0 +1,92 @@
+package com.yubin.stream.metrics;
+
+/**
+ * 某一时刻一个阶段的统计值
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class StageSnapshot {
+
+    private final String pipeline;
+
+    private final String stage;
+
+    private final long timestamp;
+
+    private final long elementsIn;
+
+    private final long elementsOut;
+
+    private final long calls;
+
+    private final long samples;
+
+    private final long estimatedNanos;
+
+    private final long estimatedAllocatedBytes;
+
+    StageSnapshot(String pipeline, String stage, long timestamp, long elementsIn, long elementsOut, long calls,
+                  long samples, long estimatedNanos, long estimatedAllocatedBytes) {
+        this.pipeline = pipeline;
+        this.stage = stage;
+        this.timestamp = timestamp;
+        this.elementsIn = elementsIn;
+        this.elementsOut = elementsOut;
+        this.calls = calls;
+        this.samples = samples;
+        this.estimatedNanos = estimatedNanos;
+        this.estimatedAllocatedBytes = estimatedAllocatedBytes;
+    }
+
+    public String getPipeline() {
+        return pipeline;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     * 生成快照时的System.currentTimeMillis()
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getElementsIn() {
+        return elementsIn;
+    }
+
+    public long getElementsOut() {
+        return elementsOut;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public long getEstimatedNanos() {
+        return estimatedNanos;
+    }
+
+    public long getEstimatedAllocatedBytes() {
+        return estimatedAllocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return pipeline + "." + stage + "{" +
+                "in=" + elementsIn +
+                ", out=" + elementsOut +
+                ", calls=" + calls +
+                ", samples=" + samples +
+                ", estimatedMicros=" + estimatedNanos / 1000 +
+                ", estimatedAllocatedBytes=" + estimatedAllocatedBytes +
+                '}';
+    }
+}
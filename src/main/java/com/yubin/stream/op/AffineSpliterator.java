@@ -0,0 +1,109 @@
+package com.yubin.stream.op;
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * 仿射迭代 x(n+1) = multiplier * x(n) + increment (按2^64取模) 的Spliterator
+ * Stream.iterate只能一个接一个地算, 没法拆分; 仿射函数的n次复合仍然是仿射函数,
+ * 可以用平方求幂在O(log n)内跳到任意位置, 所以能从中间二分拆分
+ * multiplier = 1 时就是计数器 seed, seed + step, seed + 2 * step ...
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class AffineSpliterator implements Spliterator.OfLong {
+
+    private final long multiplier;
+
+    private final long increment;
+
+    // 当前下标对应的值
+    private long value;
+
+    private long index;
+
+    private final long fence;
+
+    public AffineSpliterator(long seed, long multiplier, long increment, long count) {
+        this(seed, multiplier, increment, 0, count);
+    }
+
+    private AffineSpliterator(long value, long multiplier, long increment, long index, long fence) {
+        if (index > fence) {
+            throw new IllegalArgumentException("count < 0: " + (fence - index));
+        }
+        this.value = value;
+        this.multiplier = multiplier;
+        this.increment = increment;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    /**
+     * 从value开始迭代steps次后的值
+     */
+    public static long jump(long value, long multiplier, long increment, long steps) {
+        // (a, b)表示函数 x -> a * x + b, 先算出f的steps次复合
+        long a = 1;
+        long b = 0;
+        long baseA = multiplier;
+        long baseB = increment;
+        while (steps > 0) {
+            if ((steps & 1) != 0) {
+                // f的各次幂可交换, 复合顺序无所谓
+                b = baseA * b + baseB;
+                a = baseA * a;
+            }
+            baseB = baseA * baseB + baseB;
+            baseA = baseA * baseA;
+            steps >>>= 1;
+        }
+        return a * value + b;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        if (index < fence) {
+            action.accept(value);
+            value = multiplier * value + increment;
+            index++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+        long x = value;
+        for (long i = index; i < fence; i++) {
+            action.accept(x);
+            x = multiplier * x + increment;
+        }
+        value = x;
+        index = fence;
+    }
+
+    @Override
+    public OfLong trySplit() {
+        long lo = index;
+        long mid = lo + ((fence - lo) >>> 1);
+        if (mid <= lo) {
+            return null;
+        }
+        AffineSpliterator prefix = new AffineSpliterator(value, multiplier, increment, lo, mid);
+        value = jump(value, multiplier, increment, mid - lo);
+        index = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+    }
+}
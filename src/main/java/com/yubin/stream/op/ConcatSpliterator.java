@@ -0,0 +1,116 @@
+package com.yubin.stream.op;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * 把多个Spliterator平铺连接起来, 代替层层嵌套的Stream.concat
+ * 拆分时按估计大小把剩余的源分成大小接近的两半, 只剩一个源时交给这个源自己拆分,
+ * 所有源都是SIZED(以及SUBSIZED)时结果也是SIZED(以及SUBSIZED)
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class ConcatSpliterator<T> implements Spliterator<T> {
+
+    // 拼接之后不再成立的特征
+    private static final int DROPPED = DISTINCT | SORTED;
+
+    private final Spliterator<? extends T>[] sources;
+
+    // 当前的源, 包含
+    private int from;
+
+    // 结束位置, 不包含
+    private final int to;
+
+    public ConcatSpliterator(Spliterator<? extends T>[] sources) {
+        this(sources, 0, sources.length);
+    }
+
+    private ConcatSpliterator(Spliterator<? extends T>[] sources, int from, int to) {
+        this.sources = sources;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (from < to) {
+            if (sources[from].tryAdvance(action)) {
+                return true;
+            }
+            // 当前的源已经遍历完了, 释放引用
+            sources[from++] = null;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (from < to) {
+            sources[from].forEachRemaining(action);
+            sources[from++] = null;
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        int remaining = to - from;
+        if (remaining == 0) {
+            return null;
+        }
+        if (remaining == 1) {
+            @SuppressWarnings("unchecked")
+            Spliterator<T> prefix = (Spliterator<T>) sources[from].trySplit();
+            return prefix;
+        }
+        // 找到累计大小第一次超过一半的位置, 前后两部分都至少包含一个源
+        long half = estimateSize() / 2;
+        long sum = 0;
+        int mid = from + 1;
+        for (int i = from; i < to - 1; i++) {
+            sum = saturatedAdd(sum, sources[i].estimateSize());
+            mid = i + 1;
+            if (sum >= half) {
+                break;
+            }
+        }
+        Spliterator<T> prefix = new ConcatSpliterator<>(sources, from, mid);
+        from = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        long size = 0;
+        for (int i = from; i < to; i++) {
+            size = saturatedAdd(size, sources[i].estimateSize());
+        }
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        if (from >= to) {
+            return SIZED | SUBSIZED | ORDERED;
+        }
+        int characteristics = ~0;
+        long size = 0;
+        for (int i = from; i < to; i++) {
+            characteristics &= sources[i].characteristics();
+            size = saturatedAdd(size, sources[i].estimateSize());
+        }
+        characteristics &= ~DROPPED;
+        if (size == Long.MAX_VALUE) {
+            // 总大小溢出时不再是精确大小
+            characteristics &= ~(SIZED | SUBSIZED);
+        }
+        return characteristics;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+}
@@ -0,0 +1,101 @@
+package com.yubin.stream.op;
+
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 可拆分的生成器, 代替Stream.generate和Stream.iterate
+ * Stream.generate / Stream.iterate生成的是无限的流, limit之后也不知道大小, 并行时基本拆不开;
+ * 这里的生成器都是SIZED | SUBSIZED的, 并且第i个元素只由下标i决定, 并行与串行的结果相同
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class Generators {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private Generators() {
+    }
+
+    /**
+     * generator(from), generator(from + 1) ... generator(to - 1)
+     */
+    public static <T> Stream<T> indexed(int from, int to, IntFunction<? extends T> generator) {
+        return StreamSupport.stream(new IndexedSpliterator<T>(from, to, i -> generator.apply((int) i)), false);
+    }
+
+    /**
+     * 与indexed相同, 下标是long, 用于超过int范围的数据量
+     */
+    public static <T> Stream<T> indexedLong(long from, long to, LongFunction<? extends T> generator) {
+        return StreamSupport.stream(new IndexedSpliterator<T>(from, to, generator), false);
+    }
+
+    /**
+     * 计数器 seed, seed + step, seed + 2 * step ... 共count个, 对应Stream.iterate(seed, x -> x + step).limit(count)
+     */
+    public static IntStream counter(int seed, int step, int count) {
+        return IntStream.range(0, count).map(i -> seed + i * step);
+    }
+
+    public static LongStream counter(long seed, long step, long count) {
+        return affine(seed, 1, step, count);
+    }
+
+    /**
+     * seed, f(seed), f(f(seed)) ... 共count个, 其中 f(x) = multiplier * x + increment (按2^64取模)
+     */
+    public static LongStream affine(long seed, long multiplier, long increment, long count) {
+        return StreamSupport.longStream(new AffineSpliterator(seed, multiplier, increment, count), false);
+    }
+
+    /**
+     * 种子为seed的随机数序列中的第index个, 同一个(seed, index)总是得到同一个值
+     * 算法是SplitMix64, 没有可变状态, 可以在生成器里按下标直接调用
+     */
+    public static long random(long seed, long index) {
+        long z = seed + (index + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * [0, bound)之间的随机数
+     */
+    public static int random(long seed, long index, int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive: " + bound);
+        }
+        // 取高32位乘以bound, 避免取模带来的偏差与除法
+        return (int) (((random(seed, index) >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * count个随机long, 与SplittableRandom.longs不同, 结果与拆分方式无关
+     */
+    public static LongStream randomLongs(long seed, long count) {
+        return LongStream.range(0, count).map(i -> random(seed, i));
+    }
+
+    /**
+     * count个[origin, bound)之间的随机int
+     */
+    public static IntStream randomInts(long seed, int count, int origin, int bound) {
+        if (origin >= bound) {
+            throw new IllegalArgumentException("origin >= bound: " + origin + " >= " + bound);
+        }
+        int range = bound - origin;
+        if (range <= 0) {
+            // 区间超过int范围时直接取模
+            long span = (long) bound - origin;
+            return IntStream.range(0, count).map(i -> (int) (origin + Long.remainderUnsigned(random(seed, i), span)));
+        }
+        return IntStream.range(0, count).map(i -> origin + random(seed, i, range));
+    }
+}
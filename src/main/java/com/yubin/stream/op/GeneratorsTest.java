@@ -0,0 +1,72 @@
+package com.yubin.stream.op;
+
+import com.yubin.lambda.entity.Student;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * 可拆分生成器测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class GeneratorsTest {
+
+    @Test
+    public void testBuildStream() {
+        // 同StreamDemo.testBuildStream3, 但是有大小并且可以拆分
+        Generators.indexed(0, 10, i -> 1).forEach(System.out::println);
+        // 同StreamDemo.testBuildStream4
+        Generators.counter(1, 1, 10).forEach(System.out::println);
+    }
+
+    @Test
+    public void testAffine() {
+        long multiplier = 6364136223846793005L;
+        long increment = 1442695040888963407L;
+        long[] expected = LongStream.iterate(42, x -> multiplier * x + increment).limit(100000).toArray();
+        Assert.assertArrayEquals(expected, Generators.affine(42, multiplier, increment, expected.length).toArray());
+        Assert.assertArrayEquals(expected, Generators.affine(42, multiplier, increment, expected.length).parallel().toArray());
+        Assert.assertEquals(expected[77777], AffineSpliterator.jump(42, multiplier, increment, 77777));
+        Assert.assertArrayEquals(LongStream.iterate(5, x -> x + 3).limit(1000).toArray(),
+                Generators.counter(5L, 3L, 1000).parallel().toArray());
+    }
+
+    @Test
+    public void testNegativeRange() {
+        // 负数下标拆分时中点不能溢出
+        List<Integer> expected = IntStream.range(-100, -90).boxed().collect(Collectors.toList());
+        Assert.assertEquals(expected, Generators.indexed(-100, -90, i -> i).parallel().collect(Collectors.toList()));
+        Assert.assertEquals(expected, Generators.indexed(-100, -90, i -> i).collect(Collectors.toList()));
+        Assert.assertEquals(Arrays.asList(Long.MIN_VALUE, Long.MIN_VALUE + 1, Long.MIN_VALUE + 2),
+                Generators.indexedLong(Long.MIN_VALUE, Long.MIN_VALUE + 3, i -> i).parallel().collect(Collectors.toList()));
+        Assert.assertEquals(-50 * 101, Generators.indexedLong(-100, 1, i -> i).parallel().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    public void testRandomStudents() {
+        long seed = 20210822L;
+        int count = 200000;
+        Stream<Student> stream = Generators.indexed(0, count, i ->
+                new Student("student" + Generators.random(seed, 3L * i, 1000),
+                        10 + Generators.random(seed, 3L * i + 1, 15),
+                        Generators.random(seed, 3L * i + 2, 101)));
+        Spliterator<Student> spliterator = stream.spliterator();
+        Assert.assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        Assert.assertEquals(count, spliterator.getExactSizeIfKnown());
+
+        List<Integer> sequential = Generators.indexed(0, count, i -> Generators.random(seed, i, 101)).collect(Collectors.toList());
+        List<Integer> parallel = Generators.indexedLong(0, count, i -> Generators.random(seed, i, 101)).parallel().collect(Collectors.toList());
+        Assert.assertEquals(sequential, parallel);
+        Assert.assertTrue(Generators.randomInts(seed, count, 18, 25).parallel().allMatch(x -> x >= 18 && x < 25));
+        Assert.assertEquals(Generators.randomLongs(seed, count).sum(), Generators.randomLongs(seed, count).parallel().sum());
+    }
+}
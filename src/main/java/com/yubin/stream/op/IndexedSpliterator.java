@@ -0,0 +1,72 @@
+package com.yubin.stream.op;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * 按下标生成元素的Spliterator, 第i个元素是generator.apply(i)
+ * 元素只依赖下标, 所以可以从任意位置二分拆分, 结果与拆分方式无关
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class IndexedSpliterator<T> implements Spliterator<T> {
+
+    private final LongFunction<? extends T> generator;
+
+    // 当前下标, 包含
+    private long index;
+
+    // 结束下标, 不包含
+    private final long fence;
+
+    public IndexedSpliterator(long from, long to, LongFunction<? extends T> generator) {
+        if (from > to) {
+            throw new IllegalArgumentException("from > to: " + from + " > " + to);
+        }
+        this.index = from;
+        this.fence = to;
+        this.generator = generator;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (index < fence) {
+            action.accept(generator.apply(index++));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        long i = index;
+        long hi = fence;
+        index = hi;
+        for (; i < hi; i++) {
+            action.accept(generator.apply(i));
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        long lo = index;
+        long mid = lo + ((fence - lo) >>> 1);
+        if (mid <= lo) {
+            return null;
+        }
+        index = mid;
+        return new IndexedSpliterator<>(lo, mid, generator);
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | IMMUTABLE;
+    }
+}
@@ -0,0 +1,188 @@
+package com.yubin.stream.op;
+
+import com.yubin.stream.primitive.IntHashSet;
+import com.yubin.stream.primitive.LongHashSet;
+import com.yubin.stream.primitive.OrderedIntSet;
+import com.yubin.stream.primitive.OrderedLongSet;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基本类型流的去重, 代替boxed().distinct()
+ * Stream.distinct()基于HashSet, 每个元素都要创建一个Integer和一个HashMap.Node,
+ * 这里用开放寻址的IntHashSet/LongHashSet, 元素直接保存在数组中
+ * 1. distinct: 保持第一次出现的顺序. 串行还是并行在终止操作执行时才决定, 返回的流可以再调用parallel()/sequential():
+ *    串行遍历时用一个集合懒过滤; 第一次被拆分(并行执行)时每个子任务先各自去重, 再按从左到右的顺序合并, 之后按数组拆分
+ * 2. distinctUnordered: 不保证顺序, 同样在终止操作执行时才遍历; 并行时每个子任务一个集合, 最后合并, 比有序版本少维护一个顺序数组
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class PrimitiveDistinct {
+
+    private PrimitiveDistinct() {
+    }
+
+    public static IntStream distinct(IntStream stream) {
+        return StreamSupport.intStream(new DistinctIntSpliterator(stream.spliterator(), true), stream.isParallel())
+                .onClose(stream::close);
+    }
+
+    public static IntStream distinctUnordered(IntStream stream) {
+        return StreamSupport.intStream(new DistinctIntSpliterator(stream.spliterator(), false), stream.isParallel())
+                .onClose(stream::close);
+    }
+
+    public static LongStream distinct(LongStream stream) {
+        return StreamSupport.longStream(new DistinctLongSpliterator(stream.spliterator(), true), stream.isParallel())
+                .onClose(stream::close);
+    }
+
+    public static LongStream distinctUnordered(LongStream stream) {
+        return StreamSupport.longStream(new DistinctLongSpliterator(stream.spliterator(), false), stream.isParallel())
+                .onClose(stream::close);
+    }
+
+    /**
+     * 串行遍历时懒过滤; 还没有开始遍历就被拆分时, 先并行求出去重结果(ordered时保持第一次出现的顺序), 之后按数组拆分
+     * 开始遍历之后不再拆分, 所以集合只会被一个线程访问
+     */
+    private static final class DistinctIntSpliterator implements Spliterator.OfInt {
+
+        private Spliterator.OfInt source;
+
+        private final boolean ordered;
+
+        private IntHashSet seen;
+
+        // 并行执行时的去重结果
+        private Spliterator.OfInt distinct;
+
+        private boolean found;
+
+        private DistinctIntSpliterator(Spliterator.OfInt source, boolean ordered) {
+            this.source = source;
+            this.ordered = ordered;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (distinct != null) {
+                return distinct.tryAdvance(action);
+            }
+            if (seen == null) {
+                seen = new IntHashSet();
+            }
+            found = false;
+            while (!found && source.tryAdvance((int value) -> {
+                if (seen.add(value)) {
+                    found = true;
+                    action.accept(value);
+                }
+            })) {
+                // 跳过重复的元素
+            }
+            return found;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            if (distinct == null) {
+                if (seen != null) {
+                    return null;
+                }
+                IntStream parallel = StreamSupport.intStream(source, true);
+                int[] values = ordered
+                        ? parallel.collect(OrderedIntSet::new, OrderedIntSet::add, OrderedIntSet::addAll).toArray()
+                        : parallel.unordered().collect(IntHashSet::new, IntHashSet::add, IntHashSet::addAll).toArray();
+                distinct = Arrays.spliterator(values);
+                source = null;
+            }
+            return distinct.trySplit();
+        }
+
+        @Override
+        public long estimateSize() {
+            return distinct != null ? distinct.estimateSize() : source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = distinct != null
+                    ? distinct.characteristics() : source.characteristics() & (ORDERED | NONNULL);
+            return (ordered ? characteristics : characteristics & ~ORDERED) | DISTINCT;
+        }
+    }
+
+    private static final class DistinctLongSpliterator implements Spliterator.OfLong {
+
+        private Spliterator.OfLong source;
+
+        private final boolean ordered;
+
+        private LongHashSet seen;
+
+        private Spliterator.OfLong distinct;
+
+        private boolean found;
+
+        private DistinctLongSpliterator(Spliterator.OfLong source, boolean ordered) {
+            this.source = source;
+            this.ordered = ordered;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (distinct != null) {
+                return distinct.tryAdvance(action);
+            }
+            if (seen == null) {
+                seen = new LongHashSet();
+            }
+            found = false;
+            while (!found && source.tryAdvance((long value) -> {
+                if (seen.add(value)) {
+                    found = true;
+                    action.accept(value);
+                }
+            })) {
+                // 跳过重复的元素
+            }
+            return found;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            if (distinct == null) {
+                if (seen != null) {
+                    return null;
+                }
+                LongStream parallel = StreamSupport.longStream(source, true);
+                long[] values = ordered
+                        ? parallel.collect(OrderedLongSet::new, OrderedLongSet::add, OrderedLongSet::addAll).toArray()
+                        : parallel.unordered().collect(LongHashSet::new, LongHashSet::add, LongHashSet::addAll).toArray();
+                distinct = Arrays.spliterator(values);
+                source = null;
+            }
+            return distinct.trySplit();
+        }
+
+        @Override
+        public long estimateSize() {
+            return distinct != null ? distinct.estimateSize() : source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = distinct != null
+                    ? distinct.characteristics() : source.characteristics() & (ORDERED | NONNULL);
+            return (ordered ? characteristics : characteristics & ~ORDERED) | DISTINCT;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.yubin.stream.op;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * 基本类型去重测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class PrimitiveDistinctTest {
+
+    @Test
+    public void testDistinct() {
+        // 同StreamDemo.testDistinct, 但是不装箱
+        PrimitiveDistinct.distinct(IntStream.of(1, 2, 2, 4, 4, 6)).forEach(System.out::println);
+        PrimitiveDistinct.distinct(LongStream.of(0, -1, 0, 5, -1)).forEach(System.out::println);
+    }
+
+    @Test
+    public void testCompareWithBoxed() {
+        int[] ids = new Random(42).ints(2000000, -50000, 50000).toArray();
+        int[] expected = Arrays.stream(ids).boxed().distinct().mapToInt(Integer::intValue).toArray();
+
+        Assert.assertArrayEquals(expected, PrimitiveDistinct.distinct(Arrays.stream(ids)).toArray());
+        Assert.assertArrayEquals(expected, PrimitiveDistinct.distinct(Arrays.stream(ids).parallel()).toArray());
+        // 串行流去重之后再切换成并行, 由终止操作决定执行方式
+        Assert.assertArrayEquals(expected, PrimitiveDistinct.distinct(Arrays.stream(ids)).parallel().toArray());
+        Assert.assertArrayEquals(expected, PrimitiveDistinct.distinct(Arrays.stream(ids).parallel()).sequential().toArray());
+        Assert.assertEquals(expected.length, PrimitiveDistinct.distinct(Arrays.stream(ids)).parallel().map(x -> x + 1).count());
+
+        int[] unordered = PrimitiveDistinct.distinctUnordered(Arrays.stream(ids).parallel()).toArray();
+        Arrays.sort(unordered);
+        Assert.assertArrayEquals(Arrays.stream(expected).sorted().toArray(), unordered);
+
+        long[] longs = Arrays.stream(ids).asLongStream().map(x -> x * 10000000000L).toArray();
+        Assert.assertEquals(Arrays.stream(longs).boxed().distinct().collect(Collectors.toList()),
+                PrimitiveDistinct.distinct(Arrays.stream(longs).parallel()).boxed().collect(Collectors.toList()));
+        Assert.assertEquals(expected.length, PrimitiveDistinct.distinctUnordered(Arrays.stream(longs)).count());
+        Assert.assertEquals(Arrays.stream(longs).boxed().distinct().collect(Collectors.toList()),
+                PrimitiveDistinct.distinct(Arrays.stream(longs)).parallel().boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testUnorderedIsLazy() {
+        // 调用时不遍历上游, 无限流加上limit也能结束
+        AtomicInteger visited = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        IntStream distinct = PrimitiveDistinct.distinctUnordered(IntStream.iterate(0, i -> i + 1).map(i -> i % 100)
+                .peek(i -> visited.incrementAndGet()).onClose(() -> closed.set(true)));
+        Assert.assertEquals(0, visited.get());
+        try (IntStream stream = distinct) {
+            Assert.assertEquals(10, stream.limit(10).count());
+        }
+        Assert.assertTrue(closed.get());
+        Assert.assertEquals(10, visited.get());
+
+        LongStream longs = PrimitiveDistinct.distinctUnordered(LongStream.iterate(0, i -> i + 1).map(i -> i % 100)
+                .peek(i -> visited.incrementAndGet()));
+        Assert.assertEquals(10, visited.get());
+        Assert.assertEquals(5, longs.limit(5).count());
+        // 串行流去重之后再切换成并行
+        Assert.assertEquals(100, PrimitiveDistinct.distinctUnordered(IntStream.range(0, 10000).map(i -> i % 100))
+                .parallel().count());
+    }
+}
@@ -0,0 +1,62 @@
+package com.yubin.stream.op;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Stream的工具方法
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class Streams {
+
+    private Streams() {
+    }
+
+    /**
+     * 连接多个流, 代替把Stream.concat(a, b)折叠几百次
+     * 嵌套的concat深度与流的个数相同, 并行时拆分得很不均匀, 流太多时还会StackOverflowError;
+     * 这里把所有流平铺在一个ConcatSpliterator中, 按估计大小均衡拆分
+     * 任意一个流是并行的, 结果就是并行的; 关闭结果时会关闭所有的流
+     */
+    public static <T> Stream<T> concatAll(List<? extends Stream<? extends T>> streams) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Spliterator<? extends T>[] sources = new Spliterator[streams.size()];
+        boolean parallel = false;
+        for (int i = 0; i < sources.length; i++) {
+            Stream<? extends T> stream = streams.get(i);
+            parallel |= stream.isParallel();
+            sources[i] = stream.spliterator();
+        }
+        Stream<T> result = StreamSupport.stream(new ConcatSpliterator<>(sources), parallel);
+        return result.onClose(() -> closeAll(streams));
+    }
+
+    // 参数数组只被复制, 不会写入其它类型的元素
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public static <T> Stream<T> concatAll(Spliterator<? extends T>... spliterators) {
+        return StreamSupport.stream(new ConcatSpliterator<>(spliterators.clone()), false);
+    }
+
+    private static void closeAll(List<? extends Stream<?>> streams) {
+        RuntimeException failure = null;
+        for (Stream<?> stream : streams) {
+            try {
+                stream.close();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
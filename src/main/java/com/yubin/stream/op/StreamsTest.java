@@ -0,0 +1,54 @@
+package com.yubin.stream.op;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 多个流连接测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class StreamsTest {
+
+    @Test
+    public void testConcat() {
+        // 同StreamDemo.testConcat
+        Streams.concatAll(Arrays.asList(Arrays.asList("a", "b", "c").stream(), Arrays.asList("d", "e", "f").stream()))
+                .forEach(System.out::println);
+    }
+
+    @Test
+    public void testConcatManyShards() {
+        List<Stream<Integer>> shards = new ArrayList<>();
+        List<Integer> expected = new ArrayList<>();
+        // 1万个分片, 用Stream.concat折叠会StackOverflowError
+        for (int shard = 0; shard < 10000; shard++) {
+            List<Integer> data = IntStream.range(shard * 10, shard * 10 + shard % 20).boxed().collect(Collectors.toList());
+            expected.addAll(data);
+            shards.add(data.stream());
+        }
+        Stream<Integer> stream = Streams.concatAll(shards);
+        Spliterator<Integer> spliterator = stream.spliterator();
+        Assert.assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+        Assert.assertEquals(expected.size(), spliterator.getExactSizeIfKnown());
+
+        shards.clear();
+        for (int shard = 0; shard < 10000; shard++) {
+            shards.add(expected.subList(0, 0).stream());
+        }
+        shards.set(5000, expected.stream());
+        Assert.assertEquals(expected, Streams.concatAll(shards).parallel().collect(Collectors.toList()));
+        Assert.assertEquals(expected.stream().mapToLong(x -> x).sum(),
+                Streams.concatAll(expected.subList(0, 1000).spliterator(), expected.subList(1000, expected.size()).spliterator())
+                        .parallel().mapToLong(x -> x).sum());
+    }
+}
@@ -0,0 +1,292 @@
+package com.yubin.stream.op;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 有界堆实现的TopK, 代替sorted(comparator).limit(k)
+ * sorted().limit(k)要先缓存并排序全部元素, 时间O(n log n), 内存O(n);
+ * 这里只保留一个大小为k的堆, 堆顶是当前k个元素中最差的一个, 时间O(n log k), 内存O(k)
+ * 1. 结果与sorted(comparator).limit(k)完全一致, 相等的元素按出现顺序排列(稳定)
+ * 2. 并行时每个子任务一个堆, 合并时把右边的堆依次放入左边的堆
+ * 3. 按int类型的key(例如Student::getScore)排序时key保存在int[]中, 比较时不调用Comparator
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class TopK {
+
+    private TopK() {
+    }
+
+    /**
+     * 按comparator排序后的前k个元素, 等价于sorted(comparator).limit(k)
+     */
+    public static <T> Collector<T, ?, List<T>> smallest(int k, Comparator<? super T> comparator) {
+        checkK(k);
+        return Collector.<T, Heap<T>, List<T>>of(() -> new ComparatorHeap<T>(k, comparator), Heap::offer, Heap::merge, Heap::toList);
+    }
+
+    /**
+     * 按comparator排序后的最后k个元素, 从大到小排列
+     */
+    public static <T> Collector<T, ?, List<T>> largest(int k, Comparator<? super T> comparator) {
+        return smallest(k, comparator.reversed());
+    }
+
+    /**
+     * 按int类型的key从小到大的前k个元素, 等价于sorted(Comparator.comparingInt(key)).limit(k)
+     */
+    public static <T> Collector<T, ?, List<T>> smallestByInt(int k, ToIntFunction<? super T> key) {
+        checkK(k);
+        return Collector.<T, Heap<T>, List<T>>of(() -> new IntKeyHeap<T>(k, key, false), Heap::offer, Heap::merge, Heap::toList);
+    }
+
+    /**
+     * 按int类型的key从大到小的前k个元素, 例如分数最高的100个学生: largestByInt(100, Student::getScore)
+     */
+    public static <T> Collector<T, ?, List<T>> largestByInt(int k, ToIntFunction<? super T> key) {
+        checkK(k);
+        return Collector.<T, Heap<T>, List<T>>of(() -> new IntKeyHeap<T>(k, key, true), Heap::offer, Heap::merge, Heap::toList);
+    }
+
+    /**
+     * 流操作版本: stream.sorted(comparator).limit(k)
+     * 与sorted一样是懒执行的, 终止操作开始时才遍历上游并建堆, 关闭返回的流时会关闭原来的流
+     */
+    public static <T> Stream<T> sortedLimit(Stream<T> stream, int k, Comparator<? super T> comparator) {
+        checkK(k);
+        // 结果是ArrayList, 它的Spliterator是ORDERED | SIZED | SUBSIZED的
+        return StreamSupport.stream(() -> stream.collect(smallest(k, comparator)).spliterator(),
+                Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED, stream.isParallel())
+                .onClose(stream::close);
+    }
+
+    private static void checkK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+    }
+
+    // 大顶堆: 堆顶是最差的元素, 相等时出现得越晚越差
+    private abstract static class Heap<T> {
+
+        private final int k;
+
+        Object[] items;
+
+        // 元素的出现顺序, 用来保证稳定
+        private long[] seqs;
+
+        int size;
+
+        // 已经处理过的元素个数
+        private long count;
+
+        Heap(int k) {
+            this.k = k;
+            int capacity = Math.min(k, 16);
+            items = new Object[capacity];
+            seqs = new long[capacity];
+        }
+
+        // 比较两个槽位中元素的key
+        abstract int compareKeys(int i, int j);
+
+        // 比较槽位中元素和新元素的key
+        abstract int compareKeyTo(int slot, T t);
+
+        abstract void storeKey(int slot, T t);
+
+        abstract void swapKeys(int i, int j);
+
+        abstract void grow(int capacity);
+
+        void offer(T t) {
+            offer(t, count++);
+        }
+
+        private void offer(T t, long seq) {
+            if (size < k) {
+                if (size == items.length) {
+                    int capacity = (int) Math.min(k, size * 2L);
+                    items = Arrays.copyOf(items, capacity);
+                    seqs = Arrays.copyOf(seqs, capacity);
+                    grow(capacity);
+                }
+                int slot = size++;
+                set(slot, t, seq);
+                siftUp(slot);
+            } else if (k > 0) {
+                int c = compareKeyTo(0, t);
+                if (c > 0 || (c == 0 && seqs[0] > seq)) {
+                    set(0, t, seq);
+                    siftDown(0);
+                }
+            }
+        }
+
+        private void set(int slot, T t, long seq) {
+            items[slot] = t;
+            seqs[slot] = seq;
+            storeKey(slot, t);
+        }
+
+        /**
+         * 合并右边子任务的堆, 右边元素的顺序号整体排在左边之后
+         */
+        @SuppressWarnings("unchecked")
+        Heap<T> merge(Heap<T> right) {
+            long offset = count;
+            for (int i = 0; i < right.size; i++) {
+                offer((T) right.items[i], right.seqs[i] + offset);
+            }
+            count += right.count;
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> toList() {
+            Integer[] slots = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                slots[i] = i;
+            }
+            Arrays.sort(slots, this::compare);
+            List<T> result = new ArrayList<>(size);
+            for (Integer slot : slots) {
+                result.add((T) items[slot]);
+            }
+            return result;
+        }
+
+        private int compare(int i, int j) {
+            int c = compareKeys(i, j);
+            return c != 0 ? c : Long.compare(seqs[i], seqs[j]);
+        }
+
+        private void siftUp(int slot) {
+            while (slot > 0) {
+                int parent = (slot - 1) >>> 1;
+                if (compare(slot, parent) <= 0) {
+                    break;
+                }
+                swap(slot, parent);
+                slot = parent;
+            }
+        }
+
+        private void siftDown(int slot) {
+            while (true) {
+                int left = 2 * slot + 1;
+                if (left >= size) {
+                    break;
+                }
+                int worst = left;
+                int right = left + 1;
+                if (right < size && compare(right, left) > 0) {
+                    worst = right;
+                }
+                if (compare(worst, slot) <= 0) {
+                    break;
+                }
+                swap(slot, worst);
+                slot = worst;
+            }
+        }
+
+        private void swap(int i, int j) {
+            Object item = items[i];
+            items[i] = items[j];
+            items[j] = item;
+            long seq = seqs[i];
+            seqs[i] = seqs[j];
+            seqs[j] = seq;
+            swapKeys(i, j);
+        }
+    }
+
+    private static final class ComparatorHeap<T> extends Heap<T> {
+
+        private final Comparator<? super T> comparator;
+
+        ComparatorHeap(int k, Comparator<? super T> comparator) {
+            super(k);
+            this.comparator = comparator;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        int compareKeys(int i, int j) {
+            return comparator.compare((T) items[i], (T) items[j]);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        int compareKeyTo(int slot, T t) {
+            return comparator.compare((T) items[slot], t);
+        }
+
+        @Override
+        void storeKey(int slot, T t) {
+        }
+
+        @Override
+        void swapKeys(int i, int j) {
+        }
+
+        @Override
+        void grow(int capacity) {
+        }
+    }
+
+    private static final class IntKeyHeap<T> extends Heap<T> {
+
+        private final ToIntFunction<? super T> key;
+
+        private final boolean reverse;
+
+        private int[] keys;
+
+        IntKeyHeap(int k, ToIntFunction<? super T> key, boolean reverse) {
+            super(k);
+            this.key = key;
+            this.reverse = reverse;
+            this.keys = new int[items.length];
+        }
+
+        @Override
+        int compareKeys(int i, int j) {
+            return reverse ? Integer.compare(keys[j], keys[i]) : Integer.compare(keys[i], keys[j]);
+        }
+
+        @Override
+        int compareKeyTo(int slot, T t) {
+            int value = key.applyAsInt(t);
+            return reverse ? Integer.compare(value, keys[slot]) : Integer.compare(keys[slot], value);
+        }
+
+        @Override
+        void storeKey(int slot, T t) {
+            keys[slot] = key.applyAsInt(t);
+        }
+
+        @Override
+        void swapKeys(int i, int j) {
+            int tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+
+        @Override
+        void grow(int capacity) {
+            keys = Arrays.copyOf(keys, capacity);
+        }
+    }
+}
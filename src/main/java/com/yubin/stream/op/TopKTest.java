@@ -0,0 +1,68 @@
+package com.yubin.stream.op;
+
+import com.yubin.lambda.entity.Student;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * TopK测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class TopKTest {
+
+    @Test
+    public void testTopK() {
+        // 同StreamDemo.testSorted + testLimit: sorted((a, b) -> a - b).limit(3)
+        System.out.println(Arrays.asList(6, 2, 5, 1, 4, 3).stream().collect(TopK.smallest(3, Integer::compare)));
+        TopK.sortedLimit(Arrays.asList(6, 2, 5, 1, 4, 3).stream(), 3, Comparator.reverseOrder()).forEach(System.out::print);
+        System.out.println();
+    }
+
+    @Test
+    public void testCompareWithSortedLimit() {
+        String[] names = {"张三", "李四", "王五", "小红帽", "小绿"};
+        Random random = new Random(42);
+        List<Student> list = new ArrayList<>();
+        for (int i = 0; i < 500000; i++) {
+            list.add(new Student(names[random.nextInt(names.length)] + i, 10 + random.nextInt(10), random.nextInt(101)));
+        }
+        Comparator<Student> byScore = Comparator.comparingInt(Student::getScore);
+        for (int k : new int[]{0, 1, 100, 5000}) {
+            List<Student> smallest = list.stream().sorted(byScore).limit(k).collect(Collectors.toList());
+            List<Student> largest = list.stream().sorted(byScore.reversed()).limit(k).collect(Collectors.toList());
+
+            Assert.assertEquals(smallest, list.stream().collect(TopK.smallest(k, byScore)));
+            Assert.assertEquals(smallest, list.parallelStream().collect(TopK.smallest(k, byScore)));
+            Assert.assertEquals(smallest, list.parallelStream().collect(TopK.smallestByInt(k, Student::getScore)));
+            Assert.assertEquals(largest, list.stream().collect(TopK.largest(k, byScore)));
+            Assert.assertEquals(largest, list.parallelStream().collect(TopK.largestByInt(k, Student::getScore)));
+        }
+    }
+
+    @Test
+    public void testSortedLimitIsLazy() {
+        AtomicInteger visited = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Integer> top = TopK.sortedLimit(Stream.of(6, 2, 5, 1, 4, 3).peek(i -> visited.incrementAndGet())
+                .onClose(() -> closed.set(true)), 3, Comparator.naturalOrder());
+        // 终止操作之前不遍历上游
+        Assert.assertEquals(0, visited.get());
+        try (Stream<Integer> stream = top) {
+            Assert.assertEquals(Arrays.asList(1, 2, 3), stream.collect(Collectors.toList()));
+        }
+        Assert.assertEquals(6, visited.get());
+        Assert.assertTrue(closed.get());
+    }
+}
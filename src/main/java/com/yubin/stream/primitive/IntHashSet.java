@@ -0,0 +1,163 @@
+package com.yubin.stream.primitive;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * 开放寻址(线性探测)的int集合, 元素直接保存在int[]中, 不会为每个元素创建Integer和HashMap.Node
+ * 0用来表示空槽, 元素0单独用一个标志位记录
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class IntHashSet {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] table;
+
+    private int mask;
+
+    private int size;
+
+    private boolean hasZero;
+
+    // 元素个数达到这个值时扩容
+    private int resizeAt;
+
+    public IntHashSet() {
+        this(16);
+    }
+
+    public IntHashSet(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    static int tableSizeFor(int expectedSize) {
+        long capacity = Math.max(4, (long) Math.ceil(expectedSize / (double) LOAD_FACTOR));
+        if (capacity > 1 << 30) {
+            return 1 << 30;
+        }
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+
+    private void allocate(int capacity) {
+        table = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // murmur3的fmix32, 让相邻的整数分散到不同的槽
+    static int mix(int key) {
+        key ^= key >>> 16;
+        key *= 0x85ebca6b;
+        key ^= key >>> 13;
+        key *= 0xc2b2ae35;
+        key ^= key >>> 16;
+        return key;
+    }
+
+    /**
+     * 添加元素, 集合中原来没有这个元素时返回true
+     */
+    public boolean add(int key) {
+        if (key == 0) {
+            if (hasZero) {
+                return false;
+            }
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int slot = mix(key) & mask;
+        int current;
+        while ((current = table[slot]) != 0) {
+            if (current == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = key;
+        if (++size >= resizeAt) {
+            rehash();
+        }
+        return true;
+    }
+
+    public boolean contains(int key) {
+        if (key == 0) {
+            return hasZero;
+        }
+        int slot = mix(key) & mask;
+        int current;
+        while ((current = table[slot]) != 0) {
+            if (current == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public void addAll(IntHashSet other) {
+        other.forEach(this::add);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        if (hasZero) {
+            action.accept(0);
+        }
+        for (int key : table) {
+            if (key != 0) {
+                action.accept(key);
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int n = 0;
+        if (hasZero) {
+            result[n++] = 0;
+        }
+        for (int key : table) {
+            if (key != 0) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 集合中的元素, 没有顺序
+     */
+    public IntStream stream() {
+        return Arrays.stream(toArray());
+    }
+
+    private void rehash() {
+        int[] old = table;
+        if (old.length == 1 << 30) {
+            throw new IllegalStateException("Set is full: " + size);
+        }
+        allocate(old.length << 1);
+        for (int key : old) {
+            if (key != 0) {
+                int slot = mix(key) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = key;
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.yubin.stream.primitive;
+
+/**
+ * 接收int键和对象值的函数式接口, 遍历IntObjectHashMap时不需要把键装箱
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+@FunctionalInterface
+public interface IntObjectConsumer<V> {
+
+    void accept(int key, V value);
+}
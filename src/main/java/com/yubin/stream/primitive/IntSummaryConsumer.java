@@ -0,0 +1,13 @@
+package com.yubin.stream.primitive;
+
+/**
+ * 接收一个分组的键与统计值的函数式接口
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+@FunctionalInterface
+public interface IntSummaryConsumer {
+
+    void accept(int key, long count, long sum, int min, int max);
+}
@@ -0,0 +1,243 @@
+package com.yubin.stream.primitive;
+
+import java.util.Arrays;
+
+/**
+ * int键到分组统计值(count/sum/min/max)的开放寻址Map
+ * 每个分组的统计值分别保存在long[]/int[]中, 累加和合并时都不装箱, 相当于Map<Integer, IntSummaryStatistics>
+ * 0用来表示空槽, 键0的统计值放在各个数组的最后一个位置
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class IntSummaryMap {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+
+    // 以下数组都比keys多一个位置, 下标keys.length是键0的统计值
+    private long[] counts;
+
+    private long[] sums;
+
+    private int[] mins;
+
+    private int[] maxs;
+
+    private int mask;
+
+    private int size;
+
+    private int resizeAt;
+
+    public IntSummaryMap() {
+        this(16);
+    }
+
+    public IntSummaryMap(int expectedSize) {
+        allocate(IntHashSet.tableSizeFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        counts = new long[capacity + 1];
+        sums = new long[capacity + 1];
+        mins = new int[capacity + 1];
+        maxs = new int[capacity + 1];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * 把value计入key所在的分组
+     */
+    public void accept(int key, int value) {
+        int slot = slotFor(key);
+        counts[slot]++;
+        sums[slot] += value;
+        mins[slot] = Math.min(mins[slot], value);
+        maxs[slot] = Math.max(maxs[slot], value);
+    }
+
+    /**
+     * 把另一个Map的统计值合并进来, 用于并行流的combiner
+     */
+    public void merge(IntSummaryMap other) {
+        other.forEach((key, count, sum, min, max) -> {
+            int slot = slotFor(key);
+            counts[slot] += count;
+            sums[slot] += sum;
+            mins[slot] = Math.min(mins[slot], min);
+            maxs[slot] = Math.max(maxs[slot], max);
+        });
+    }
+
+    // 返回key的位置, 没有时插入一个空的分组
+    private int slotFor(int key) {
+        if (key == 0) {
+            int slot = keys.length;
+            if (counts[slot] == 0) {
+                initialize(slot);
+                size++;
+            }
+            return slot;
+        }
+        if (size >= resizeAt) {
+            rehash();
+        }
+        int slot = IntHashSet.mix(key) & mask;
+        int current;
+        while ((current = keys[slot]) != 0) {
+            if (current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        initialize(slot);
+        size++;
+        return slot;
+    }
+
+    private void initialize(int slot) {
+        mins[slot] = Integer.MAX_VALUE;
+        maxs[slot] = Integer.MIN_VALUE;
+    }
+
+    private int find(int key) {
+        if (key == 0) {
+            return counts[keys.length] == 0 ? -1 : keys.length;
+        }
+        int slot = IntHashSet.mix(key) & mask;
+        int current;
+        while ((current = keys[slot]) != 0) {
+            if (current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    public long getCount(int key) {
+        int slot = find(key);
+        return slot < 0 ? 0 : counts[slot];
+    }
+
+    public long getSum(int key) {
+        int slot = find(key);
+        return slot < 0 ? 0 : sums[slot];
+    }
+
+    /**
+     * 分组不存在时返回Integer.MAX_VALUE, 与IntSummaryStatistics相同
+     */
+    public int getMin(int key) {
+        int slot = find(key);
+        return slot < 0 ? Integer.MAX_VALUE : mins[slot];
+    }
+
+    /**
+     * 分组不存在时返回Integer.MIN_VALUE, 与IntSummaryStatistics相同
+     */
+    public int getMax(int key) {
+        int slot = find(key);
+        return slot < 0 ? Integer.MIN_VALUE : maxs[slot];
+    }
+
+    public double getAverage(int key) {
+        int slot = find(key);
+        return slot < 0 ? 0.0 : (double) sums[slot] / counts[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(IntSummaryConsumer action) {
+        int zero = keys.length;
+        if (counts[zero] != 0) {
+            action.accept(0, counts[zero], sums[zero], mins[zero], maxs[zero]);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], counts[i], sums[i], mins[i], maxs[i]);
+            }
+        }
+    }
+
+    /**
+     * 按从小到大排好序的键
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int n = 0;
+        if (counts[keys.length] != 0) {
+            result[n++] = 0;
+        }
+        for (int key : keys) {
+            if (key != 0) {
+                result[n++] = key;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        long[] oldCounts = counts;
+        long[] oldSums = sums;
+        int[] oldMins = mins;
+        int[] oldMaxs = maxs;
+        if (oldKeys.length == 1 << 30) {
+            throw new IllegalStateException("Map is full: " + size);
+        }
+        allocate(oldKeys.length << 1);
+        moveSlot(oldKeys.length, keys.length, oldCounts, oldSums, oldMins, oldMaxs);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != 0) {
+                int slot = IntHashSet.mix(key) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                moveSlot(i, slot, oldCounts, oldSums, oldMins, oldMaxs);
+            }
+        }
+    }
+
+    private void moveSlot(int from, int to, long[] oldCounts, long[] oldSums, int[] oldMins, int[] oldMaxs) {
+        counts[to] = oldCounts[from];
+        sums[to] = oldSums[from];
+        mins[to] = oldMins[from];
+        maxs[to] = oldMaxs[from];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int key : keys()) {
+            int slot = find(key);
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key).append("={count=").append(counts[slot])
+                    .append(", sum=").append(sums[slot])
+                    .append(", min=").append(mins[slot])
+                    .append(", average=").append((double) sums[slot] / counts[slot])
+                    .append(", max=").append(maxs[slot]).append('}');
+        }
+        return builder.append('}').toString();
+    }
+}
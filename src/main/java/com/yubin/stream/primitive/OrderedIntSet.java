@@ -0,0 +1,68 @@
+package com.yubin.stream.primitive;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * 保留插入顺序的int集合, 相当于基本类型版的LinkedHashSet
+ * 去重用IntHashSet, 另外用一个int[]按顺序记录第一次出现的元素
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class OrderedIntSet {
+
+    private final IntHashSet set;
+
+    private int[] order;
+
+    private int size;
+
+    public OrderedIntSet() {
+        this(16);
+    }
+
+    public OrderedIntSet(int expectedSize) {
+        set = new IntHashSet(expectedSize);
+        order = new int[Math.max(expectedSize, 4)];
+    }
+
+    public boolean add(int key) {
+        if (!set.add(key)) {
+            return false;
+        }
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size + (size >> 1) + 1);
+        }
+        order[size++] = key;
+        return true;
+    }
+
+    /**
+     * 把other追加到后面, other中已经存在的元素保留在当前集合中的位置
+     */
+    public void addAll(OrderedIntSet other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.order[i]);
+        }
+    }
+
+    public boolean contains(int key) {
+        return set.contains(key);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(order, size);
+    }
+
+    /**
+     * 按第一次出现的顺序返回元素
+     */
+    public IntStream stream() {
+        return Arrays.stream(order, 0, size);
+    }
+}
@@ -0,0 +1,68 @@
+package com.yubin.stream.primitive;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * 保留插入顺序的long集合, 相当于基本类型版的LinkedHashSet
+ * 去重用LongHashSet, 另外用一个long[]按顺序记录第一次出现的元素
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class OrderedLongSet {
+
+    private final LongHashSet set;
+
+    private long[] order;
+
+    private int size;
+
+    public OrderedLongSet() {
+        this(16);
+    }
+
+    public OrderedLongSet(int expectedSize) {
+        set = new LongHashSet(expectedSize);
+        order = new long[Math.max(expectedSize, 4)];
+    }
+
+    public boolean add(long key) {
+        if (!set.add(key)) {
+            return false;
+        }
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size + (size >> 1) + 1);
+        }
+        order[size++] = key;
+        return true;
+    }
+
+    /**
+     * 把other追加到后面, other中已经存在的元素保留在当前集合中的位置
+     */
+    public void addAll(OrderedLongSet other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.order[i]);
+        }
+    }
+
+    public boolean contains(long key) {
+        return set.contains(key);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(order, size);
+    }
+
+    /**
+     * 按第一次出现的顺序返回元素
+     */
+    public LongStream stream() {
+        return Arrays.stream(order, 0, size);
+    }
+}
@@ -0,0 +1,188 @@
+package com.yubin.stream.search;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 可取消的并行查找, 对应anyMatch/allMatch/noneMatch/findFirst/findAny
+ * 所有子任务共享一个"当前最优命中下标", 每检查一个元素前都先读一次:
+ * 1. findAny/anyMatch: 任意一个子任务命中后, 其他正在执行和还没开始的子任务都立即停止
+ * 2. findFirst: 只停止命中位置右边的子任务, 左边的子任务继续执行, 因为它们可能找到更靠前的元素
+ * 拆分时右半部分fork出去, 当前线程先处理左半部分, 所以靠前的元素会先被检查
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class ParallelSearchEngine {
+
+    // 小于这个数量直接串行查找
+    private static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    // 每个子任务至少处理的元素个数
+    private static final int MIN_CHUNK = 1024;
+
+    // 每个线程平均分到的子任务个数
+    private static final int TASKS_PER_THREAD = 4;
+
+    // 还没有命中
+    private static final long NONE = Long.MAX_VALUE;
+
+    private final ForkJoinPool pool;
+
+    public ParallelSearchEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelSearchEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * 第一个满足条件的元素, 与list.stream().filter(predicate).findFirst()相同
+     */
+    public <T> SearchResult<T> findFirst(List<T> list, Predicate<? super T> predicate) {
+        return search(list, predicate, true);
+    }
+
+    /**
+     * 任意一个满足条件的元素
+     */
+    public <T> SearchResult<T> findAny(List<T> list, Predicate<? super T> predicate) {
+        return search(list, predicate, false);
+    }
+
+    public <T> boolean anyMatch(List<T> list, Predicate<? super T> predicate) {
+        return findAny(list, predicate).isFound();
+    }
+
+    public <T> boolean noneMatch(List<T> list, Predicate<? super T> predicate) {
+        return !findAny(list, predicate).isFound();
+    }
+
+    /**
+     * 所有元素都满足条件时返回true; 需要知道是哪个元素不满足时用findAny(list, predicate.negate())
+     */
+    public <T> boolean allMatch(List<T> list, Predicate<? super T> predicate) {
+        return !findAny(list, predicate.negate()).isFound();
+    }
+
+    private <T> SearchResult<T> search(List<T> list, Predicate<? super T> predicate, boolean first) {
+        long start = System.nanoTime();
+        int size = list.size();
+        Search<T> search = new Search<>(list, predicate, first);
+        int parallelism = pool.getParallelism();
+        if (size <= SEQUENTIAL_THRESHOLD || parallelism <= 1) {
+            search.scan(0, size);
+        } else {
+            int threshold = Math.max(MIN_CHUNK, size / (parallelism * TASKS_PER_THREAD));
+            pool.invoke(new SearchTask<>(search, 0, size, threshold));
+        }
+        long best = search.best.get();
+        boolean found = best != NONE;
+        int index = found ? (int) best : -1;
+        return new SearchResult<>(found, found ? list.get(index) : null, index,
+                search.examined.sum(), size, System.nanoTime() - start);
+    }
+
+    // 一次查找中所有子任务共享的状态
+    private static class Search<T> {
+
+        private final List<T> list;
+
+        private final Predicate<? super T> predicate;
+
+        private final boolean first;
+
+        // 当前最靠前的命中下标, findAny时就是第一个被发现的命中
+        private final AtomicLong best = new AtomicLong(NONE);
+
+        private final LongAdder examined = new LongAdder();
+
+        Search(List<T> list, Predicate<? super T> predicate, boolean first) {
+            this.list = list;
+            this.predicate = predicate;
+            this.first = first;
+        }
+
+        /**
+         * [from, to)中的元素是否已经不可能影响结果
+         */
+        boolean isSettled(int from) {
+            long current = best.get();
+            // findFirst只剪掉命中位置右边的部分
+            return first ? current < from : current != NONE;
+        }
+
+        void scan(int from, int to) {
+            int i = from;
+            for (; i < to && !isSettled(i); i++) {
+                if (predicate.test(list.get(i))) {
+                    hit(i);
+                    i++;
+                    break;
+                }
+            }
+            examined.add(i - from);
+        }
+
+        private void hit(int index) {
+            long current;
+            while (index < (current = best.get())) {
+                if (best.compareAndSet(current, index) || !first) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static class SearchTask<T> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Search<T> search;
+
+        private final int from;
+
+        private final int to;
+
+        private final int threshold;
+
+        // 同一个任务fork出的子任务链表, 后fork的在前
+        private SearchTask<T> next;
+
+        SearchTask(Search<T> search, int from, int to, int threshold) {
+            this.search = search;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int lo = from;
+            int hi = to;
+            SearchTask<T> forked = null;
+            // 右半部分fork出去, 自己继续拆左半部分, 串成一条链表便于join
+            while (hi - lo > threshold && !search.isSettled(lo)) {
+                int mid = (lo + hi) >>> 1;
+                SearchTask<T> right = new SearchTask<>(search, mid, hi, threshold);
+                right.next = forked;
+                forked = right;
+                right.fork();
+                hi = mid;
+            }
+            search.scan(lo, hi);
+            for (SearchTask<T> task = forked; task != null; task = task.next) {
+                // 结果已经确定时, 还没有开始的子任务直接从队列中取回, 不再执行
+                if (search.isSettled(task.from) && task.tryUnfork()) {
+                    continue;
+                }
+                task.join();
+            }
+        }
+    }
+}
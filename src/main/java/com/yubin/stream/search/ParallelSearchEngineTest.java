@@ -0,0 +1,62 @@
+package com.yubin.stream.search;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 可取消的并行查找测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class ParallelSearchEngineTest {
+
+    private final ParallelSearchEngine engine = new ParallelSearchEngine(new ForkJoinPool(4));
+
+    @Test
+    public void testMatch() {
+        // 同StreamDemo.testAnyMatch、testNoneMatch
+        List<String> list = Arrays.asList("a", "b", "c", "d");
+        Assert.assertTrue(engine.anyMatch(list, "b"::equals));
+        Assert.assertTrue(engine.noneMatch(list, "e"::equals));
+        Assert.assertTrue(engine.allMatch(list, s -> s.length() == 1));
+        System.out.println(engine.findFirst(list, s -> s.compareTo("a") > 0));
+    }
+
+    @Test
+    public void testFindFirst() {
+        List<Integer> list = IntStream.range(0, 1000000).boxed().collect(Collectors.toList());
+        for (int target : new int[]{0, 1, 1023, 250000, 500001, 999999}) {
+            // 目标之后每隔1000个元素还有一个命中, 必须返回最靠前的那个
+            Predicate<Integer> predicate = x -> x == target || (x > target && x % 1000 == 7);
+            SearchResult<Integer> result = engine.findFirst(list, predicate);
+            Assert.assertEquals(target, result.getIndex());
+            Assert.assertEquals(Integer.valueOf(target), result.get());
+            Assert.assertEquals(list.stream().filter(predicate).findFirst(), result.toOptional());
+            Assert.assertEquals(result.getTotal(), result.getExamined() + result.getSkipped());
+            System.out.println(result);
+        }
+        SearchResult<Integer> none = engine.findFirst(list, x -> x < 0);
+        Assert.assertFalse(none.isFound());
+        Assert.assertEquals(-1, none.getIndex());
+        Assert.assertEquals(list.size(), none.getExamined());
+    }
+
+    @Test
+    public void testCancellation() {
+        List<Integer> list = IntStream.range(0, 1000000).boxed().collect(Collectors.toList());
+        SearchResult<Integer> any = engine.findAny(list, x -> x % 100000 == 99);
+        Assert.assertTrue(any.isFound());
+        Assert.assertEquals(99, any.get() % 100000);
+        // 命中后其他子任务停止, 大部分元素都被跳过
+        Assert.assertTrue(any.toString(), any.getSkipped() > list.size() / 2);
+        Assert.assertFalse(engine.allMatch(list, x -> x != 123456));
+    }
+}
@@ -0,0 +1,93 @@
+package com.yubin.stream.search;
+
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * 并行查找的结果与统计信息
+ * examined是实际调用过谓词的元素个数, skipped是因为结果已经确定而没有检查的元素个数
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class SearchResult<T> {
+
+    private final boolean found;
+
+    private final T element;
+
+    private final int index;
+
+    private final long examined;
+
+    private final long total;
+
+    private final long elapsedNanos;
+
+    SearchResult(boolean found, T element, int index, long examined, long total, long elapsedNanos) {
+        this.found = found;
+        this.element = element;
+        this.index = index;
+        this.examined = examined;
+        this.total = total;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * 是否找到了满足条件的元素
+     */
+    public boolean isFound() {
+        return found;
+    }
+
+    /**
+     * 找到的元素, 没有找到时抛出NoSuchElementException
+     */
+    public T get() {
+        if (!found) {
+            throw new NoSuchElementException("No element found");
+        }
+        return element;
+    }
+
+    /**
+     * 同Stream.findFirst/findAny, 元素为null时抛出NullPointerException
+     */
+    public Optional<T> toOptional() {
+        return found ? Optional.of(element) : Optional.empty();
+    }
+
+    /**
+     * 找到的元素在源集合中的下标, 没有找到时返回-1
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public long getExamined() {
+        return examined;
+    }
+
+    public long getSkipped() {
+        return total - examined;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{" +
+                "found=" + found +
+                (found ? ", index=" + index + ", element=" + element : "") +
+                ", examined=" + examined +
+                ", skipped=" + getSkipped() +
+                ", elapsedMicros=" + elapsedNanos / 1000 +
+                '}';
+    }
+}
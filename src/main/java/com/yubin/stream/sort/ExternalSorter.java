@@ -0,0 +1,393 @@
+package com.yubin.stream.sort;
+
+import com.yubin.stream.io.RecordFormat;
+import com.yubin.stream.io.SpillReader;
+import com.yubin.stream.io.SpillWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 外部归并排序, 用于放不进内存的stream.sorted(comparator)
+ * 1. 读入元素直到估计的内存占用达到预算的一半, 用Arrays.parallelSort排序后写到临时文件(有序段)
+ *    排序和写文件在后台进行, 同时读入下一段, 所以任意时刻最多有两段在内存中
+ * 2. 有序段用SpillWriter的变长编码保存, 只需要RecordFormat, Student/User或RecordFormat.of生成的格式都可以
+ * 3. 段数超过fanIn时先把前fanIn段归并成一段, 直到段数不超过fanIn
+ * 4. 最后用优先队列对所有段做k路归并, 返回的流是惰性的, 每个段只有一个缓冲区和一个元素在内存中
+ * 比较相等的元素按输入顺序输出(排序是稳定的); 所有元素都放得下时不写文件, 直接返回内存中排好序的流
+ * 临时文件在流读完或者关闭时删除, 没读完的流需要用try-with-resources关闭
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class ExternalSorter<T> {
+
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+    private static final int DEFAULT_FAN_IN = 64;
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final RecordFormat<T> format;
+
+    private final Comparator<? super T> comparator;
+
+    private final long memoryBudget;
+
+    private final Path tempDir;
+
+    private final int fanIn;
+
+    private final int bufferSize;
+
+    public ExternalSorter(RecordFormat<T> format, Comparator<? super T> comparator, long memoryBudget) {
+        this(format, comparator, memoryBudget, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    public ExternalSorter(RecordFormat<T> format, Comparator<? super T> comparator, long memoryBudget, Path tempDir) {
+        this(format, comparator, memoryBudget, tempDir, DEFAULT_FAN_IN, DEFAULT_BUFFER_SIZE);
+    }
+
+    ExternalSorter(RecordFormat<T> format, Comparator<? super T> comparator, long memoryBudget, Path tempDir,
+                   int fanIn, int bufferSize) {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("memoryBudget must be positive: " + memoryBudget);
+        }
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("fanIn must be at least 2: " + fanIn);
+        }
+        this.format = format;
+        this.comparator = comparator;
+        this.memoryBudget = memoryBudget;
+        this.tempDir = tempDir;
+        this.fanIn = fanIn;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * 流操作版本: stream.sorted(comparator), 内存预算为memoryBudget字节
+     */
+    public static <T> Stream<T> sorted(Stream<T> stream, RecordFormat<T> format, Comparator<? super T> comparator,
+                                       long memoryBudget) {
+        return new ExternalSorter<>(format, comparator, memoryBudget).sort(stream);
+    }
+
+    /**
+     * 读完input并返回排好序的流, 关闭返回的流时会关闭input并删除临时文件
+     */
+    public Stream<T> sort(Stream<T> input) {
+        boolean parallel = input.isParallel();
+        RunGenerator generator = new RunGenerator();
+        try {
+            input.spliterator().forEachRemaining(generator);
+            Stream<T> sorted;
+            if (generator.runs.isEmpty() && generator.pending == null) {
+                // 没有超出预算, 不需要写文件
+                T[] array = generator.sortBuffer();
+                sorted = Arrays.stream(array);
+            } else {
+                generator.spill();
+                List<Run> runs = generator.finish();
+                Merger merger = mergeDown(runs);
+                sorted = StreamSupport.stream(new MergeSpliterator(merger), false).onClose(merger::close);
+            }
+            return (parallel ? sorted.parallel() : sorted).onClose(input::close);
+        } catch (RuntimeException | Error e) {
+            generator.abort();
+            input.close();
+            throw e;
+        }
+    }
+
+    // 段数超过fanIn时逐轮归并, 返回最后一轮的归并器
+    private Merger mergeDown(List<Run> runs) {
+        List<Run> pending = new ArrayList<>(runs);
+        try {
+            while (pending.size() > fanIn) {
+                List<Run> group = new ArrayList<>(pending.subList(0, fanIn));
+                pending.subList(0, fanIn).clear();
+                // 新段包含的元素在输入中比剩下的段都靠前, 放到最前面才能保持稳定
+                pending.add(0, mergeToRun(group));
+            }
+            return new Merger(pending);
+        } catch (IOException e) {
+            pending.forEach(Run::delete);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Run mergeToRun(List<Run> group) throws IOException {
+        Run run = new Run(Files.createTempFile(tempDir, "sort-run-", ".bin"));
+        try (Merger merger = new Merger(group);
+             SpillWriter<T> writer = new SpillWriter<>(run.path, format, bufferSize)) {
+            for (T t = merger.next(); t != null; t = merger.next()) {
+                writer.write(t);
+            }
+            run.count = writer.count();
+        } catch (IOException | RuntimeException e) {
+            run.delete();
+            throw e;
+        }
+        return run;
+    }
+
+    private Run writeRun(T[] sorted) throws IOException {
+        Run run = new Run(Files.createTempFile(tempDir, "sort-run-", ".bin"));
+        try (SpillWriter<T> writer = new SpillWriter<>(run.path, format, bufferSize)) {
+            for (T t : sorted) {
+                writer.write(t);
+            }
+            run.count = writer.count();
+        } catch (IOException | RuntimeException e) {
+            run.delete();
+            throw e;
+        }
+        return run;
+    }
+
+    private static final class Run {
+
+        private final Path path;
+
+        private long count;
+
+        private Run(Path path) {
+            this.path = path;
+        }
+
+        private void delete() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // 临时目录中的文件, 删除失败不影响结果
+            }
+        }
+    }
+
+    /**
+     * 生成有序段: 缓冲区满时交给后台排序并写文件, 同时只允许一个后台任务
+     */
+    private final class RunGenerator implements Consumer<T> {
+
+        private final long limit = Math.max(1, memoryBudget / 2);
+
+        private final List<Run> runs = new ArrayList<>();
+
+        private List<T> buffer = new ArrayList<>();
+
+        private long bufferBytes;
+
+        private CompletableFuture<Run> pending;
+
+        @Override
+        public void accept(T t) {
+            buffer.add(t);
+            bufferBytes += format.estimateHeapSize(t);
+            if (bufferBytes >= limit) {
+                spill();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private T[] sortBuffer() {
+            T[] array = (T[]) buffer.toArray();
+            buffer = new ArrayList<>();
+            bufferBytes = 0;
+            Arrays.parallelSort(array, comparator);
+            return array;
+        }
+
+        private void spill() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            awaitPending();
+            @SuppressWarnings("unchecked")
+            T[] array = (T[]) buffer.toArray();
+            buffer = new ArrayList<>();
+            bufferBytes = 0;
+            pending = CompletableFuture.supplyAsync(() -> {
+                Arrays.parallelSort(array, comparator);
+                try {
+                    return writeRun(array);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+
+        private void awaitPending() {
+            if (pending == null) {
+                return;
+            }
+            try {
+                runs.add(pending.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+            } finally {
+                pending = null;
+            }
+        }
+
+        private List<Run> finish() {
+            awaitPending();
+            return runs;
+        }
+
+        private void abort() {
+            try {
+                awaitPending();
+            } catch (RuntimeException ignored) {
+                // 已经在处理其他异常
+            }
+            runs.forEach(Run::delete);
+        }
+    }
+
+    /**
+     * k路归并, 堆中每个段一个元素, 比较相等时段号小的在前
+     */
+    private final class Merger implements Closeable {
+
+        private final List<Run> runs;
+
+        private final List<SpillReader<T>> readers = new ArrayList<>();
+
+        private final PriorityQueue<Head> heap;
+
+        private long remaining;
+
+        private boolean closed;
+
+        private Merger(List<Run> runs) throws IOException {
+            this.runs = runs;
+            this.heap = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) -> {
+                int c = comparator.compare(a.value, b.value);
+                return c != 0 ? c : Integer.compare(a.run, b.run);
+            });
+            long total = 0;
+            try {
+                for (int i = 0; i < runs.size(); i++) {
+                    Run run = runs.get(i);
+                    SpillReader<T> reader = new SpillReader<>(run.path, format, run.count, bufferSize);
+                    readers.add(reader);
+                    total += run.count;
+                    T first = reader.next();
+                    if (first != null) {
+                        heap.add(new Head(first, i));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+            this.remaining = total;
+        }
+
+        /**
+         * 下一个最小的元素, 归并完时返回null并删除所有段
+         */
+        private T next() throws IOException {
+            Head head = heap.poll();
+            if (head == null) {
+                close();
+                return null;
+            }
+            remaining--;
+            T value = head.value;
+            T next = readers.get(head.run).next();
+            if (next != null) {
+                head.value = next;
+                heap.add(head);
+            }
+            return value;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            heap.clear();
+            for (SpillReader<T> reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException ignored) {
+                    // 只读的文件, 关闭失败可以忽略
+                }
+            }
+            runs.forEach(Run::delete);
+        }
+    }
+
+    private final class Head {
+
+        private T value;
+
+        private final int run;
+
+        private Head(T value, int run) {
+            this.value = value;
+            this.run = run;
+        }
+    }
+
+    private final class MergeSpliterator implements Spliterator<T> {
+
+        private final Merger merger;
+
+        private MergeSpliterator(Merger merger) {
+            this.merger = merger;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            T next;
+            try {
+                next = merger.next();
+            } catch (IOException e) {
+                merger.close();
+                throw new UncheckedIOException(e);
+            }
+            if (next == null) {
+                return false;
+            }
+            action.accept(next);
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            // 归并只能顺序进行
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return merger.remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            // 不能是SIZED: 否则count()直接返回estimateSize()而不遍历, 归并没有结束, 段文件不会被删除
+            return ORDERED | NONNULL;
+        }
+    }
+}
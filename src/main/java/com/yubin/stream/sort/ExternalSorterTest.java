@@ -0,0 +1,158 @@
+package com.yubin.stream.sort;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.stream.User;
+import com.yubin.stream.io.RecordFormat;
+import com.yubin.stream.io.SpillReader;
+import com.yubin.stream.io.SpillWriter;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 外部归并排序测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class ExternalSorterTest {
+
+    // 按成绩排序, 成绩相同按名字排序
+    private static final Comparator<Student> BY_SCORE_THEN_NAME =
+            Comparator.comparingInt(Student::getScore).thenComparing(Student::getName);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSortStudents() throws IOException {
+        List<Student> students = students(100000, 42);
+        Path dir = folder.newFolder().toPath();
+        // 预算1MB, 每段大约1万个学生
+        ExternalSorter<Student> sorter = new ExternalSorter<>(RecordFormat.STUDENT, BY_SCORE_THEN_NAME, 1 << 20, dir);
+        List<Student> expected = new ArrayList<>(students);
+        expected.sort(BY_SCORE_THEN_NAME);
+        try (Stream<Student> sorted = sorter.sort(students.stream())) {
+            Assert.assertTrue(fileCount(dir) > 1);
+            assertSameStudents(expected, sorted.collect(Collectors.toList()));
+        }
+        Assert.assertEquals(0, fileCount(dir));
+    }
+
+    @Test
+    public void testMultiPassMergeIsStable() throws IOException {
+        // 只按成绩排序, 名字中带有输入顺序, 用来检查稳定性; fanIn = 3 时需要多轮归并
+        List<Student> students = students(20000, 7);
+        Path dir = folder.newFolder().toPath();
+        Comparator<Student> byScore = Comparator.comparingInt(Student::getScore);
+        ExternalSorter<Student> sorter = new ExternalSorter<>(RecordFormat.STUDENT, byScore, 64 << 10, dir, 3, 256);
+        List<Student> expected = new ArrayList<>(students);
+        expected.sort(byScore);
+        try (Stream<Student> sorted = sorter.sort(students.stream().parallel())) {
+            assertSameStudents(expected, sorted.collect(Collectors.toList()));
+        }
+        Assert.assertEquals(0, fileCount(dir));
+    }
+
+    @Test
+    public void testLazyMergeAndClose() throws IOException {
+        Path dir = folder.newFolder().toPath();
+        ExternalSorter<User> sorter = new ExternalSorter<>(RecordFormat.USER, Comparator.comparingInt(User::getAge), 4096, dir);
+        Random random = new Random(1);
+        Stream<User> users = random.ints(5000, 0, 100).mapToObj(age -> new User(age % 7 == 0 ? null : "user" + age, age));
+        boolean[] closed = new boolean[1];
+        try (Stream<User> sorted = sorter.sort(users.onClose(() -> closed[0] = true))) {
+            // 只取前10个, 其余的段没有读完
+            Iterator<User> iterator = sorted.limit(10).iterator();
+            while (iterator.hasNext()) {
+                Assert.assertEquals(0, iterator.next().getAge());
+            }
+            Assert.assertTrue(fileCount(dir) > 0);
+        }
+        Assert.assertTrue(closed[0]);
+        Assert.assertEquals(0, fileCount(dir));
+
+        // count()也要遍历完归并结果, 不关闭流时段文件同样被删除
+        Stream<User> counted = random.ints(5000, 0, 100).mapToObj(age -> new User("user" + age, age));
+        Assert.assertEquals(5000, sorter.sort(counted).count());
+        Assert.assertEquals(0, fileCount(dir));
+    }
+
+    @Test
+    public void testFitsInMemory() throws IOException {
+        Path dir = folder.newFolder().toPath();
+        List<Student> students = Arrays.asList(new Student("zhangsan", 10, 90), new Student("lisi", 12, 80),
+                new Student("wangwu", 11, 90), new Student("中文名字", 13, -5));
+        List<Student> sorted = new ExternalSorter<>(RecordFormat.STUDENT, BY_SCORE_THEN_NAME,
+                ExternalSorter.DEFAULT_MEMORY_BUDGET, dir).sort(students.stream()).collect(Collectors.toList());
+        System.out.println(sorted);
+        Assert.assertEquals(0, fileCount(dir));
+        Assert.assertEquals(Arrays.asList("中文名字", "lisi", "wangwu", "zhangsan"),
+                sorted.stream().map(Student::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testEncoding() throws IOException {
+        // 负数、极值和超过缓冲区的长名字
+        Path file = folder.newFile().toPath();
+        StringBuilder longName = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            longName.append("名字");
+        }
+        List<Student> students = Arrays.asList(new Student(null, 0, 0), new Student("", -1, 1),
+                new Student(longName.toString(), Integer.MIN_VALUE, Integer.MAX_VALUE), new Student("a", 63, -64));
+        try (SpillWriter<Student> writer = new SpillWriter<>(file, RecordFormat.STUDENT, 64)) {
+            for (Student student : students) {
+                writer.write(student);
+            }
+        }
+        List<Student> read = new ArrayList<>();
+        try (SpillReader<Student> reader = new SpillReader<>(file, RecordFormat.STUDENT, students.size(), 64)) {
+            for (Student student = reader.next(); student != null; student = reader.next()) {
+                read.add(student);
+            }
+        }
+        assertSameStudents(students, read);
+        // 小的int只占1个字节, 极值占5个字节, 6000字节的名字长度占2个字节
+        Assert.assertEquals(3 + 3 + (2 + 6000 + 5 + 5) + 4, Files.size(file));
+    }
+
+    private static long fileCount(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    private static List<Student> students(int count, long seed) {
+        Random random = new Random(seed);
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            students.add(new Student("student" + i, 10 + random.nextInt(10), random.nextInt(101)));
+        }
+        return students;
+    }
+
+    private static void assertSameStudents(List<Student> expected, List<Student> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Student e = expected.get(i);
+            Student a = actual.get(i);
+            Assert.assertEquals(e.getName(), a.getName());
+            Assert.assertEquals(e.getAge(), a.getAge());
+            Assert.assertEquals(e.getScore(), a.getScore());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.yubin.stream.sort;
+
+import java.util.Comparator;
+import java.util.function.ToIntFunction;
+
+/**
+ * 按int类型的key比较的Comparator
+ * 普通的Comparator无法知道自己是按哪个int字段比较的, 用这个类包装之后IntKeySort可以识别出key, 改用基数排序
+ * 比较时使用Integer.compare, 不会像(a, b) -> a - b那样溢出
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class IntKeyComparator<T> implements Comparator<T> {
+
+    private final ToIntFunction<? super T> key;
+
+    private final boolean descending;
+
+    IntKeyComparator(ToIntFunction<? super T> key, boolean descending) {
+        this.key = key;
+        this.descending = descending;
+    }
+
+    public ToIntFunction<? super T> getKey() {
+        return key;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    @Override
+    public int compare(T o1, T o2) {
+        int k1 = key.applyAsInt(o1);
+        int k2 = key.applyAsInt(o2);
+        return descending ? Integer.compare(k2, k1) : Integer.compare(k1, k2);
+    }
+
+    @Override
+    public IntKeyComparator<T> reversed() {
+        return new IntKeyComparator<>(key, !descending);
+    }
+}
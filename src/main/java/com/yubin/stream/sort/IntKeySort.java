@@ -0,0 +1,173 @@
+package com.yubin.stream.sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Spliterator;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 按int类型的key(例如Student::getScore、User::getAge、String::length)排序
+ * 先把所有key取出来放到int[]中, 只对(下标, key)排序, 最后按下标重排对象, 排序过程中不调用Comparator
+ * 1. 数据量大并且有多个CPU时, 把key和下标打包成long, 用Arrays.parallelSort排序
+ * 2. 否则用LSD基数排序, 每趟8位共4趟, 所有元素在某一趟上相同的字节会跳过(例如年龄只需要1趟)
+ * 两种方式都是稳定的, 负数的key也能正确排序
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public final class IntKeySort {
+
+    // 小于这个数量直接用List.sort
+    private static final int SMALL_THRESHOLD = 64;
+
+    // 大于这个数量并且有多个CPU时使用并行排序
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private static final int RADIX_BITS = 8;
+
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    private IntKeySort() {
+    }
+
+    /**
+     * 可以被IntKeySort识别的Comparator, 用法同Comparator.comparingInt
+     */
+    public static <T> IntKeyComparator<T> comparingInt(ToIntFunction<? super T> key) {
+        return new IntKeyComparator<>(key, false);
+    }
+
+    /**
+     * comparator是IntKeyComparator时使用基数排序/并行排序, 否则退化成List.sort
+     */
+    public static <T> void sort(List<T> list, Comparator<? super T> comparator) {
+        if (comparator instanceof IntKeyComparator) {
+            IntKeyComparator<? super T> intKey = (IntKeyComparator<? super T>) comparator;
+            sort(list, intKey.getKey(), intKey.isDescending());
+        } else {
+            list.sort(comparator);
+        }
+    }
+
+    public static <T> void sort(List<T> list, ToIntFunction<? super T> key) {
+        sort(list, key, false);
+    }
+
+    /**
+     * 稳定排序, descending为true时从大到小
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void sort(List<T> list, ToIntFunction<? super T> key, boolean descending) {
+        Object[] items = list.toArray();
+        sort(items, (ToIntFunction<Object>) key, descending);
+        ListIterator<T> it = list.listIterator();
+        for (Object item : items) {
+            it.next();
+            it.set((T) item);
+        }
+    }
+
+    public static <T> void sort(T[] array, ToIntFunction<? super T> key) {
+        sort(array, key, false);
+    }
+
+    public static <T> void sort(T[] array, ToIntFunction<? super T> key, boolean descending) {
+        int n = array.length;
+        if (n < SMALL_THRESHOLD) {
+            Comparator<T> comparator = new IntKeyComparator<>(key, descending);
+            Arrays.sort(array, comparator);
+            return;
+        }
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            int k = key.applyAsInt(array[i]);
+            // ~k = -k - 1, 单调递减并且不会溢出
+            keys[i] = descending ? ~k : k;
+        }
+        int[] order = n >= PARALLEL_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1
+                ? parallelOrder(keys)
+                : radixOrder(keys);
+        Object[] sorted = new Object[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = array[order[i]];
+        }
+        System.arraycopy(sorted, 0, array, 0, n);
+    }
+
+    /**
+     * 流操作版本: stream.sorted(Comparator.comparingInt(key))
+     * 与sorted一样是懒执行的, 终止操作开始时才遍历上游并排序, 关闭返回的流时会关闭原来的流
+     */
+    public static <T> Stream<T> sorted(Stream<T> stream, ToIntFunction<? super T> key) {
+        // 排序结果是ArrayList, 它的Spliterator是ORDERED | SIZED | SUBSIZED的
+        return StreamSupport.stream(() -> {
+            List<T> list = stream.collect(Collectors.toCollection(ArrayList::new));
+            sort(list, key);
+            return list.spliterator();
+        }, Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED, stream.isParallel()).onClose(stream::close);
+    }
+
+    // 高32位是key, 低32位是下标, long的大小关系就是(key, 下标)的字典序
+    private static int[] parallelOrder(int[] keys) {
+        int n = keys.length;
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) {
+            packed[i] = ((long) keys[i] << 32) | i;
+        }
+        Arrays.parallelSort(packed);
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = (int) packed[i];
+        }
+        return order;
+    }
+
+    // LSD基数排序, 返回排序后的下标
+    private static int[] radixOrder(int[] keys) {
+        int n = keys.length;
+        int[] order = new int[n];
+        int[] orderBuffer = new int[n];
+        // 最高位取反, 有符号数的大小关系变成无符号数的大小关系
+        int[] current = new int[n];
+        int[] buffer = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            current[i] = keys[i] ^ Integer.MIN_VALUE;
+        }
+        int[] counts = new int[RADIX];
+        for (int shift = 0; shift < 32; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                counts[(current[i] >>> shift) & (RADIX - 1)]++;
+            }
+            // 所有元素在这一趟上的字节都相同, 顺序不会变化
+            if (counts[(current[0] >>> shift) & (RADIX - 1)] == n) {
+                continue;
+            }
+            int sum = 0;
+            for (int b = 0; b < RADIX; b++) {
+                int count = counts[b];
+                counts[b] = sum;
+                sum += count;
+            }
+            for (int i = 0; i < n; i++) {
+                int pos = counts[(current[i] >>> shift) & (RADIX - 1)]++;
+                buffer[pos] = current[i];
+                orderBuffer[pos] = order[i];
+            }
+            int[] tmp = current;
+            current = buffer;
+            buffer = tmp;
+            tmp = order;
+            order = orderBuffer;
+            orderBuffer = tmp;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,80 @@
+package com.yubin.stream.sort;
+
+import com.yubin.lambda.entity.Student;
+import com.yubin.stream.User;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * int类型key排序测试类
+ *
+ * @author yubin03
+ * @create 2021-08-22
+ */
+public class IntKeySortTest {
+
+    @Test
+    public void testSortList() {
+        // 同LambdaDemo.testSortList: (o1, o2) -> o1.length() - o2.length()
+        List<String> list = new ArrayList<>(Arrays.asList("java", "C", "python", "scala"));
+        IntKeySort.sort(list, IntKeySort.comparingInt(String::length));
+        list.forEach(System.out::println);
+
+        List<User> users = new ArrayList<>(Arrays.asList(new User("zhangsan", 3), new User("lisi", 1), new User("wangwu", 2)));
+        IntKeySort.sort(users, User::getAge);
+        System.out.println(users);
+    }
+
+    @Test
+    public void testCompareWithListSort() {
+        Random random = new Random(42);
+        // 分别覆盖基数排序和并行排序两条路径
+        for (int size : new int[]{10, 5000, 200000}) {
+            List<Student> list = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                list.add(new Student("student" + i, 10 + random.nextInt(10), random.nextInt(201) - 100));
+            }
+            list.add(new Student("min", Integer.MIN_VALUE, Integer.MIN_VALUE));
+            list.add(new Student("max", Integer.MAX_VALUE, Integer.MAX_VALUE));
+            check(list, Comparator.comparingInt(Student::getScore), IntKeySort.comparingInt(Student::getScore));
+            check(list, Comparator.comparingInt(Student::getAge), IntKeySort.comparingInt(Student::getAge));
+            check(list, Comparator.comparingInt(Student::getScore).reversed(), IntKeySort.comparingInt(Student::getScore).reversed());
+        }
+    }
+
+    private static void check(List<Student> list, Comparator<Student> expected, Comparator<Student> actual) {
+        List<Student> sortedByComparator = new ArrayList<>(list);
+        sortedByComparator.sort(expected);
+        List<Student> sortedByKey = new ArrayList<>(list);
+        IntKeySort.sort(sortedByKey, actual);
+        // 比较对象身份, 验证排序是稳定的
+        for (int i = 0; i < list.size(); i++) {
+            Assert.assertSame(sortedByComparator.get(i), sortedByKey.get(i));
+        }
+    }
+
+    @Test
+    public void testSortedIsLazy() {
+        AtomicInteger visited = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<String> sorted = IntKeySort.sorted(Stream.of("java", "C", "python", "scala").peek(s -> visited.incrementAndGet())
+                .onClose(() -> closed.set(true)), String::length);
+        // 终止操作之前不遍历上游
+        Assert.assertEquals(0, visited.get());
+        try (Stream<String> stream = sorted) {
+            Assert.assertEquals(Arrays.asList("C", "java", "scala", "python"), stream.collect(Collectors.toList()));
+        }
+        Assert.assertEquals(4, visited.get());
+        Assert.assertTrue(closed.get());
+    }
+}